@@ -0,0 +1,149 @@
+package ch.ilv.m295.airezept.entity;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two ways of storing recipe ingredients on H2, through plain Hibernate without
+ * Spring or the second-level cache: the old element collection table with one row per
+ * ingredient, and the json column {@link Recipe} uses now. Each operation is one transaction
+ * on a recipe with ten ingredients; update changes one of them.
+ * <p>
+ * {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.args="IngredientMappingBenchmark"}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngredientMappingBenchmark {
+
+    private static final int RECIPES = 10_000;
+    private static final int INGREDIENTS = 10;
+
+    @Param({"elementCollection", "jsonColumn"})
+    private String mapping;
+
+    private SessionFactory sessionFactory;
+    private Class<?> entityType;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    /**
+     * The mapping used before the ingredients column.
+     */
+    @Entity
+    public static class ElementCollectionRecipe {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @Column(nullable = false)
+        private String title;
+
+        @ElementCollection
+        @CollectionTable(name = "element_collection_recipe_ingredients", joinColumns = @JoinColumn(name = "recipe_id"))
+        @Column(name = "ingredient")
+        private List<String> ingredients = new ArrayList<>();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = new MetadataSources(new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:" + mapping + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL")
+                .applySetting(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .applySetting(AvailableSettings.USE_SECOND_LEVEL_CACHE, false)
+                // Column names as Spring Boot derives them, which the index definitions refer to
+                .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY, CamelCaseToUnderscoresNamingStrategy.class.getName())
+                .build())
+            .addAnnotatedClasses(Recipe.class, NormalizedIngredient.class, ElementCollectionRecipe.class)
+            .buildMetadata()
+            .buildSessionFactory();
+        entityType = mapping.equals("jsonColumn") ? Recipe.class : ElementCollectionRecipe.class;
+        for (int i = 0; i < RECIPES; i++) {
+            insert();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Object insert() {
+        Object recipe = newRecipe();
+        sessionFactory.inTransaction(session -> session.persist(recipe));
+        return recipe;
+    }
+
+    @Benchmark
+    public int read() {
+        long id = randomId();
+        return sessionFactory.fromTransaction(session -> ingredientsOf(session.find(entityType, id)).size());
+    }
+
+    @Benchmark
+    public void update() {
+        long id = randomId();
+        String ingredient = "Ingredient " + random.nextInt();
+        sessionFactory.inTransaction(session -> ingredientsOf(session.find(entityType, id)).set(3, ingredient));
+    }
+
+    private Object newRecipe() {
+        List<String> ingredients = new ArrayList<>(INGREDIENTS);
+        for (int i = 0; i < INGREDIENTS; i++) {
+            ingredients.add(i * 50 + " g ingredient " + i);
+        }
+        if (entityType == Recipe.class) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle("Recipe");
+            recipe.setIngredients(ingredients);
+            recipe.setCreatedBy("bench-user");
+            return recipe;
+        }
+        ElementCollectionRecipe recipe = new ElementCollectionRecipe();
+        recipe.title = "Recipe";
+        recipe.ingredients = ingredients;
+        return recipe;
+    }
+
+    private List<String> ingredientsOf(Object recipe) {
+        return recipe instanceof Recipe json ? json.getIngredients() : ((ElementCollectionRecipe) recipe).ingredients;
+    }
+
+    // Ids of the recipes inserted during setup
+    private long randomId() {
+        return 1 + random.nextInt(RECIPES);
+    }
+}
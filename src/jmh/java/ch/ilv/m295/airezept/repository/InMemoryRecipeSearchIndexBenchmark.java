@@ -0,0 +1,85 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.entity.Recipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of the in-memory search index over one million synthetic recipes. Sample time
+ * mode reports the percentiles (p0.95 is the one to watch). Words are drawn with a skewed
+ * distribution, so "salt" is in most recipes and the numbered words in only a few.
+ * <p>
+ * {@code mvn -Pbenchmarks test-compile exec:exec -Djmh.args="InMemoryRecipeSearchIndexBenchmark"}
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class InMemoryRecipeSearchIndexBenchmark {
+
+    private static final String[] WORDS = {
+        "salt", "pepper", "olive", "oil", "garlic", "onion", "butter", "tomato", "basil", "chicken",
+        "pasta", "rice", "lemon", "cream", "cheese", "egg", "flour", "sugar", "beef", "potato",
+        "carrot", "ginger", "soy", "sauce", "mushroom", "spinach", "thyme", "rosemary", "paprika", "cumin"
+    };
+
+    @Param({"1000000"})
+    private int recipes;
+
+    @Param({"basil", "tomato basil pasta", "salt pepper", "word4711"})
+    private String query;
+
+    private InMemoryRecipeSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        // Outside a transaction every recipe is indexed right away; the repository is only used by rebuild
+        index = new InMemoryRecipeSearchIndex(null);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 1; i <= recipes; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setId((long) i);
+            recipe.setTitle(words(random, 3));
+            recipe.setDescription(words(random, 8));
+            List<String> ingredients = new ArrayList<>();
+            for (int j = 0; j < 6; j++) {
+                ingredients.add(words(random, 2));
+            }
+            recipe.setIngredients(ingredients);
+            recipe.setInstructions(words(random, 20));
+            index.index(recipe);
+        }
+    }
+
+    @Benchmark
+    public List<Long> search() {
+        return index.search(query, 20);
+    }
+
+    private static String words(SplittableRandom random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            // Squaring skews towards the first words of the list
+            double skew = random.nextDouble();
+            int word = (int) (skew * skew * (WORDS.length + 200));
+            text.append(word < WORDS.length ? WORDS[word] : "word" + random.nextInt(10_000)).append(' ');
+        }
+        return text.toString();
+    }
+}
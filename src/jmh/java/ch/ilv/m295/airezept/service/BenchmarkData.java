@@ -0,0 +1,88 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test data shared by the benchmarks.
+ */
+public final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Builds a model answer in the prompt's format, wrapped in a markdown code fence, that is
+     * about {@code targetLength} characters long.
+     */
+    public static String modelResponse(int targetLength) {
+        StringBuilder ingredients = new StringBuilder();
+        StringBuilder instructions = new StringBuilder();
+        int step = 1;
+        while (ingredients.length() + instructions.length() < targetLength - 400) {
+            if (ingredients.length() > 0) {
+                ingredients.append(",\n        ");
+                instructions.append(",\n        ");
+            }
+            ingredients.append("\"").append(step * 25).append(" g ingredient number ").append(step).append(", finely chopped\"");
+            instructions.append("\"### Step ").append(step).append(": Prepare\", ")
+                .append("\"1. Add the **ingredient ").append(step).append("** and stir for `2 min`, *taste as you go*\", \"\"");
+            step++;
+        }
+        return """
+            ```json
+            {
+                "title": "Benchmark Risotto",
+                "description": "A creamy risotto with a long list of ingredients and detailed steps for the benchmark.",
+                "ingredients": [
+                    %s
+                ],
+                "instructions": [
+                    %s
+                ],
+                "preparation_time": 20,
+                "cooking_time": 35,
+                "servings": 4
+            }
+            ```
+            """.formatted(ingredients, instructions);
+    }
+
+    /**
+     * A valid recipe as the client would send it.
+     */
+    public static RecipeDto recipeDto() {
+        RecipeDto dto = new RecipeDto();
+        dto.setTitle("Benchmark Risotto");
+        dto.setDescription("A creamy risotto");
+        dto.setIngredients(List.of("300 g risotto rice", "1 l vegetable stock", "1 onion", "50 g parmesan", "2 tbsp butter"));
+        dto.setInstructions("### Step 1: Prepare\n1. Chop the onion\n\n### Step 2: Cook\n1. Add the stock ladle by ladle");
+        dto.setPreparationTime(10);
+        dto.setCookingTime(25);
+        dto.setServings(4);
+        return dto;
+    }
+
+    /**
+     * A persisted-looking recipe with all fields set.
+     */
+    public static Recipe recipe(long id) {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        recipe.setTitle("Recipe " + id);
+        recipe.setDescription("Description of recipe " + id);
+        recipe.setIngredients(new ArrayList<>(recipeDto().getIngredients()));
+        recipe.setInstructions(recipeDto().getInstructions());
+        recipe.setPreparationTime(10);
+        recipe.setCookingTime(25);
+        recipe.setServings(4);
+        recipe.setCreatedBy("user-" + (id % 10));
+        recipe.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0).plusMinutes(id));
+        recipe.setUpdatedAt(recipe.getCreatedAt());
+        return recipe;
+    }
+}
@@ -0,0 +1,80 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * The tree-model parser that {@link RecipeJsonParser} replaced, kept only as the baseline for
+ * {@link RecipeJsonParserBenchmark}: regex fence stripping, a new ObjectMapper per call and a
+ * full JsonNode tree.
+ */
+final class LegacyRecipeJsonParser {
+
+    private LegacyRecipeJsonParser() {
+    }
+
+    static RecipeDto parse(String response) throws Exception {
+        String json = response.replaceAll("```json\\s*", "").replaceAll("```\\s*", "").trim();
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode root = mapper.readTree(json);
+
+        validateField(root, "title", JsonNode::isTextual);
+        validateField(root, "description", JsonNode::isTextual);
+        validateField(root, "ingredients", JsonNode::isArray);
+        validateField(root, "instructions", JsonNode::isArray);
+        validateField(root, "preparation_time", JsonNode::isNumber);
+        validateField(root, "cooking_time", JsonNode::isNumber);
+        validateField(root, "servings", JsonNode::isNumber);
+
+        RecipeDto recipeDto = new RecipeDto();
+        recipeDto.setTitle(root.get("title").asText());
+        recipeDto.setDescription(root.get("description").asText());
+
+        List<String> ingredients = new ArrayList<>();
+        root.get("ingredients").forEach(node -> {
+            if (!node.isTextual()) {
+                throw new IllegalArgumentException("Ingredients must be strings");
+            }
+            ingredients.add(node.asText());
+        });
+        recipeDto.setIngredients(ingredients);
+
+        List<String> steps = new ArrayList<>();
+        root.get("instructions").forEach(node -> {
+            if (!node.isTextual()) {
+                throw new IllegalArgumentException("Instructions must be strings");
+            }
+            steps.add(node.asText());
+        });
+        recipeDto.setInstructions(String.join("\n", steps));
+
+        int prepTime = root.get("preparation_time").asInt();
+        int cookTime = root.get("cooking_time").asInt();
+        int servings = root.get("servings").asInt();
+
+        if (prepTime <= 0) throw new IllegalArgumentException("Preparation time must be positive");
+        if (cookTime <= 0) throw new IllegalArgumentException("Cooking time must be positive");
+        if (servings <= 0) throw new IllegalArgumentException("Servings must be positive");
+
+        recipeDto.setPreparationTime(prepTime);
+        recipeDto.setCookingTime(cookTime);
+        recipeDto.setServings(servings);
+        return recipeDto;
+    }
+
+    private static void validateField(JsonNode root, String fieldName, Predicate<JsonNode> validator) {
+        JsonNode node = root.get(fieldName);
+        if (node == null) {
+            throw new IllegalArgumentException("Missing required field: " + fieldName);
+        }
+        if (!validator.test(node)) {
+            throw new IllegalArgumentException("Invalid type for field: " + fieldName);
+        }
+    }
+}
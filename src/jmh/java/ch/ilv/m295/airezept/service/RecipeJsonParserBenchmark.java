@@ -0,0 +1,49 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the tree-model parser with the streaming {@link RecipeJsonParser} on fenced model
+ * responses of realistic size. Run with {@code -prof gc} to see gc.alloc.rate.norm.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecipeJsonParserBenchmark {
+
+    @Param({"2", "4", "8"})
+    private int responseKilobytes;
+
+    private String response;
+
+    @Setup
+    public void setUp() {
+        response = BenchmarkData.modelResponse(responseKilobytes * 1024);
+    }
+
+    @Benchmark
+    public RecipeDto legacyTreeParser() throws Exception {
+        return LegacyRecipeJsonParser.parse(response);
+    }
+
+    @Benchmark
+    public RecipeDto streamingParser() throws Exception {
+        return RecipeJsonParser.parse(response);
+    }
+}
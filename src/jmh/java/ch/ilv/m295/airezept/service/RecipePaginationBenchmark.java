@@ -0,0 +1,107 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.AirezeptApplication;
+import ch.ilv.m295.airezept.dto.CursorPageDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.RecipeSortField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares offset and cursor pagination of the recipe listing on a large H2 table, on the
+ * first page and on a deep one. Offset pages get slower the deeper they are and also pay for
+ * the total count, cursor pages should cost the same everywhere.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RecipePaginationBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"0", "9999"})
+    public int page;
+
+    private ConfigurableApplicationContext context;
+    private RecipeService recipeService;
+    private PageRequest pageRequest;
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(AirezeptApplication.class)
+            .profiles("test")
+            // Passed as arguments, so they win over the SQL logging of the test profile
+            .run("--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:pagination;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "--logging.level.org.springframework.web=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--logging.level.ch.ilv.m295.airezept=WARN");
+        recipeService = context.getBean(RecipeService.class);
+
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        // One second apart, so created_at is distinct like in production
+        jdbc.update("insert into recipe (title, ingredients, instructions, preparation_time, cooking_time, servings, created_by, created_at, updated_at) "
+            + "select 'Recipe ' || x, ('[\"Ingredient ' || x || '\"]') format json, 'Cook it', 10, mod(x, 120) + 1, 2, 'bench-user', "
+            + "dateadd('SECOND', x, timestamp '2024-01-01 00:00:00'), timestamp '2024-01-01 00:00:00' "
+            + "from system_range(1, ?)", rows);
+        jdbc.execute("analyze");
+
+        pageRequest = PageRequest.of(page, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createdAt"));
+        if (page > 0) {
+            // The cursor a client would have after walking to this page
+            Map<String, Object> last = jdbc.queryForMap("select created_at, id from recipe order by created_at desc, id desc offset ? rows fetch next 1 rows only",
+                page * PAGE_SIZE - 1);
+            LocalDateTime createdAt = ((Timestamp) last.get("CREATED_AT")).toLocalDateTime();
+            cursor = new RecipeCursor(RecipeSortField.CREATED_AT, Sort.Direction.DESC, createdAt,
+                ((Number) last.get("ID")).longValue()).encode();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Recipe> offset() {
+        return recipeService.getAllRecipes(pageRequest);
+    }
+
+    @Benchmark
+    public CursorPageDto<Recipe> cursor() {
+        return recipeService.getRecipesAfter(cursor, "createdAt", "desc", PAGE_SIZE);
+    }
+}
@@ -0,0 +1,46 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures copying a client DTO onto a recipe entity, as done on every create and update.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RecipeServiceBenchmark {
+
+    private RecipeService recipeService;
+    private RecipeDto dto;
+    private Recipe recipe;
+
+    @Setup
+    public void setUp() {
+        // The repositories are not touched by updateRecipeFromDto
+        recipeService = new RecipeService(null, null, null, null, null, null, null, null);
+        dto = BenchmarkData.recipeDto();
+        recipe = BenchmarkData.recipe(1);
+    }
+
+    @Benchmark
+    public Recipe updateRecipeFromDto() {
+        recipeService.updateRecipeFromDto(recipe, dto);
+        return recipe;
+    }
+}
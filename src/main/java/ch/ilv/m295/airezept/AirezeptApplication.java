@@ -1,16 +1,21 @@
 package ch.ilv.m295.airezept;
 
+import ch.ilv.m295.airezept.config.RecipeProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 @SpringBootApplication
 @EnableWebMvc
 @ComponentScan(basePackages = "ch.ilv.m295.airezept")
+@EnableConfigurationProperties(RecipeProperties.class)
+@EnableScheduling
 public class AirezeptApplication {
 
 	private static final Logger logger = LoggerFactory.getLogger(AirezeptApplication.class);
@@ -0,0 +1,74 @@
+package ch.ilv.m295.airezept.config;
+
+import com.anthropic.backends.AnthropicBackend;
+import com.anthropic.client.AnthropicClient;
+import com.anthropic.client.AnthropicClientImpl;
+import com.anthropic.core.ClientOptions;
+import com.anthropic.core.Timeout;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the single {@link AnthropicClient} shared by all AI services, so every generation
+ * reuses the same connection pool, dispatcher threads and TLS sessions.
+ */
+@Configuration
+@EnableConfigurationProperties(AnthropicProperties.class)
+public class AnthropicClientConfig {
+
+    @Bean
+    public PooledAnthropicHttpClient anthropicHttpClient(AnthropicProperties properties, Environment environment) {
+        AnthropicProperties.Client client = properties.getClient();
+
+        // Blocking calls run on the caller's thread, so only asynchronous calls need the dispatcher
+        Dispatcher dispatcher = Threading.VIRTUAL.isActive(environment)
+            ? new Dispatcher(Executors.newCachedThreadPool(new VirtualThreadTaskExecutor("anthropic-http-").getVirtualThreadFactory()))
+            : new Dispatcher();
+        dispatcher.setMaxRequests(client.getMaxConcurrency());
+        dispatcher.setMaxRequestsPerHost(client.getMaxConcurrency());
+
+        OkHttpClient okHttpClient = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(
+                client.getMaxIdleConnections(), client.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+            .dispatcher(dispatcher)
+            .connectTimeout(client.getConnectTimeout())
+            .readTimeout(client.getReadTimeout())
+            .writeTimeout(client.getWriteTimeout())
+            .callTimeout(client.getRequestTimeout())
+            .build();
+
+        AnthropicBackend backend = AnthropicBackend.builder()
+            .apiKey(properties.getApi().getKey())
+            .baseUrl(properties.getApi().getBaseUrl())
+            .build();
+
+        return new PooledAnthropicHttpClient(okHttpClient, backend, client.getMaxConcurrency(),
+            client.getAcquireTimeout());
+    }
+
+    @Bean
+    public AnthropicClient anthropicClient(PooledAnthropicHttpClient anthropicHttpClient, AnthropicProperties properties) {
+        AnthropicProperties.Client client = properties.getClient();
+        ClientOptions options = ClientOptions.builder()
+            .httpClient(anthropicHttpClient)
+            .maxRetries(client.getMaxRetries())
+            .timeout(Timeout.builder()
+                .connect(client.getConnectTimeout())
+                .read(client.getReadTimeout())
+                .write(client.getWriteTimeout())
+                .request(client.getRequestTimeout())
+                .build())
+            .build();
+        return new AnthropicClientImpl(options);
+    }
+}
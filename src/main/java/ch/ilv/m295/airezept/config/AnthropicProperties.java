@@ -0,0 +1,72 @@
+package ch.ilv.m295.airezept.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "anthropic")
+public class AnthropicProperties {
+
+    private Api api = new Api();
+    private Client client = new Client();
+    private Stream stream = new Stream();
+    private Jobs jobs = new Jobs();
+    private Cache cache = new Cache();
+    private Batch batch = new Batch();
+
+    @Data
+    public static class Api {
+        private String key;
+        private String baseUrl = "https://api.anthropic.com";
+    }
+
+    @Data
+    public static class Client {
+        private int maxIdleConnections = 5; // idle connections kept in the pool
+        private Duration keepAlive = Duration.ofMinutes(5);
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Duration readTimeout = Duration.ofSeconds(120);
+        private Duration writeTimeout = Duration.ofSeconds(30); // sending the request body
+        private Duration requestTimeout = Duration.ofSeconds(180);
+        private int maxConcurrency = 16; // parallel in-flight model calls
+        private Duration acquireTimeout = Duration.ofSeconds(30); // longest wait for one of them to be free
+        private int maxRetries = 2;
+    }
+
+    @Data
+    public static class Stream {
+        private int poolSize = 16; // concurrent streaming generations
+        private int queueCapacity = 32;
+        private Duration timeout = Duration.ofMinutes(3);
+        private Duration retryAfter = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Jobs {
+        private String store = "memory"; // memory or jpa
+        private int poolSize = 8; // concurrent background generations
+        private int queueCapacity = 64;
+        private Duration retryAfter = Duration.ofSeconds(10);
+        private Duration retention = Duration.ofHours(1); // how long finished jobs are kept
+        private Duration cleanupInterval = Duration.ofMinutes(10); // pause between two deletions of expired jobs in the database
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private int maxEntries = 1000; // heap tier size, least recently used entries are evicted first
+        private Duration ttl = Duration.ofDays(7);
+        private String diskDirectory; // optional second tier that survives restarts, disabled when empty
+        private int maxDiskEntries = 10000; // disk tier size, the oldest files are deleted first
+        private Duration diskSweepInterval = Duration.ofHours(1); // pause between two sweeps of expired files
+    }
+
+    @Data
+    public static class Batch {
+        private int parallelism = 4; // model calls in flight per batch request, run on the job executor
+        private Duration offlinePollInterval = Duration.ofMinutes(1); // pause between two checks of pending offline batches
+        private Duration offlineExpiry = Duration.ofHours(25); // the API ends a batch within 24 hours, plus time to collect it
+    }
+}
@@ -0,0 +1,57 @@
+package ch.ilv.m295.airezept.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executors for AI work that must not run on the servlet request thread.
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true} on Java 21 every task gets its own virtual
+ * thread and pool size plus queue capacity become the number of tasks admitted at once.
+ * Otherwise a bounded pool of platform threads is used.
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor aiStreamExecutor(AnthropicProperties properties) {
+        AnthropicProperties.Stream stream = properties.getStream();
+        return threadPool("ai-stream-", stream.getPoolSize(), stream.getQueueCapacity());
+    }
+
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor aiJobExecutor(AnthropicProperties properties) {
+        AnthropicProperties.Jobs jobs = properties.getJobs();
+        return threadPool("ai-job-", jobs.getPoolSize(), jobs.getQueueCapacity());
+    }
+
+    @Bean(name = "aiStreamExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor aiStreamVirtualExecutor(AnthropicProperties properties) {
+        AnthropicProperties.Stream stream = properties.getStream();
+        return new BoundedVirtualThreadExecutor("ai-stream-", stream.getPoolSize() + stream.getQueueCapacity());
+    }
+
+    @Bean(name = "aiJobExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor aiJobVirtualExecutor(AnthropicProperties properties) {
+        AnthropicProperties.Jobs jobs = properties.getJobs();
+        return new BoundedVirtualThreadExecutor("ai-job-", jobs.getPoolSize() + jobs.getQueueCapacity());
+    }
+
+    private ThreadPoolTaskExecutor threadPool(String threadNamePrefix, int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
@@ -0,0 +1,49 @@
+package ch.ilv.m295.airezept.config;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs every task on its own virtual thread, but admits at most {@code limit} tasks at a time
+ * and rejects the rest with a {@link TaskRejectedException}, just like a full thread pool queue.
+ * Virtual threads are cheap, so the limit only protects downstream resources.
+ */
+public class BoundedVirtualThreadExecutor implements AsyncTaskExecutor {
+
+    private final VirtualThreadTaskExecutor delegate;
+    private final Semaphore permits;
+    private final int limit;
+
+    public BoundedVirtualThreadExecutor(String threadNamePrefix, int limit) {
+        this.delegate = new VirtualThreadTaskExecutor(threadNamePrefix);
+        this.permits = new Semaphore(limit);
+        this.limit = limit;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!permits.tryAcquire()) {
+            throw new TaskRejectedException("Executor limit reached, rejecting task " + task);
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** Number of tasks currently running. */
+    public int getActiveCount() {
+        return limit - permits.availablePermits();
+    }
+}
@@ -0,0 +1,23 @@
+package ch.ilv.m295.airezept.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * ETags for the public recipe list pages. They are a hash of the response body, so the page is
+ * still built but an unchanged one is answered with a bodiless 304. Single recipes get cheaper
+ * ETags from their version in {@code RecipeController}.
+ */
+@Configuration
+public class HttpCacheConfig {
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> recipeListETagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/api/recipes", "/api/recipes/cursor", "/api/recipes/search",
+            "/api/recipes/by-ingredients");
+        return registration;
+    }
+}
@@ -0,0 +1,255 @@
+package ch.ilv.m295.airezept.config;
+
+import ch.ilv.m295.airezept.exception.GenerationQueueFullException;
+import com.anthropic.backends.Backend;
+import com.anthropic.core.RequestOptions;
+import com.anthropic.core.Timeout;
+import com.anthropic.core.http.Headers;
+import com.anthropic.core.http.HttpClient;
+import com.anthropic.core.http.HttpMethod;
+import com.anthropic.core.http.HttpRequest;
+import com.anthropic.core.http.HttpRequestBody;
+import com.anthropic.core.http.HttpResponse;
+import com.anthropic.errors.AnthropicIoException;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Transport for the Anthropic SDK backed by one shared {@link OkHttpClient}.
+ * <p>
+ * The SDK's own OkHttp client does not expose its connection pool or dispatcher, so this
+ * adapter owns them instead. Blocking calls are additionally capped by a semaphore whose
+ * permit is held until the response is closed, which also covers streamed responses. A call
+ * that finds no permit within {@code anthropic.client.acquire-timeout} fails with
+ * {@link GenerationQueueFullException} instead of waiting for good.
+ */
+public class PooledAnthropicHttpClient implements HttpClient {
+
+    private final OkHttpClient okHttpClient;
+    private final Backend backend;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final Duration acquireTimeout;
+
+    public PooledAnthropicHttpClient(OkHttpClient okHttpClient, Backend backend, int maxConcurrency,
+                                     Duration acquireTimeout) {
+        this.okHttpClient = okHttpClient;
+        this.backend = backend;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public HttpResponse execute(@NotNull HttpRequest request, @NotNull RequestOptions requestOptions) {
+        HttpRequest prepared = prepareRequest(request);
+        boolean handedOver = false;
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                // Not an AnthropicIoException, which the SDK would retry and wait again
+                throw new GenerationQueueFullException("All " + maxConcurrency
+                    + " connections to the Anthropic API stayed busy for " + acquireTimeout.toMillis() + "ms",
+                    acquireTimeout);
+            }
+            try {
+                Response response = newCall(prepared, requestOptions).execute();
+                OkHttpResponse wrapped = new OkHttpResponse(response, permits);
+                // From here on the wrapper releases the permit, once, when it is closed
+                handedOver = true;
+                return prepareResponse(wrapped);
+            } finally {
+                if (!handedOver) {
+                    permits.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AnthropicIoException("Interrupted while waiting for a free connection slot", e);
+        } catch (IOException e) {
+            throw new AnthropicIoException("Request failed", e);
+        } finally {
+            closeBody(prepared);
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse> executeAsync(@NotNull HttpRequest request, @NotNull RequestOptions requestOptions) {
+        HttpRequest prepared = prepareRequest(request);
+        CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+        future.whenComplete((response, error) -> closeBody(prepared));
+
+        // Asynchronous calls are bounded by the dispatcher limits instead of the semaphore
+        newCall(prepared, requestOptions).enqueue(new Callback() {
+            @Override
+            public void onResponse(@NotNull Call call, @NotNull Response response) {
+                try {
+                    future.complete(prepareResponse(new OkHttpResponse(response, null)));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onFailure(@NotNull Call call, @NotNull IOException e) {
+                future.completeExceptionally(new AnthropicIoException("Request failed", e));
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void close() {
+        okHttpClient.dispatcher().executorService().shutdown();
+        okHttpClient.connectionPool().evictAll();
+        backend.close();
+    }
+
+    /** Number of connections currently held by the pool, idle or in use. */
+    public int connectionCount() {
+        return okHttpClient.connectionPool().connectionCount();
+    }
+
+    private HttpRequest prepareRequest(HttpRequest request) {
+        HttpRequest prepared = backend.prepareRequest(request);
+        HttpUrl.Builder url = HttpUrl.get(backend.baseUrl()).newBuilder();
+        prepared.pathSegments().forEach(url::addPathSegment);
+        prepared.queryParams().keys().forEach(key ->
+            prepared.queryParams().values(key).forEach(value -> url.addQueryParameter(key, value)));
+        return backend.authorizeRequest(prepared.toBuilder().url(url.build().toString()).build());
+    }
+
+    private Call newCall(HttpRequest request, RequestOptions requestOptions) {
+        OkHttpClient client = okHttpClient;
+        Timeout timeout = requestOptions.getTimeout();
+        if (timeout != null) {
+            // newBuilder() shares the connection pool and dispatcher of the base client
+            client = okHttpClient.newBuilder()
+                .connectTimeout(timeout.connect())
+                .readTimeout(timeout.read())
+                .writeTimeout(timeout.write())
+                .callTimeout(timeout.request())
+                .build();
+        }
+        return client.newCall(toRequest(request));
+    }
+
+    private Request toRequest(HttpRequest request) {
+        RequestBody body = toRequestBody(request.body());
+        if (body == null && requiresBody(request.method())) {
+            body = RequestBody.create(new byte[0]);
+        }
+
+        Request.Builder builder = new Request.Builder()
+            .url(request.url())
+            .method(request.method().name(), body);
+        Headers headers = request.headers();
+        headers.names().forEach(name -> headers.values(name).forEach(value -> builder.addHeader(name, value)));
+        return builder.build();
+    }
+
+    private static boolean requiresBody(HttpMethod method) {
+        return method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH;
+    }
+
+    private static RequestBody toRequestBody(HttpRequestBody body) {
+        if (body == null) {
+            return null;
+        }
+        MediaType mediaType = body.contentType() != null ? MediaType.parse(body.contentType()) : null;
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return mediaType;
+            }
+
+            @Override
+            public long contentLength() {
+                return body.contentLength();
+            }
+
+            @Override
+            public boolean isOneShot() {
+                return !body.repeatable();
+            }
+
+            @Override
+            public void writeTo(@NotNull BufferedSink sink) {
+                body.writeTo(sink.outputStream());
+            }
+        };
+    }
+
+    // A response the backend fails on is closed here, since nobody else gets to see it
+    private HttpResponse prepareResponse(OkHttpResponse response) {
+        try {
+            return backend.prepareResponse(response);
+        } catch (RuntimeException | Error e) {
+            response.close();
+            throw e;
+        }
+    }
+
+    private static void closeBody(HttpRequest request) {
+        if (request.body() != null) {
+            request.body().close();
+        }
+    }
+
+    private static final class OkHttpResponse implements HttpResponse {
+        private final Response response;
+        private final Headers headers;
+        private final Semaphore permits;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private OkHttpResponse(Response response, Semaphore permits) {
+            this.response = response;
+            this.permits = permits;
+            Headers.Builder builder = Headers.builder();
+            response.headers().names().forEach(name -> builder.put(name, response.headers(name)));
+            this.headers = builder.build();
+        }
+
+        @Override
+        public int statusCode() {
+            return response.code();
+        }
+
+        @NotNull
+        @Override
+        public Headers headers() {
+            return headers;
+        }
+
+        @NotNull
+        @Override
+        public InputStream body() {
+            return response.body().byteStream();
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                response.close();
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        }
+    }
+}
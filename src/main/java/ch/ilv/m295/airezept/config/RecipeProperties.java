@@ -0,0 +1,45 @@
+package ch.ilv.m295.airezept.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "recipes")
+public class RecipeProperties {
+
+    private Search search = new Search();
+    private Transfer transfer = new Transfer();
+    private History history = new History();
+    private Moderation moderation = new Moderation();
+
+    @Data
+    public static class Search {
+        private String backend = "postgres"; // postgres (tsvector column) or memory (in-process index)
+    }
+
+    @Data
+    public static class Transfer {
+        private int importBatchSize = 500; // recipes saved per import transaction
+        private int maxImportErrors = 100; // errors listed in the import report, further ones are only counted
+        private int maxImportLineLength = 1_000_000; // characters per import line, longer lines are skipped
+    }
+
+    @Data
+    public static class History {
+        private Duration archiveAfter = Duration.ofDays(90); // requests older than this move to request_history_archive
+        private Duration deleteAfter = Duration.ofDays(730); // archived requests older than this are deleted
+        private int retentionBatchSize = 1000; // rows moved or deleted per transaction
+        private Duration retentionInterval = Duration.ofHours(1); // pause between two retention runs
+        private int bufferCapacity = 10000; // histories queued for the write-behind flusher
+        private int flushBatchSize = 500; // histories inserted per flush transaction
+        private Duration flushInterval = Duration.ofMillis(200); // longest wait for a batch to fill up
+        private Duration enqueueTimeout = Duration.ofSeconds(1); // wait for room in a full queue before writing directly
+    }
+
+    @Data
+    public static class Moderation {
+        private int deleteBatchSize = 500; // recipes deleted per transaction by the bulk delete
+    }
+}
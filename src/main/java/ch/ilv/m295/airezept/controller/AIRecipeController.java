@@ -1,16 +1,36 @@
 package ch.ilv.m295.airezept.controller;
 
+import ch.ilv.m295.airezept.config.AnthropicProperties;
+import ch.ilv.m295.airezept.dto.BatchGenerationDto;
+import ch.ilv.m295.airezept.dto.BatchGenerationRequestDto;
+import ch.ilv.m295.airezept.dto.CacheStatsDto;
+import ch.ilv.m295.airezept.dto.GenerationJobDto;
 import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.exception.GenerationQueueFullException;
 import ch.ilv.m295.airezept.service.AIRecipeService;
+import ch.ilv.m295.airezept.service.BatchGenerationService;
+import ch.ilv.m295.airezept.service.GenerationJobService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 
 @RestController
 @RequestMapping("/api/ai/recipes")
@@ -18,19 +38,150 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "AI Recipe Generator", description = "AI-powered recipe generation APIs")
 @SecurityRequirement(name = "bearerAuth")
 public class AIRecipeController {
+    private static final Logger logger = LoggerFactory.getLogger(AIRecipeController.class);
 
     private final AIRecipeService aiRecipeService;
+    private final GenerationJobService generationJobService;
+    private final BatchGenerationService batchGenerationService;
+    private final AsyncTaskExecutor aiStreamExecutor;
+    private final AnthropicProperties anthropicProperties;
 
     @PostMapping("/generate")
     @Operation(summary = "Generate a recipe using AI")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<RecipeDto> generateRecipe(
+            @RequestBody String ingredientsOrIdea,
+            @Parameter(description = "Set to false to bypass the response cache", example = "true")
+            @RequestParam(defaultValue = "true") boolean cache,
+            Authentication authentication) {
+        String userId = getUserId(authentication);
+        return ResponseEntity.ok(aiRecipeService.generateRecipe(ingredientsOrIdea, userId, cache));
+    }
+
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Generate a recipe using AI and stream it as Server-Sent Events",
+        description = "Sends title, description, ingredient, instruction, preparationTime, cookingTime and servings "
+            + "events as soon as the model has written them, then a final recipe event with the saved recipe."
+    )
+    @PreAuthorize("isAuthenticated()")
+    public SseEmitter generateRecipeStream(
+            @RequestBody String ingredientsOrIdea,
+            @Parameter(description = "Set to false to bypass the response cache", example = "true")
+            @RequestParam(defaultValue = "true") boolean cache,
+            Authentication authentication) {
+        String userId = getUserId(authentication);
+        SseEmitter emitter = new SseEmitter(anthropicProperties.getStream().getTimeout().toMillis());
+
+        try {
+            aiStreamExecutor.execute(() -> streamRecipe(emitter, ingredientsOrIdea, userId, cache));
+        } catch (TaskRejectedException e) {
+            throw new GenerationQueueFullException("Too many recipe streams in progress, please retry later",
+                anthropicProperties.getStream().getRetryAfter());
+        }
+        return emitter;
+    }
+
+    @PostMapping("/generate/batch")
+    @Operation(
+        summary = "Generate up to 20 recipes at once",
+        description = "Generates the recipes in parallel and saves them together. Ideas that fail are reported per item. "
+            + "With offline=true the ideas are submitted to the Message Batches API instead and 202 is returned; "
+            + "the recipes are saved as soon as the batch has ended, poll the Location until the status is COMPLETED or FAILED."
+    )
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<BatchGenerationDto> generateBatch(
+            @Valid @RequestBody BatchGenerationRequestDto request,
+            @Parameter(description = "Set to false to bypass the response cache", example = "true")
+            @RequestParam(defaultValue = "true") boolean cache,
+            @Parameter(description = "Process the batch offline at a lower price, results can take up to 24 hours", example = "false")
+            @RequestParam(defaultValue = "false") boolean offline,
+            Authentication authentication) {
+        String userId = getUserId(authentication);
+        if (offline) {
+            BatchGenerationDto batch = batchGenerationService.submitOfflineBatch(request.getIdeas(), userId);
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/ai/recipes/generate/batch/" + batch.getId()))
+                .body(batch);
+        }
+        return ResponseEntity.ok(batchGenerationService.generateBatch(request.getIdeas(), userId, cache));
+    }
+
+    @GetMapping("/generate/batch/{id}")
+    @Operation(summary = "Get an offline batch, including the saved recipes once it has completed")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<BatchGenerationDto> getBatch(
+            @PathVariable String id,
+            Authentication authentication) {
+        String userId = getUserId(authentication);
+        return ResponseEntity.ok(batchGenerationService.getOfflineBatch(id, userId));
+    }
+
+    @PostMapping("/jobs")
+    @Operation(
+        summary = "Queue a recipe generation job",
+        description = "Returns 202 with the job id immediately. Returns 429 with Retry-After if the worker queue is full."
+    )
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<GenerationJobDto> submitJob(
             @RequestBody String ingredientsOrIdea,
             Authentication authentication) {
+        String userId = getUserId(authentication);
+        GenerationJobDto job = generationJobService.submitJob(ingredientsOrIdea, userId);
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/ai/recipes/jobs/" + job.getId()))
+            .body(job);
+    }
+
+    @GetMapping("/jobs/{id}")
+    @Operation(summary = "Get the status of a recipe generation job, including the recipe once it has completed")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<GenerationJobDto> getJob(
+            @PathVariable String id,
+            Authentication authentication) {
+        String userId = getUserId(authentication);
+        return ResponseEntity.ok(generationJobService.getJob(id, userId));
+    }
+
+    @GetMapping("/cache/stats")
+    @Operation(summary = "Get hit, miss and eviction counters of the AI response cache. Requires ADMIN role.")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CacheStatsDto> getCacheStats() {
+        return ResponseEntity.ok(aiRecipeService.getCacheStats());
+    }
+
+    private void streamRecipe(SseEmitter emitter, String ingredientsOrIdea, String userId, boolean cache) {
+        try {
+            RecipeDto recipe = aiRecipeService.generateRecipeStreaming(ingredientsOrIdea, userId, cache,
+                (name, value) -> send(emitter, name, value));
+            send(emitter, "recipe", recipe);
+            emitter.complete();
+        } catch (UncheckedIOException e) {
+            logger.info("Client disconnected from recipe stream: {}", e.getMessage());
+            emitter.completeWithError(e);
+        } catch (Exception e) {
+            logger.error("Streaming recipe generation failed", e);
+            try {
+                send(emitter, "error", e.getMessage());
+                emitter.complete();
+            } catch (UncheckedIOException ignored) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private String getUserId(Authentication authentication) {
         if (authentication == null || !(authentication.getPrincipal() instanceof Jwt)) {
             throw new SecurityException("Authentication required");
         }
-        String userId = ((Jwt) authentication.getPrincipal()).getSubject();
-        return ResponseEntity.ok(aiRecipeService.generateRecipe(ingredientsOrIdea, userId));
+        return ((Jwt) authentication.getPrincipal()).getSubject();
+    }
+
+    private void send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
-} 
\ No newline at end of file
+}
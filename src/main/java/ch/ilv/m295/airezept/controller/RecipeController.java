@@ -1,9 +1,21 @@
 package ch.ilv.m295.airezept.controller;
 
+import ch.ilv.m295.airezept.dto.CacheRegionStatsDto;
+import ch.ilv.m295.airezept.dto.CursorPageDto;
+import ch.ilv.m295.airezept.dto.PantryMatchDto;
+import ch.ilv.m295.airezept.dto.RecipeBulkDeleteDto;
 import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.dto.RecipeImportProgressDto;
+import ch.ilv.m295.airezept.dto.RecipePatchDto;
+import ch.ilv.m295.airezept.dto.RequestHistoryDto;
+import ch.ilv.m295.airezept.dto.RequestHistoryWriterStatsDto;
 import ch.ilv.m295.airezept.dto.ErrorResponse;
 import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.exception.InvalidBulkDeleteException;
+import ch.ilv.m295.airezept.service.RecipeModerationService;
 import ch.ilv.m295.airezept.service.RecipeService;
+import ch.ilv.m295.airezept.service.RecipeTransferService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,27 +24,51 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping(value = "/api/recipes", produces = MediaType.APPLICATION_JSON_VALUE)
 @RequiredArgsConstructor
+@Validated
 @Tag(name = "Recipe", description = "Recipe management APIs")
 @SecurityRequirement(name = "bearerAuth")
 public class RecipeController {
 
+    // Public reads may be stored by any cache but must be revalidated with their ETag
+    private static final CacheControl PUBLIC_REVALIDATE = CacheControl.noCache().cachePublic();
+
     private final RecipeService recipeService;
+    private final RecipeTransferService recipeTransferService;
+    private final RecipeModerationService recipeModerationService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     @Operation(
@@ -63,17 +99,208 @@ public class RecipeController {
         Sort.Direction sortDirection = Sort.Direction.fromString(direction.toLowerCase());
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
         
-        return ResponseEntity.ok(recipeService.getAllRecipes(pageRequest));
+        return ResponseEntity.ok().cacheControl(PUBLIC_REVALIDATE).body(recipeService.getAllRecipes(pageRequest));
+    }
+
+    @GetMapping("/cursor")
+    @Operation(
+        summary = "Get recipes with cursor pagination",
+        description = "Returns one page and an opaque nextCursor to pass as 'after' for the next page. "
+            + "Deep pages are as fast as the first one and no total count is computed. "
+            + "Can be sorted by createdAt, title or cookingTime; recipes without a cooking time are left out "
+            + "when sorting by cookingTime."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved recipes"),
+        @ApiResponse(responseCode = "400", description = "Invalid sort field, page size or cursor",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<CursorPageDto<Recipe>> getRecipesByCursor(
+            @Parameter(description = "Cursor from the previous page, empty for the first page")
+            @RequestParam(required = false) String after,
+
+            @Parameter(description = "Number of items per page (1-100)", example = "20")
+            @RequestParam(defaultValue = "20") int size,
+
+            @Parameter(description = "Sort field: createdAt, title or cookingTime", example = "createdAt")
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+
+            @Parameter(description = "Sort direction (asc/desc)", example = "desc")
+            @RequestParam(defaultValue = "desc") String direction) {
+        return ResponseEntity.ok().cacheControl(PUBLIC_REVALIDATE)
+            .body(recipeService.getRecipesAfter(after, sortBy, direction, size));
+    }
+
+    @GetMapping("/search")
+    @Operation(
+        summary = "Search recipes",
+        description = "Full-text search over title, ingredients, description and instructions, best match first. "
+            + "Matches in the title rank above matches in the ingredients, description and instructions. "
+            + "Accents and case are ignored."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Matching recipes, best match first"),
+        @ApiResponse(responseCode = "400", description = "Blank or too long query, or invalid limit",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<List<Recipe>> searchRecipes(
+            @Parameter(description = "Search terms", example = "tomato basil")
+            @RequestParam @NotBlank @Size(max = 200) String q,
+
+            @Parameter(description = "Maximum number of results (1-100)", example = "20")
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return ResponseEntity.ok().cacheControl(PUBLIC_REVALIDATE).body(recipeService.searchRecipes(q, limit));
+    }
+
+    @GetMapping("/by-ingredients")
+    @Operation(
+        summary = "Find recipes by the ingredients at hand",
+        description = "Ranks recipes by how much of them the given pantry covers: recipes needing nothing else "
+            + "come first, then the ones missing the fewest ingredients. Pantry items are matched by name, "
+            + "ignoring quantities, case and plurals, e.g. have=eggs,flour,milk."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Matching recipes, best covered first"),
+        @ApiResponse(responseCode = "400", description = "Empty pantry, too many items or invalid limit",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<List<PantryMatchDto>> getRecipesByIngredients(
+            @Parameter(description = "Ingredients at hand, comma separated or repeated", example = "eggs,flour,milk")
+            @RequestParam @NotEmpty @Size(max = 50) List<@NotBlank String> have,
+
+            @Parameter(description = "Maximum number of results (1-100)", example = "20")
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return ResponseEntity.ok().cacheControl(PUBLIC_REVALIDATE)
+            .body(recipeService.findRecipesByIngredients(have, limit));
+    }
+
+    @GetMapping("/mine")
+    @Operation(
+        summary = "Get my recipes",
+        description = "Returns the recipes of the authenticated user, newest first, one slice at a time. "
+            + "No total count is computed; use 'last' to know when to stop. Requires authentication."
+    )
+    @PreAuthorize("isAuthenticated()")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved recipes"),
+        @ApiResponse(responseCode = "400", description = "Invalid pagination parameters",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Authentication required",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<Slice<Recipe>> getMyRecipes(
+            @Parameter(description = "Page number (0-based)", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+
+            @Parameter(description = "Number of items per page (1-100)", example = "20")
+            @RequestParam(defaultValue = "20") int size,
+
+            Authentication authentication) {
+        return ResponseEntity.ok(recipeService.getRecipesByUser(getUserId(authentication), page, size));
+    }
+
+    @GetMapping("/history")
+    @Operation(
+        summary = "Get my generation history",
+        description = "Returns the generation requests of the authenticated user with the recipe each one produced, "
+            + "newest first, one slice at a time. No total count is computed; use 'last' to know when to stop. "
+            + "Requires authentication."
+    )
+    @PreAuthorize("isAuthenticated()")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved the history"),
+        @ApiResponse(responseCode = "400", description = "Invalid pagination parameters",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Authentication required",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<Slice<RequestHistoryDto>> getMyHistory(
+            @Parameter(description = "Page number (0-based)", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+
+            @Parameter(description = "Number of items per page (1-100)", example = "20")
+            @RequestParam(defaultValue = "20") int size,
+
+            Authentication authentication) {
+        return ResponseEntity.ok(recipeService.getHistoryByUser(getUserId(authentication), page, size));
+    }
+
+    @GetMapping("/cache/stats")
+    @Operation(summary = "Get hit, miss and put counters of the recipe second-level cache regions. Requires ADMIN role.")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<CacheRegionStatsDto>> getCacheRegionStats() {
+        return ResponseEntity.ok(recipeService.getCacheRegionStats());
+    }
+
+    @GetMapping("/history/stats")
+    @Operation(summary = "Get queue depth and flush latency of the request history write-behind. Requires ADMIN role.")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RequestHistoryWriterStatsDto> getHistoryWriterStats() {
+        return ResponseEntity.ok(recipeService.getHistoryWriterStats());
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+        summary = "Export all recipes",
+        description = "Streams every recipe as one line of JSON (NDJSON), in id order. The output can be "
+            + "imported again with POST /api/recipes/import. Requires ADMIN role."
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "All recipes, one per line"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Authentication required",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "403", description = "Forbidden - ADMIN role required",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public void exportRecipes(HttpServletResponse response) throws IOException {
+        // Written straight to the response, so the export is not held in memory or cut off by an async timeout
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"recipes.ndjson\"");
+        recipeTransferService.exportRecipes(response.getOutputStream());
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+        produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(
+        summary = "Import recipes",
+        description = "Reads one recipe per line of the body (NDJSON) and saves them in batches, one transaction "
+            + "per batch. Invalid lines are skipped. The response streams one progress line per saved batch and "
+            + "a last line with done=true; each line lists the errors since the previous one. Requires ADMIN role."
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Progress lines, the last one with the totals",
+            content = @Content(schema = @Schema(implementation = RecipeImportProgressDto.class))),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Authentication required",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "403", description = "Forbidden - ADMIN role required",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public void importRecipes(InputStream body, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        ServletOutputStream out = response.getOutputStream();
+        recipeTransferService.importRecipes(body, "test-user", progress -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(progress));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     @GetMapping("/{id}")
     @Operation(
         summary = "Get recipe by ID",
-        description = "Retrieves a specific recipe by its unique identifier."
+        description = "Retrieves a specific recipe by its unique identifier. Send the returned ETag as "
+            + "If-None-Match to get a 304 while the recipe is unchanged."
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved recipe",
             content = @Content(schema = @Schema(implementation = Recipe.class))),
+        @ApiResponse(responseCode = "304", description = "Recipe unchanged since the given ETag"),
         @ApiResponse(responseCode = "404", description = "Recipe not found",
             content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
         @ApiResponse(responseCode = "500", description = "Internal server error",
@@ -81,8 +308,14 @@ public class RecipeController {
     })
     public ResponseEntity<Recipe> getRecipeById(
             @Parameter(description = "Recipe ID", example = "1")
-            @PathVariable Long id) {
-        return ResponseEntity.ok(recipeService.getRecipeById(id));
+            @PathVariable Long id,
+            WebRequest webRequest) {
+        // Revalidations are answered from the ETag alone, without loading the recipe
+        String eTag = recipeService.getRecipeETag(id);
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(PUBLIC_REVALIDATE).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(PUBLIC_REVALIDATE).body(recipeService.getRecipeById(id));
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -138,6 +371,36 @@ public class RecipeController {
         return ResponseEntity.ok(recipeService.updateRecipe(id, recipeDto, "test-user"));
     }
 
+    @PatchMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+        summary = "Partially update a recipe",
+        description = "Changes only the fields present in the body; the others keep their value. Send the version "
+            + "of the recipe you read to be rejected with 409 instead of overwriting a newer change. Requires ADMIN role."
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Recipe updated successfully",
+            content = @Content(schema = @Schema(implementation = Recipe.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid recipe data",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Authentication required",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "403", description = "Forbidden - ADMIN role required",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "404", description = "Recipe not found",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "409", description = "Recipe changed since the given version",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<Recipe> patchRecipe(
+            @Parameter(description = "Recipe ID", example = "1")
+            @PathVariable Long id,
+
+            @Parameter(description = "Fields to change", required = true)
+            @Valid @RequestBody RecipePatchDto patch) {
+        return ResponseEntity.ok(recipeService.patchRecipe(id, patch, "test-user"));
+    }
+
     @DeleteMapping("/{id}")
     @Operation(
         summary = "Delete a recipe",
@@ -161,4 +424,43 @@ public class RecipeController {
         recipeService.deleteRecipe(id, "test-user");
         return ResponseEntity.noContent().build();
     }
-} 
\ No newline at end of file
+
+    @DeleteMapping
+    @Operation(
+        summary = "Delete recipes in bulk",
+        description = "Deletes all recipes of one user, or the recipes with the given ids, in batches. "
+            + "Give either createdBy or ids. Requires ADMIN role."
+    )
+    @PreAuthorize("hasRole('ADMIN')")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Recipes deleted, with their number"),
+        @ApiResponse(responseCode = "400", description = "Neither or both of createdBy and ids given",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Authentication required",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+        @ApiResponse(responseCode = "403", description = "Forbidden - ADMIN role required",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<RecipeBulkDeleteDto> deleteRecipes(
+            @Parameter(description = "Delete every recipe created by this user", example = "spammer")
+            @RequestParam(required = false) String createdBy,
+            @Parameter(description = "Delete the recipes with these ids", example = "1,2,3")
+            @RequestParam(required = false) List<Long> ids) {
+        boolean byUser = createdBy != null && !createdBy.isBlank();
+        boolean byIds = ids != null && !ids.isEmpty();
+        if (byUser == byIds) {
+            throw new InvalidBulkDeleteException("Give either createdBy or ids");
+        }
+        long deleted = byUser
+            ? recipeModerationService.deleteByCreatedBy(createdBy)
+            : recipeModerationService.deleteByIds(ids);
+        return ResponseEntity.ok(new RecipeBulkDeleteDto(deleted));
+    }
+
+    private String getUserId(Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof Jwt)) {
+            throw new SecurityException("Authentication required");
+        }
+        return ((Jwt) authentication.getPrincipal()).getSubject();
+    }
+}
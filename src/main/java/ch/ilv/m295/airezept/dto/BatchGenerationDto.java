@@ -0,0 +1,18 @@
+package ch.ilv.m295.airezept.dto;
+
+import ch.ilv.m295.airezept.entity.JobStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class BatchGenerationDto {
+    private String id; // Only present for offline batches
+    private JobStatus status;
+    private int succeeded;
+    private int failed;
+    private List<BatchItemDto> items; // Empty until the batch has completed
+    private String error; // Only present if an offline batch failed as a whole
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,15 @@
+package ch.ilv.m295.airezept.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchGenerationRequestDto {
+    @NotEmpty(message = "At least one idea is required")
+    @Size(max = 20, message = "At most 20 ideas can be generated at once")
+    private List<@NotBlank(message = "Ideas must not be blank") String> ideas;
+}
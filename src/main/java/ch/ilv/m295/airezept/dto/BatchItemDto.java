@@ -0,0 +1,11 @@
+package ch.ilv.m295.airezept.dto;
+
+import lombok.Data;
+
+@Data
+public class BatchItemDto {
+    private int index; // position of the idea in the request
+    private String idea;
+    private RecipeDto recipe; // Only present if the generation succeeded
+    private String error; // Only present if the generation failed
+}
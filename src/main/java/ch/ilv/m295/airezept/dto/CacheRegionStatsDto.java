@@ -0,0 +1,16 @@
+package ch.ilv.m295.airezept.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheRegionStatsDto {
+    private String region;
+    private long hits;
+    private long misses;
+    private long puts;
+    private long elementsInMemory; // -1 if the cache provider does not report it
+}
@@ -0,0 +1,16 @@
+package ch.ilv.m295.airezept.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDto {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int heapEntries;
+    private int diskEntries;
+}
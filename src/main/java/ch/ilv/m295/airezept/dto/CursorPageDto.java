@@ -0,0 +1,13 @@
+package ch.ilv.m295.airezept.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CursorPageDto<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor; // Pass as "after" to get the next page, null on the last page
+}
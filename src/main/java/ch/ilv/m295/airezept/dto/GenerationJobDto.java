@@ -0,0 +1,16 @@
+package ch.ilv.m295.airezept.dto;
+
+import ch.ilv.m295.airezept.entity.JobStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class GenerationJobDto {
+    private String id;
+    private JobStatus status;
+    private RecipeDto recipe; // Only present once the job has completed
+    private String error; // Only present if the job has failed
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,16 @@
+package ch.ilv.m295.airezept.dto;
+
+import ch.ilv.m295.airezept.entity.Recipe;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PantryMatchDto {
+    private Recipe recipe;
+    private int matchedIngredients; // Distinct ingredients of the recipe that are in the pantry
+    private int totalIngredients;
+    private double coverage; // matchedIngredients / totalIngredients
+}
@@ -0,0 +1,12 @@
+package ch.ilv.m295.airezept.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeBulkDeleteDto {
+    private long deleted;
+}
@@ -0,0 +1,15 @@
+package ch.ilv.m295.airezept.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class RecipeImportProgressDto {
+    private long lines; // Lines read so far, blank ones included
+    private long imported; // Recipes committed so far
+    private long failed; // Lines that could not be parsed, failed validation or were in a failed batch
+    private List<String> errors = new ArrayList<>(); // Errors since the previous progress line, "line N: reason"
+    private boolean done; // Set on the last line, once the whole body has been read
+}
@@ -0,0 +1,34 @@
+package ch.ilv.m295.airezept.dto;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Partial update of a recipe: fields that are left out keep their current value.
+ */
+@Data
+public class RecipePatchDto {
+    @Pattern(regexp = "(?s).*\\S.*", message = "Title must not be blank")
+    private String title;
+
+    private String description;
+
+    private List<String> ingredients;
+
+    @Pattern(regexp = "(?s).*\\S.*", message = "Instructions must not be blank")
+    private String instructions;
+
+    @Positive(message = "Preparation time must be positive")
+    private Integer preparationTime;
+
+    @Positive(message = "Cooking time must be positive")
+    private Integer cookingTime;
+
+    @Positive(message = "Servings must be positive")
+    private Integer servings;
+
+    private Long version; // The version last read by the client; the update is rejected if the recipe has changed since
+}
@@ -0,0 +1,18 @@
+package ch.ilv.m295.airezept.dto;
+
+import ch.ilv.m295.airezept.entity.Recipe;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestHistoryDto {
+    private Long id;
+    private String userInput; // What the user entered (ingredients or recipe idea)
+    private Recipe recipe; // The recipe that was generated from it
+    private LocalDateTime requestedAt;
+}
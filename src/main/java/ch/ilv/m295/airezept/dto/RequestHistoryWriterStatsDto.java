@@ -0,0 +1,20 @@
+package ch.ilv.m295.airezept.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestHistoryWriterStatsDto {
+    private int queueDepth;
+    private int queueCapacity;
+    private long written;
+    private long writtenByCaller; // inserted by the request itself because the queue was full
+    private long skipped; // histories of recipes deleted before they were written
+    private long dropped; // failed to insert for any other reason
+    private long flushes;
+    private long averageFlushMillis;
+    private long maxFlushMillis;
+}
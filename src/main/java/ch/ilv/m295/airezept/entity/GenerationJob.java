@@ -0,0 +1,61 @@
+package ch.ilv.m295.airezept.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "generation_job")
+public class GenerationJob implements Persistable<String> {
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String userId; // Keycloak user ID
+
+    @Column(columnDefinition = "TEXT")
+    private String userInput; // What the user entered (ingredients or recipe idea)
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status;
+
+    private Long recipeId; // Set once the job has completed
+
+    @Column(columnDefinition = "TEXT")
+    private String error; // Set if the job has failed
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    // The id is assigned, so Spring Data cannot tell a new job from its id; without this flag
+    // every save would merge, which selects the row first
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private boolean persisted;
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markPersisted() {
+        persisted = true;
+    }
+}
@@ -0,0 +1,8 @@
+package ch.ilv.m295.airezept.entity;
+
+public enum JobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
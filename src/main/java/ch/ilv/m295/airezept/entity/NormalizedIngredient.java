@@ -0,0 +1,41 @@
+package ch.ilv.m295.airezept.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
+
+/**
+ * One ingredient of a recipe split into quantity, unit and canonical name. Written from the
+ * free-text ingredients whenever a recipe is saved, so recipes can be looked up by what is in them.
+ */
+@Data
+@Entity
+@DynamicUpdate
+@Table(name = "normalized_ingredient")
+public class NormalizedIngredient {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "normalized_ingredient_seq")
+    @SequenceGenerator(name = "normalized_ingredient_seq", sequenceName = "normalized_ingredient_seq", allocationSize = 50)
+    private Long id;
+
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "recipe_id", nullable = false)
+    private Recipe recipe;
+
+    // Index of the free-text ingredient this was parsed from
+    @Column(nullable = false)
+    private int position;
+
+    private Double quantity;
+
+    private String unit;
+
+    @Column(nullable = false)
+    private String name;
+}
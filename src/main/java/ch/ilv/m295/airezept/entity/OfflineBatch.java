@@ -0,0 +1,65 @@
+package ch.ilv.m295.airezept.entity;
+
+import ch.ilv.m295.airezept.dto.BatchItemDto;
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Entity
+@Table(name = "offline_batch")
+public class OfflineBatch implements Persistable<String> {
+    @Id
+    private String id; // Message Batches API id
+
+    @Column(nullable = false)
+    private String userId; // Keycloak user ID
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false)
+    private List<String> ideas;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    private List<BatchItemDto> items; // Set once the batch has completed
+
+    @Column(columnDefinition = "TEXT")
+    private String error; // Set if the batch could not be collected
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime completedAt;
+
+    // Assigned id, see GenerationJob
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private boolean persisted;
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markPersisted() {
+        persisted = true;
+    }
+}
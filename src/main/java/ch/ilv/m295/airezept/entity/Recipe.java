@@ -1,9 +1,18 @@
 package ch.ilv.m295.airezept.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -11,10 +20,16 @@ import java.util.List;
 
 @Data
 @Entity
+@Cacheable
+// Updates only write the columns that changed
+@DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipe")
 @Table(name = "recipe")
 public class Recipe {
+    // Blocks of 50 ids per sequence call (pooled-lo), so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recipe_seq")
+    @SequenceGenerator(name = "recipe_seq", sequenceName = "recipe_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -23,11 +38,19 @@ public class Recipe {
     @Column(columnDefinition = "TEXT")
     private String description;
 
-    @ElementCollection
-    @CollectionTable(name = "recipe_ingredients", joinColumns = @JoinColumn(name = "recipe_id"))
-    @Column(name = "ingredient")
+    // A jsonb column on PostgreSQL (json on H2), so the ingredients are read and written with the recipe row
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "ingredients")
     private List<String> ingredients = new ArrayList<>();
 
+    // Parsed from the ingredients on every write by RecipeService
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("position")
+    private List<NormalizedIngredient> normalizedIngredients = new ArrayList<>();
+
     @Column(columnDefinition = "TEXT")
     private String instructions;
 
@@ -46,6 +69,12 @@ public class Recipe {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
+    // Checked and incremented by every update, so a stale write fails instead of overwriting a newer one
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -66,6 +95,8 @@ public class Recipe {
     public void setDescription(String description) { this.description = description; }
     public List<String> getIngredients() { return ingredients; }
     public void setIngredients(List<String> ingredients) { this.ingredients = ingredients; }
+    public List<NormalizedIngredient> getNormalizedIngredients() { return normalizedIngredients; }
+    public void setNormalizedIngredients(List<NormalizedIngredient> normalizedIngredients) { this.normalizedIngredients = normalizedIngredients; }
     public String getInstructions() { return instructions; }
     public void setInstructions(String instructions) { this.instructions = instructions; }
     public Integer getPreparationTime() { return preparationTime; }
@@ -80,4 +111,6 @@ public class Recipe {
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 } 
\ No newline at end of file
@@ -2,13 +2,17 @@ package ch.ilv.m295.airezept.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
 import java.time.LocalDateTime;
 
 @Data
 @Entity
 public class RequestHistory {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "request_history_seq")
+    @SequenceGenerator(name = "request_history_seq", sequenceName = "request_history_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -17,11 +21,12 @@ public class RequestHistory {
     @Column(columnDefinition = "TEXT")
     private String userInput; // What the user entered (ingredients or recipe idea)
 
-    @Column(columnDefinition = "TEXT")
-    private String aiResponse; // The full AI response
+    @Convert(converter = CompressedTextConverter.class)
+    private String aiResponse; // The full AI response, gzip-compressed in the database
 
     @OneToOne
     @JoinColumn(name = "recipe_id")
+    @OnDelete(action = OnDeleteAction.CASCADE) // deleted with the recipe by the database, see migration V13
     private Recipe generatedRecipe; // The recipe that was created from this request
 
     @Column(nullable = false)
@@ -29,6 +34,9 @@ public class RequestHistory {
 
     @PrePersist
     protected void onCreate() {
-        requestedAt = LocalDateTime.now();
+        // Set already when the history was written behind the request
+        if (requestedAt == null) {
+            requestedAt = LocalDateTime.now();
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,20 @@
+package ch.ilv.m295.airezept.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the bounded AI worker pool cannot accept another generation, or no connection
+ * to the AI service becomes free in time.
+ */
+public class GenerationQueueFullException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public GenerationQueueFullException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -4,8 +4,10 @@ import ch.ilv.m295.airezept.dto.ErrorResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -60,6 +62,32 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidPaginationException.class)
+    @ApiResponse(responseCode = "400", description = "Invalid pagination parameters")
+    public ResponseEntity<ErrorResponse> handleInvalidPaginationException(InvalidPaginationException ex, WebRequest request) {
+        ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.BAD_REQUEST.value(),
+            "Invalid pagination parameters",
+            LocalDateTime.now(),
+            request.getDescription(false),
+            ex.getMessage()
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidBulkDeleteException.class)
+    @ApiResponse(responseCode = "400", description = "Invalid bulk delete parameters")
+    public ResponseEntity<ErrorResponse> handleInvalidBulkDeleteException(InvalidBulkDeleteException ex, WebRequest request) {
+        ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.BAD_REQUEST.value(),
+            "Invalid bulk delete parameters",
+            LocalDateTime.now(),
+            request.getDescription(false),
+            ex.getMessage()
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     @ApiResponse(responseCode = "403", description = "Access denied")
     public ResponseEntity<ErrorResponse> handleAccessDeniedException(AccessDeniedException ex, WebRequest request) {
@@ -73,6 +101,34 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    @ApiResponse(responseCode = "409", description = "Changed concurrently")
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(ObjectOptimisticLockingFailureException ex, WebRequest request) {
+        ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.CONFLICT.value(),
+            "Conflict",
+            LocalDateTime.now(),
+            request.getDescription(false),
+            "The resource was changed by someone else, reload it and try again"
+        );
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(GenerationQueueFullException.class)
+    @ApiResponse(responseCode = "429", description = "Too many requests")
+    public ResponseEntity<ErrorResponse> handleGenerationQueueFullException(GenerationQueueFullException ex, WebRequest request) {
+        ErrorResponse errorResponse = new ErrorResponse(
+            HttpStatus.TOO_MANY_REQUESTS.value(),
+            "Too many requests",
+            LocalDateTime.now(),
+            request.getDescription(false),
+            ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+            .body(errorResponse);
+    }
+
     @ExceptionHandler(Exception.class)
     @ApiResponse(responseCode = "500", description = "Internal server error")
     public ResponseEntity<ErrorResponse> handleGlobalException(Exception ex, WebRequest request) {
@@ -0,0 +1,11 @@
+package ch.ilv.m295.airezept.exception;
+
+/**
+ * Thrown when a bulk delete names neither a user nor recipe ids, or both.
+ */
+public class InvalidBulkDeleteException extends RuntimeException {
+
+    public InvalidBulkDeleteException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package ch.ilv.m295.airezept.exception;
+
+/**
+ * Thrown when a listing is requested with an unknown sort field, a bad page size or a cursor
+ * that was not issued for this listing.
+ */
+public class InvalidPaginationException extends RuntimeException {
+
+    public InvalidPaginationException(String message) {
+        super(message);
+    }
+}
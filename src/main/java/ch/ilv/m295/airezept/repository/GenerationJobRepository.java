@@ -0,0 +1,30 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.entity.GenerationJob;
+import ch.ilv.m295.airezept.entity.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface GenerationJobRepository extends JpaRepository<GenerationJob, String> {
+    // Only the fields a running job changes, in one statement instead of a merge that selects first
+    @Modifying
+    @Transactional
+    @Query("update GenerationJob j set j.status = :status, j.recipeId = :recipeId, j.error = :error,"
+        + " j.updatedAt = :updatedAt where j.id = :id")
+    int updateProgress(@Param("id") String id, @Param("status") JobStatus status, @Param("recipeId") Long recipeId,
+                       @Param("error") String error, @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying
+    @Transactional
+    @Query("delete from GenerationJob j where j.status in :statuses and j.updatedAt < :cutoff")
+    int deleteByStatusInAndUpdatedAtBefore(@Param("statuses") Collection<JobStatus> statuses,
+                                           @Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,17 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.entity.GenerationJob;
+
+import java.util.Optional;
+
+/**
+ * Storage for background generation jobs. The in-memory store is used by default,
+ * set {@code anthropic.jobs.store=jpa} to keep jobs in the database instead.
+ */
+public interface GenerationJobStore {
+    GenerationJob save(GenerationJob job);
+
+    Optional<GenerationJob> findById(String id);
+
+    void deleteById(String id);
+}
@@ -0,0 +1,63 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.config.AnthropicProperties;
+import ch.ilv.m295.airezept.entity.GenerationJob;
+import ch.ilv.m295.airezept.entity.JobStatus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+@ConditionalOnProperty(name = "anthropic.jobs.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryGenerationJobStore implements GenerationJobStore {
+    private final Map<String, GenerationJob> jobs = new ConcurrentHashMap<>();
+    private final Duration retention;
+
+    public InMemoryGenerationJobStore(AnthropicProperties properties) {
+        this.retention = properties.getJobs().getRetention();
+    }
+
+    @Override
+    public GenerationJob save(GenerationJob job) {
+        evictExpired();
+        jobs.put(job.getId(), copy(job));
+        return job;
+    }
+
+    @Override
+    public Optional<GenerationJob> findById(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(InMemoryGenerationJobStore::copy);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        jobs.remove(id);
+    }
+
+    // Finished jobs are only kept for the retention period so the map cannot grow without bound
+    private void evictExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job ->
+            (job.getStatus() == JobStatus.COMPLETED || job.getStatus() == JobStatus.FAILED)
+                && job.getUpdatedAt().isBefore(cutoff));
+    }
+
+    // Jobs are copied in and out so callers never share a mutable instance across threads
+    private static GenerationJob copy(GenerationJob job) {
+        GenerationJob copy = new GenerationJob();
+        copy.setId(job.getId());
+        copy.setUserId(job.getUserId());
+        copy.setUserInput(job.getUserInput());
+        copy.setStatus(job.getStatus());
+        copy.setRecipeId(job.getRecipeId());
+        copy.setError(job.getError());
+        copy.setCreatedAt(job.getCreatedAt());
+        copy.setUpdatedAt(job.getUpdatedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,332 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.entity.Recipe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index. Every term has a posting list of recipe ids, sorted ascending
+ * and stored in primitive arrays next to the weight of the term in that recipe. A query merges
+ * the posting lists of its terms and keeps the best hits in a bounded heap, so it allocates
+ * almost nothing regardless of how many recipes match.
+ * <p>
+ * Scores are BM25-like: the field-weighted term frequency is saturated, multiplied by the
+ * inverse document frequency and scaled by the share of query terms a recipe matches.
+ * Changes are applied after their transaction commits.
+ */
+@Component
+@ConditionalOnProperty(name = "recipes.search.backend", havingValue = "memory")
+public class InMemoryRecipeSearchIndex implements RecipeSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryRecipeSearchIndex.class);
+
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float INGREDIENT_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float INSTRUCTIONS_WEIGHT = 0.5f;
+    private static final float SATURATION = 1.2f;
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final RecipeRepository recipeRepository;
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<Postings> postings = new ArrayList<>();
+    // The terms of each recipe, needed to take it out of the posting lists again
+    private final Map<Long, int[]> termIdsByRecipe = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public InMemoryRecipeSearchIndex(RecipeRepository recipeRepository) {
+        this.recipeRepository = recipeRepository;
+    }
+
+    /**
+     * Indexes all stored recipes, in batches of ids.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long afterId = 0;
+        int indexed = 0;
+        List<Long> ids;
+        while (!(ids = recipeRepository.findIdsGreaterThan(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE))).isEmpty()) {
+            recipeRepository.findAllByIdIn(ids).forEach(this::apply);
+            indexed += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+        logger.info("Indexed {} recipes for full-text search", indexed);
+    }
+
+    @Override
+    public List<Long> search(String query, int limit) {
+        List<String> terms = tokenize(query).stream().distinct().toList();
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Integer termId = termIds.get(term);
+                if (termId != null && postings.get(termId).size > 0) {
+                    lists.add(postings.get(termId));
+                }
+            }
+            if (lists.isEmpty()) {
+                return List.of();
+            }
+            return merge(lists, terms.size(), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(Recipe recipe) {
+        AfterCommit.run(() -> apply(recipe));
+    }
+
+    @Override
+    public void remove(Long recipeId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                removeTerms(recipeId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return termIdsByRecipe.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower-cased words and numbers of at least two characters, with accents removed, so
+     * "Crème brûlée" matches "creme brulee".
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+            .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(folded))
+            .filter(token -> token.length() > 1)
+            .toList();
+    }
+
+    private void apply(Recipe recipe) {
+        Map<String, Float> weights = new LinkedHashMap<>();
+        addTerms(weights, recipe.getTitle(), TITLE_WEIGHT);
+        addTerms(weights, recipe.getDescription(), DESCRIPTION_WEIGHT);
+        addTerms(weights, recipe.getInstructions(), INSTRUCTIONS_WEIGHT);
+        if (recipe.getIngredients() != null) {
+            recipe.getIngredients().forEach(ingredient -> addTerms(weights, ingredient, INGREDIENT_WEIGHT));
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeTerms(recipe.getId());
+            int[] recipeTermIds = new int[weights.size()];
+            int i = 0;
+            for (Map.Entry<String, Float> entry : weights.entrySet()) {
+                int termId = termIds.computeIfAbsent(entry.getKey(), term -> {
+                    postings.add(new Postings());
+                    return postings.size() - 1;
+                });
+                float frequency = entry.getValue();
+                postings.get(termId).put(recipe.getId(), frequency * (SATURATION + 1) / (frequency + SATURATION));
+                recipeTermIds[i++] = termId;
+            }
+            termIdsByRecipe.put(recipe.getId(), recipeTermIds);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeTerms(Long recipeId) {
+        int[] previous = termIdsByRecipe.remove(recipeId);
+        if (previous != null) {
+            for (int termId : previous) {
+                postings.get(termId).remove(recipeId);
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Float> weights, String text, float weight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Float::sum);
+        }
+    }
+
+    // Walks all posting lists in id order at once, scoring each matching recipe exactly once
+    private List<Long> merge(List<Postings> lists, int queryTerms, int limit) {
+        int count = lists.size();
+        int[] cursors = new int[count];
+        float[] idf = new float[count];
+        for (int i = 0; i < count; i++) {
+            idf[i] = (float) Math.log(1 + (double) termIdsByRecipe.size() / lists.get(i).size);
+        }
+
+        TopHits top = new TopHits(limit);
+        while (true) {
+            long id = Long.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                Postings list = lists.get(i);
+                if (cursors[i] < list.size && list.ids[cursors[i]] < id) {
+                    id = list.ids[cursors[i]];
+                }
+            }
+            if (id == Long.MAX_VALUE) {
+                return top.idsBestFirst();
+            }
+
+            float score = 0;
+            int matched = 0;
+            for (int i = 0; i < count; i++) {
+                Postings list = lists.get(i);
+                if (cursors[i] < list.size && list.ids[cursors[i]] == id) {
+                    score += idf[i] * list.weights[cursors[i]++];
+                    matched++;
+                }
+            }
+            top.offer(id, score * matched / queryTerms);
+        }
+    }
+
+    /**
+     * Recipe ids containing one term, sorted ascending, with the term's weight in each recipe.
+     */
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        void put(long id, float weight) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                weights[index] = weight;
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            // New recipes have the highest ids, so this is almost always an append
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(weights, insertAt, weights, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            weights[insertAt] = weight;
+            size++;
+        }
+
+        void remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Min-heap of the best {@code limit} hits; ties go to the newer recipe.
+     */
+    private static final class TopHits {
+        private final long[] ids;
+        private final float[] scores;
+        private int size;
+
+        TopHits(int limit) {
+            ids = new long[limit];
+            scores = new float[limit];
+        }
+
+        void offer(long id, float score) {
+            if (size < ids.length) {
+                ids[size] = id;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (ids.length > 0 && worse(0, score, id)) {
+                ids[0] = id;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        List<Long> idsBestFirst() {
+            Long[] best = new Long[size];
+            while (size > 0) {
+                best[size - 1] = ids[0];
+                size--;
+                ids[0] = ids[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return Arrays.asList(best);
+        }
+
+        // Whether the hit at index ranks below the given one
+        private boolean worse(int index, float score, long id) {
+            return scores[index] < score || (scores[index] == score && ids[index] < id);
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!worse(index, scores[parent], ids[parent])) {
+                    return;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int smallest = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (worse(child, scores[smallest], ids[smallest])) {
+                        smallest = child;
+                    }
+                }
+                if (smallest == index) {
+                    return;
+                }
+                swap(index, smallest);
+                index = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package ch.ilv.m295.airezept.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index from canonical ingredient name to the recipes using it, for "cook with what I
+ * have". Each posting list is a sorted {@code long[]} of recipe ids with the number of distinct
+ * ingredients of each recipe alongside, so ranking by pantry coverage needs no lookups and no
+ * boxing: the posting lists of the pantry are merged and every recipe is scored once.
+ * <p>
+ * Built from the normalized ingredient table at startup and kept up to date after commit.
+ */
+@Component
+public class IngredientIndex {
+    private static final Logger logger = LoggerFactory.getLogger(IngredientIndex.class);
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final RecipeRepository recipeRepository;
+    private final NormalizedIngredientRepository normalizedIngredientRepository;
+
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<Postings> postings = new ArrayList<>();
+    // The ingredients of each recipe, needed to take it out of the posting lists again
+    private final Map<Long, int[]> nameIdsByRecipe = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public IngredientIndex(RecipeRepository recipeRepository,
+                           NormalizedIngredientRepository normalizedIngredientRepository) {
+        this.recipeRepository = recipeRepository;
+        this.normalizedIngredientRepository = normalizedIngredientRepository;
+    }
+
+    /**
+     * A recipe using {@code matched} of its {@code total} distinct ingredients from the pantry.
+     */
+    public record Match(long recipeId, int matched, int total) {
+    }
+
+    /**
+     * Indexes all recipes, in batches of ids. Runs after recipes from before the normalized
+     * ingredient table have been backfilled.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order
+    public void rebuild() {
+        long afterId = 0;
+        int indexed = 0;
+        List<Long> ids;
+        while (!(ids = recipeRepository.findIdsGreaterThan(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE))).isEmpty()) {
+            Map<Long, List<String>> namesByRecipe = new HashMap<>();
+            for (RecipeIngredientName ingredient : normalizedIngredientRepository.findNamesByRecipeIdIn(ids)) {
+                namesByRecipe.computeIfAbsent(ingredient.recipeId(), id -> new ArrayList<>()).add(ingredient.name());
+            }
+            namesByRecipe.forEach(this::apply);
+            indexed += namesByRecipe.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+        logger.info("Indexed the ingredients of {} recipes", indexed);
+    }
+
+    /**
+     * Recipes sharing at least one ingredient with the pantry, the ones the pantry covers best
+     * first. Ties go to the recipe using more pantry ingredients, then to the newer recipe.
+     *
+     * @param pantry canonical ingredient names
+     */
+    public List<Match> findByCoverage(Collection<String> pantry, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>(pantry.size());
+            for (String name : new LinkedHashSet<>(pantry)) {
+                Integer nameId = nameIds.get(name);
+                if (nameId != null && postings.get(nameId).size > 0) {
+                    lists.add(postings.get(nameId));
+                }
+            }
+            return lists.isEmpty() ? List.of() : merge(lists, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the ingredients of a recipe once the current transaction commits.
+     */
+    public void index(Long recipeId, Collection<String> names) {
+        AfterCommit.run(() -> apply(recipeId, names));
+    }
+
+    /**
+     * Removes a recipe once the current transaction commits.
+     */
+    public void remove(Long recipeId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                removeNames(recipeId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void apply(Long recipeId, Collection<String> names) {
+        Set<String> distinct = new LinkedHashSet<>(names);
+        lock.writeLock().lock();
+        try {
+            removeNames(recipeId);
+            if (distinct.isEmpty()) {
+                return;
+            }
+            int[] recipeNameIds = new int[distinct.size()];
+            int i = 0;
+            for (String name : distinct) {
+                int nameId = nameIds.computeIfAbsent(name, key -> {
+                    postings.add(new Postings());
+                    return postings.size() - 1;
+                });
+                postings.get(nameId).put(recipeId, distinct.size());
+                recipeNameIds[i++] = nameId;
+            }
+            nameIdsByRecipe.put(recipeId, recipeNameIds);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeNames(Long recipeId) {
+        int[] previous = nameIdsByRecipe.remove(recipeId);
+        if (previous != null) {
+            for (int nameId : previous) {
+                postings.get(nameId).remove(recipeId);
+            }
+        }
+    }
+
+    // Walks the posting lists of the pantry in id order at once and counts, per recipe, how many lists contain it
+    private static List<Match> merge(List<Postings> lists, int limit) {
+        int count = lists.size();
+        int[] cursors = new int[count];
+        TopMatches top = new TopMatches(limit);
+        while (true) {
+            long id = Long.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                Postings list = lists.get(i);
+                if (cursors[i] < list.size && list.ids[cursors[i]] < id) {
+                    id = list.ids[cursors[i]];
+                }
+            }
+            if (id == Long.MAX_VALUE) {
+                return top.bestFirst();
+            }
+
+            int matched = 0;
+            int total = 0;
+            for (int i = 0; i < count; i++) {
+                Postings list = lists.get(i);
+                if (cursors[i] < list.size && list.ids[cursors[i]] == id) {
+                    total = list.totals[cursors[i]++];
+                    matched++;
+                }
+            }
+            top.offer(id, matched, total);
+        }
+    }
+
+    /**
+     * Recipe ids using one ingredient, sorted ascending, with the ingredient count of each recipe.
+     */
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int[] totals = new int[4];
+        private int size;
+
+        void put(long id, int total) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                totals[index] = total;
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                totals = Arrays.copyOf(totals, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            System.arraycopy(totals, insertAt, totals, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            totals[insertAt] = total;
+            size++;
+        }
+
+        void remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                System.arraycopy(totals, index + 1, totals, index, size - index - 1);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Min-heap of the best {@code limit} matches. Coverages are compared as fractions by
+     * cross-multiplying, so no floating point rounding decides the order.
+     */
+    private static final class TopMatches {
+        private final long[] ids;
+        private final int[] matched;
+        private final int[] totals;
+        private int size;
+
+        TopMatches(int limit) {
+            ids = new long[limit];
+            matched = new int[limit];
+            totals = new int[limit];
+        }
+
+        void offer(long id, int matchedCount, int total) {
+            if (size < ids.length) {
+                set(size, id, matchedCount, total);
+                siftUp(size++);
+            } else if (ids.length > 0 && compare(id, matchedCount, total, 0) > 0) {
+                set(0, id, matchedCount, total);
+                siftDown(0);
+            }
+        }
+
+        List<Match> bestFirst() {
+            Match[] best = new Match[size];
+            while (size > 0) {
+                best[size - 1] = new Match(ids[0], matched[0], totals[0]);
+                size--;
+                set(0, ids[size], matched[size], totals[size]);
+                siftDown(0);
+            }
+            return Arrays.asList(best);
+        }
+
+        // Positive when the given match ranks above the one at index
+        private int compare(long id, int matchedCount, int total, int index) {
+            int byCoverage = Long.compare((long) matchedCount * totals[index], (long) matched[index] * total);
+            if (byCoverage != 0) {
+                return byCoverage;
+            }
+            int byMatched = Integer.compare(matchedCount, matched[index]);
+            return byMatched != 0 ? byMatched : Long.compare(id, ids[index]);
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (compare(ids[parent], matched[parent], totals[parent], index) <= 0) {
+                    return;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int smallest = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (compare(ids[smallest], matched[smallest], totals[smallest], child) > 0) {
+                        smallest = child;
+                    }
+                }
+                if (smallest == index) {
+                    return;
+                }
+                swap(index, smallest);
+                index = smallest;
+            }
+        }
+
+        private void set(int index, long id, int matchedCount, int total) {
+            ids[index] = id;
+            matched[index] = matchedCount;
+            totals[index] = total;
+        }
+
+        private void swap(int a, int b) {
+            long id = ids[a];
+            int matchedCount = matched[a];
+            int total = totals[a];
+            set(a, ids[b], matched[b], totals[b]);
+            set(b, id, matchedCount, total);
+        }
+    }
+}
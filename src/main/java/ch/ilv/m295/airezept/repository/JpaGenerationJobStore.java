@@ -0,0 +1,72 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.config.AnthropicProperties;
+import ch.ilv.m295.airezept.entity.GenerationJob;
+import ch.ilv.m295.airezept.entity.JobStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Optional;
+
+/**
+ * Keeps jobs in the generation_job table. A new job is inserted, later saves only update its
+ * progress, and finished jobs are deleted every {@code anthropic.jobs.cleanup-interval} once
+ * they are older than {@code anthropic.jobs.retention}.
+ */
+@Component
+@ConditionalOnProperty(name = "anthropic.jobs.store", havingValue = "jpa")
+public class JpaGenerationJobStore implements GenerationJobStore {
+    private static final Logger logger = LoggerFactory.getLogger(JpaGenerationJobStore.class);
+    private final GenerationJobRepository generationJobRepository;
+    private final Duration retention;
+
+    public JpaGenerationJobStore(GenerationJobRepository generationJobRepository, AnthropicProperties properties) {
+        this.generationJobRepository = generationJobRepository;
+        this.retention = properties.getJobs().getRetention();
+    }
+
+    @Override
+    public GenerationJob save(GenerationJob job) {
+        if (job.isNew()) {
+            return generationJobRepository.save(job);
+        }
+        generationJobRepository.updateProgress(job.getId(), job.getStatus(), job.getRecipeId(), job.getError(),
+            job.getUpdatedAt());
+        return job;
+    }
+
+    @Override
+    public Optional<GenerationJob> findById(String id) {
+        return generationJobRepository.findById(id);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        generationJobRepository.deleteById(id);
+    }
+
+    @Scheduled(initialDelayString = "${anthropic.jobs.cleanup-interval:PT10M}",
+        fixedDelayString = "${anthropic.jobs.cleanup-interval:PT10M}")
+    public void deleteExpired() {
+        int deleted = deleteFinishedBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            logger.info("Deleted {} finished generation jobs", deleted);
+        }
+    }
+
+    /**
+     * Deletes the completed and failed jobs last updated before the cutoff.
+     *
+     * @return the number of jobs deleted
+     */
+    public int deleteFinishedBefore(LocalDateTime cutoff) {
+        return generationJobRepository.deleteByStatusInAndUpdatedAtBefore(
+            EnumSet.of(JobStatus.COMPLETED, JobStatus.FAILED), cutoff);
+    }
+}
@@ -0,0 +1,24 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.entity.NormalizedIngredient;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NormalizedIngredientRepository extends JpaRepository<NormalizedIngredient, Long> {
+    // Only the names, without loading the entities, to build the pantry index
+    @Query("select new ch.ilv.m295.airezept.repository.RecipeIngredientName(n.recipe.id, n.name)"
+        + " from NormalizedIngredient n where n.recipe.id in :recipeIds")
+    List<RecipeIngredientName> findNamesByRecipeIdIn(@Param("recipeIds") Collection<Long> recipeIds);
+
+    // Set-based, without loading the ingredients; needed before their recipes can be deleted
+    @Modifying
+    @Query("delete from NormalizedIngredient n where n.recipe.id in :recipeIds")
+    int deleteByRecipeIdIn(@Param("recipeIds") Collection<Long> recipeIds);
+}
@@ -0,0 +1,41 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.entity.JobStatus;
+import ch.ilv.m295.airezept.entity.OfflineBatch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OfflineBatchRepository extends JpaRepository<OfflineBatch, String> {
+    List<OfflineBatch> findByStatusOrderByCreatedAt(JobStatus status);
+
+    // Held while the results are saved, so a batch is saved once even if several instances collect it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from OfflineBatch b where b.id = :id")
+    Optional<OfflineBatch> findForUpdateById(@Param("id") String id);
+
+    // Gives up on a batch that is still pending, unless it was collected in the meantime
+    @Modifying
+    @Transactional
+    @Query("update OfflineBatch b set b.status = ch.ilv.m295.airezept.entity.JobStatus.FAILED, b.error = :error,"
+        + " b.completedAt = :completedAt where b.id = :id and b.status = ch.ilv.m295.airezept.entity.JobStatus.RUNNING")
+    int failIfRunning(@Param("id") String id, @Param("error") String error,
+                      @Param("completedAt") LocalDateTime completedAt);
+
+    @Modifying
+    @Transactional
+    @Query("delete from OfflineBatch b where b.status in :statuses and b.completedAt < :cutoff")
+    int deleteByStatusInAndCompletedAtBefore(@Param("statuses") Collection<JobStatus> statuses,
+                                             @Param("cutoff") LocalDateTime cutoff);
+}
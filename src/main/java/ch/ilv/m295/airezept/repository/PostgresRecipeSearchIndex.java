@@ -0,0 +1,45 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.entity.Recipe;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Searches a weighted {@code tsvector} column of the recipe table through a GIN index. The
+ * column and index are created by migration V9; the column is generated by PostgreSQL from the
+ * other columns of the row and not mapped in {@link Recipe}, so saving a recipe needs nothing
+ * from here and inserts stay in their JDBC batches.
+ */
+@Component
+@ConditionalOnProperty(name = "recipes.search.backend", havingValue = "postgres", matchIfMissing = true)
+public class PostgresRecipeSearchIndex implements RecipeSearchIndex {
+    private static final String SEARCH =
+        "select r.id from recipe r, websearch_to_tsquery('simple', ?) query"
+            + " where r.search_vector @@ query"
+            + " order by ts_rank_cd(r.search_vector, query) desc, r.id desc"
+            + " limit ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostgresRecipeSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> search(String query, int limit) {
+        return jdbcTemplate.queryForList(SEARCH, Long.class, query, limit);
+    }
+
+    @Override
+    public void index(Recipe recipe) {
+        // The search vector is computed by PostgreSQL when the row is written
+    }
+
+    @Override
+    public void remove(Long recipeId) {
+        // The search vector is deleted together with the row
+    }
+}
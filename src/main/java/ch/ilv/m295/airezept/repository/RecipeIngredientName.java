@@ -0,0 +1,7 @@
+package ch.ilv.m295.airezept.repository;
+
+/**
+ * The canonical name of one ingredient of a recipe.
+ */
+public record RecipeIngredientName(Long recipeId, String name) {
+}
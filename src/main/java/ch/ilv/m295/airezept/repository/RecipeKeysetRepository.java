@@ -0,0 +1,17 @@
+package ch.ilv.m295.airezept.repository;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+/**
+ * Keyset pagination over recipes, added to {@link RecipeRepository} as a fragment.
+ */
+public interface RecipeKeysetRepository {
+
+    /**
+     * Returns up to {@code limit} recipe ids in (field, id) order that come after the given
+     * position, or from the start if {@code afterValue} is null. No count query is run.
+     */
+    List<Long> findIdsAfter(RecipeSortField field, Sort.Direction direction, Object afterValue, Long afterId, int limit);
+}
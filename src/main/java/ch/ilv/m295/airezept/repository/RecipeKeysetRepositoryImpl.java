@@ -0,0 +1,36 @@
+package ch.ilv.m295.airezept.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+class RecipeKeysetRepositoryImpl implements RecipeKeysetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> findIdsAfter(RecipeSortField field, Sort.Direction direction, Object afterValue, Long afterId, int limit) {
+        // The property comes from the enum, never from the request, so it is safe to inline
+        String property = "r." + field.getProperty();
+        String order = direction.isAscending() ? "asc" : "desc";
+        String comparison = direction.isAscending() ? ">" : "<";
+
+        StringBuilder jpql = new StringBuilder("select r.id from Recipe r where ").append(property).append(" is not null");
+        if (afterValue != null) {
+            // Row value comparison, so the database can seek straight into the (field, id) index
+            jpql.append(" and (").append(property).append(", r.id) ").append(comparison).append(" (:afterValue, :afterId)");
+        }
+        jpql.append(" order by ").append(property).append(' ').append(order).append(", r.id ").append(order);
+
+        TypedQuery<Long> query = entityManager.createQuery(jpql.toString(), Long.class);
+        if (afterValue != null) {
+            query.setParameter("afterValue", afterValue);
+            query.setParameter("afterId", afterId);
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+}
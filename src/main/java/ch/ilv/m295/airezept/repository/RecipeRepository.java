@@ -1,12 +1,78 @@
 package ch.ilv.m295.airezept.repository;
 
 import ch.ilv.m295.airezept.entity.Recipe;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface RecipeRepository extends JpaRepository<Recipe, Long> {
-    List<Recipe> findByCreatedBy(String userId);
-} 
\ No newline at end of file
+public interface RecipeRepository extends JpaRepository<Recipe, Long>, RecipeKeysetRepository {
+    // The ids of one user's recipes, newest first. A Slice reads one extra row instead of counting.
+    @Query("select r.id from Recipe r where r.createdBy = :userId order by r.createdAt desc, r.id desc")
+    Slice<Long> findSliceOfIdsByCreatedBy(@Param("userId") String userId, Pageable pageable);
+
+    // Up to one batch of a user's recipe ids, for deleting them batch by batch
+    @Query("select r.id from Recipe r where r.createdBy = :createdBy")
+    List<Long> findIdsByCreatedBy(@Param("createdBy") String createdBy, Pageable pageable);
+
+    // The ids that still have a recipe, for writing histories of recipes deleted in the meantime.
+    // Their rows stay locked until the histories are inserted, so a concurrent delete either
+    // waits and then cascades to those histories, or has already removed the recipe.
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select r.id from Recipe r where r.id in :ids")
+    List<Long> findIdsForShareByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Set-based, without loading the recipes. Their normalized ingredients and request histories
+    // have to be deleted first; the second-level cache region of recipes is cleared by Hibernate.
+    @Modifying
+    @Query("delete from Recipe r where r.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Enough to build the ETag of a recipe without loading it
+    @Query("select r.updatedAt from Recipe r where r.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("id") Long id);
+
+    // First step of a page load: only the ids, so limit and offset apply to recipe rows
+    // Both queries go through the query cache, which is invalidated by any change to recipes
+    @Query(value = "select r.id from Recipe r", countQuery = "select count(r) from Recipe r")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    Page<Long> findPageOfIds(Pageable pageable);
+
+    // Walks all recipe ids in ascending batches, e.g. to rebuild a search index
+    @Query("select r.id from Recipe r where r.id > :afterId order by r.id")
+    List<Long> findIdsGreaterThan(@Param("afterId") long afterId, Pageable pageable);
+
+    // Recipes saved before ingredients were normalized, in ascending batches
+    @Query("select r.id from Recipe r where r.id > :afterId and r.ingredients is not null"
+        + " and r.normalizedIngredients is empty order by r.id")
+    List<Long> findIdsWithoutNormalizedIngredients(@Param("afterId") long afterId, Pageable pageable);
+
+    // Every recipe in id order, read from a cursor in chunks instead of all at once. Must be consumed
+    // in a transaction; read-only, so no snapshots are kept for dirty checking.
+    @Query("select r from Recipe r order by r.id")
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Recipe> streamAllOrderById();
+
+    // Second step: the recipes of one page in a single query, ingredients are a column of the recipe row
+    @Query("select r from Recipe r where r.id in :ids")
+    List<Recipe> findAllByIdIn(@Param("ids") Collection<Long> ids);
+}
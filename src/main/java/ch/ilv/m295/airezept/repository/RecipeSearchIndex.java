@@ -0,0 +1,25 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.entity.Recipe;
+
+import java.util.List;
+
+/**
+ * Full-text index over the title, description, ingredients and instructions of recipes.
+ * PostgreSQL's tsvector index is used by default, set {@code recipes.search.backend=memory}
+ * for the in-process inverted index (for example on H2).
+ * <p>
+ * Callers report every saved and deleted recipe from within their transaction; an
+ * implementation applies the change after it commits, or leaves it to the database.
+ */
+public interface RecipeSearchIndex {
+
+    /**
+     * Ids of the best matching recipes, best first.
+     */
+    List<Long> search(String query, int limit);
+
+    void index(Recipe recipe);
+
+    void remove(Long recipeId);
+}
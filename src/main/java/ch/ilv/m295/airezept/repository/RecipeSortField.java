@@ -0,0 +1,48 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.exception.InvalidPaginationException;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * The fields a cursor listing can be sorted by. Each one is backed by a composite index on
+ * (field, id) in {@link Recipe}, so every page is a single index range scan.
+ */
+public enum RecipeSortField {
+    CREATED_AT("createdAt", Recipe::getCreatedAt, LocalDateTime::parse),
+    TITLE("title", Recipe::getTitle, Function.identity()),
+    COOKING_TIME("cookingTime", Recipe::getCookingTime, Integer::valueOf);
+
+    private final String property;
+    private final Function<Recipe, Object> getter;
+    private final Function<String, Object> parser;
+
+    <T> RecipeSortField(String property, Function<Recipe, T> getter, Function<String, T> parser) {
+        this.property = property;
+        this.getter = getter::apply;
+        this.parser = parser::apply;
+    }
+
+    public static RecipeSortField fromProperty(String property) {
+        return Arrays.stream(values())
+            .filter(field -> field.property.equals(property))
+            .findFirst()
+            .orElseThrow(() -> new InvalidPaginationException(
+                "Cursor listings can only be sorted by createdAt, title or cookingTime"));
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Object valueOf(Recipe recipe) {
+        return getter.apply(recipe);
+    }
+
+    public Object parse(String value) {
+        return parser.apply(value);
+    }
+}
@@ -1,13 +1,15 @@
 package ch.ilv.m295.airezept.repository;
 
 import ch.ilv.m295.airezept.entity.RequestHistory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
-
 @Repository
 public interface RequestHistoryRepository extends JpaRepository<RequestHistory, Long> {
-    List<RequestHistory> findByUserId(String userId);
-    List<RequestHistory> findByGeneratedRecipe_Id(Long recipeId);
+    // One user's history, newest first, with the generated recipe joined instead of loaded per row
+    @EntityGraph(attributePaths = "generatedRecipe")
+    Slice<RequestHistory> findByUserIdOrderByRequestedAtDescIdDesc(String userId, Pageable pageable);
 } 
\ No newline at end of file
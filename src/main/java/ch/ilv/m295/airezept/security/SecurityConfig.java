@@ -2,6 +2,7 @@ package ch.ilv.m295.airezept.security;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -30,6 +31,13 @@ public class SecurityConfig {
             .csrf(AbstractHttpConfigurer::disable)
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .authorizeHttpRequests(auth -> auth
+                // Bulk transfer, matched before "/api/recipes/{id}" below would let the export through
+                .requestMatchers("/api/recipes/import", "/api/recipes/export").hasRole("ADMIN")
+                // Bulk delete, "/api/recipes" below is public for every method
+                .requestMatchers(HttpMethod.DELETE, "/api/recipes").hasRole("ADMIN")
+                // Operational counters; method security is not enabled, so @PreAuthorize alone does not guard them
+                .requestMatchers("/api/ai/recipes/cache/stats", "/api/recipes/cache/stats", "/api/recipes/history/stats")
+                    .hasRole("ADMIN")
                 .requestMatchers(
                     "/",
                     "/swagger-ui/**",
@@ -37,6 +45,9 @@ public class SecurityConfig {
                     "/v3/api-docs",
                     "/hello",
                     "/api/recipes",  // GET all recipes endpoint
+                    "/api/recipes/cursor",  // GET recipes with cursor pagination
+                    "/api/recipes/search",  // GET full-text recipe search
+                    "/api/recipes/by-ingredients",  // GET recipes ranked by pantry coverage
                     "/api/recipes/{id}"  // GET recipe by ID endpoint
                 ).permitAll()
                 .anyRequest().authenticated()
@@ -53,9 +64,9 @@ public class SecurityConfig {
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:4200"));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "Accept", "Origin", "Access-Control-Request-Method", "Access-Control-Request-Headers"));
-        configuration.setExposedHeaders(Arrays.asList("Access-Control-Allow-Origin", "Access-Control-Allow-Credentials"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "Accept", "Origin", "Access-Control-Request-Method", "Access-Control-Request-Headers", "If-None-Match"));
+        configuration.setExposedHeaders(Arrays.asList("Access-Control-Allow-Origin", "Access-Control-Allow-Credentials", "ETag"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         
@@ -1,48 +1,219 @@
 package ch.ilv.m295.airezept.service;
 
+import ch.ilv.m295.airezept.dto.CacheStatsDto;
 import ch.ilv.m295.airezept.dto.RecipeDto;
 import com.anthropic.client.AnthropicClient;
-import com.anthropic.client.okhttp.AnthropicOkHttpClient;
 import com.anthropic.models.messages.Message;
 import com.anthropic.models.messages.MessageCreateParams;
 import com.anthropic.models.messages.Model;
 import com.anthropic.models.messages.ContentBlock;
+import com.anthropic.models.messages.RawMessageStreamEvent;
+import com.anthropic.models.messages.batches.BatchCreateParams;
+import com.anthropic.models.messages.batches.BatchResultsParams;
+import com.anthropic.models.messages.batches.BatchRetrieveParams;
+import com.anthropic.models.messages.batches.MessageBatch;
+import com.anthropic.models.messages.batches.MessageBatchIndividualResponse;
+import com.anthropic.models.messages.batches.MessageBatchResult;
+import com.anthropic.core.http.StreamResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.context.annotation.Bean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.function.Predicate;
-import org.springframework.transaction.annotation.Transactional;
+import java.util.Optional;
+import java.util.function.BiConsumer;
 import ch.ilv.m295.airezept.entity.Recipe;
-import ch.ilv.m295.airezept.entity.RequestHistory;
-import ch.ilv.m295.airezept.repository.RequestHistoryRepository;
 
 @Service
 @RequiredArgsConstructor
 public class AIRecipeService {
     private static final Logger logger = LoggerFactory.getLogger(AIRecipeService.class);
+    private static final Model MODEL = Model.CLAUDE_3_7_SONNET_LATEST;
+    private static final long MAX_TOKENS = 2048L;
+    private static final String BATCH_ITEM_PREFIX = "item-";
     private final RecipeService recipeService;
-    private final RequestHistoryRepository requestHistoryRepository;
+    private final AnthropicClient anthropicClient;
+    private final RecipeResponseCache recipeResponseCache;
+    private final SingleFlight<GeneratedRecipe> inFlightGenerations = new SingleFlight<>();
 
-    @Value("${anthropic.api.key}")
-    private String apiKey;
+    /**
+     * Generates a recipe in two phases: the model call and parsing run without a transaction
+     * or database connection, then the result is persisted in one short transaction.
+     */
+    public RecipeDto generateRecipe(String ingredientsOrIdea, String userId) {
+        return generateRecipe(ingredientsOrIdea, userId, true);
+    }
+
+    /**
+     * Like {@link #generateRecipe(String, String)}, but {@code useCache = false} skips the cache
+     * lookup and always asks the model. The fresh answer still replaces the cached one.
+     */
+    public RecipeDto generateRecipe(String ingredientsOrIdea, String userId, boolean useCache) {
+        GeneratedRecipe generated = prepareRecipe(ingredientsOrIdea, useCache);
+        return save(generated.recipe(), generated.aiResponse(), ingredientsOrIdea, userId);
+    }
+
+    /**
+     * The first phase of {@link #generateRecipe(String, String, boolean)}: returns the cached or
+     * freshly generated recipe without saving it. Runs without a transaction.
+     */
+    public GeneratedRecipe prepareRecipe(String ingredientsOrIdea, boolean useCache) {
+        String cacheKey = RecipeResponseCache.normalize(ingredientsOrIdea);
+        if (useCache) {
+            Optional<String> cached = recipeResponseCache.get(cacheKey);
+            if (cached.isPresent()) {
+                logger.info("Using cached AI response for input: {}", cacheKey);
+                return new GeneratedRecipe(ingredientsOrIdea, cached.get(), parseResponse(cached.get()));
+            }
+        }
+
+        // Identical inputs that arrive while a model call is running share its result
+        GeneratedRecipe generated = inFlightGenerations.execute(cacheKey, () -> callModel(ingredientsOrIdea, cacheKey));
+        return new GeneratedRecipe(ingredientsOrIdea, generated.aiResponse(), copyOf(generated.recipe()));
+    }
+
+    private GeneratedRecipe callModel(String ingredientsOrIdea, String cacheKey) {
+        MessageCreateParams params = buildParams(ingredientsOrIdea);
+
+        Message message = anthropicClient.messages().create(params);
+        ContentBlock contentBlock = message.content().get(0);
+        String recipeJson = contentBlock.text()
+            .orElseThrow(() -> new RuntimeException("No text content in AI response"))
+            .text();
+        
+        logger.info("Received response from AI: {}", recipeJson);
+
+        // Drop any markdown code block markers around the JSON object
+        recipeJson = RecipeJsonParser.extractJson(recipeJson);
+
+        RecipeDto recipeDto = parseResponse(recipeJson);
+        recipeResponseCache.put(cacheKey, recipeJson);
+        return new GeneratedRecipe(ingredientsOrIdea, recipeJson, recipeDto);
+    }
+
+    /**
+     * Streaming variant of {@link #generateRecipe}. Every field is reported through
+     * {@code onField} as soon as the model has finished writing it, and the complete recipe
+     * is validated and persisted once the stream ends. A cached answer is replayed at once.
+     */
+    public RecipeDto generateRecipeStreaming(String ingredientsOrIdea, String userId, boolean useCache,
+                                             BiConsumer<String, Object> onField) {
+        String cacheKey = RecipeResponseCache.normalize(ingredientsOrIdea);
+        IncrementalRecipeParser parser = new IncrementalRecipeParser(onField);
+
+        Optional<String> cached = useCache ? recipeResponseCache.get(cacheKey) : Optional.empty();
+        if (cached.isPresent()) {
+            logger.info("Replaying cached AI response for input: {}", cacheKey);
+            parser.feed(cached.get());
+            return save(parseResponse(cached.get()), cached.get(), ingredientsOrIdea, userId);
+        }
+
+        MessageCreateParams params = buildParams(ingredientsOrIdea);
+        try (StreamResponse<RawMessageStreamEvent> stream = anthropicClient.messages().createStreaming(params)) {
+            stream.stream()
+                .flatMap(event -> event.contentBlockDelta().stream())
+                .flatMap(delta -> delta.delta().text().stream())
+                .forEach(textDelta -> parser.feed(textDelta.text()));
+        }
+
+        logger.info("Received streamed response from AI: {}", parser.getRaw());
+
+        // Drop any markdown code block markers around the JSON object
+        String recipeJson = RecipeJsonParser.extractJson(parser.getRaw());
+
+        RecipeDto recipeDto = parseResponse(recipeJson);
+        recipeResponseCache.put(cacheKey, recipeJson);
+        return save(recipeDto, recipeJson, ingredientsOrIdea, userId);
+    }
+
+    public CacheStatsDto getCacheStats() {
+        return recipeResponseCache.getStats();
+    }
+
+    /**
+     * Submits one request per idea to the Message Batches API, which processes them offline at a
+     * lower price. The custom id of every request is its index in {@code ideas}.
+     *
+     * @return the id of the batch at the provider
+     */
+    public String submitBatch(List<String> ideas) {
+        BatchCreateParams.Builder batch = BatchCreateParams.builder();
+        for (int i = 0; i < ideas.size(); i++) {
+            batch.addRequest(BatchCreateParams.Request.builder()
+                .customId(BATCH_ITEM_PREFIX + i)
+                .params(BatchCreateParams.Request.Params.builder()
+                    .maxTokens(MAX_TOKENS)
+                    .addUserMessage(buildPrompt(ideas.get(i)))
+                    .model(MODEL)
+                    .build())
+                .build());
+        }
+        MessageBatch created = anthropicClient.messages().batches().create(batch.build());
+        logger.info("Submitted message batch {} with {} requests", created.id(), ideas.size());
+        return created.id();
+    }
+
+    /**
+     * Returns one outcome per idea, in order, once the batch has ended, or empty while it is still
+     * being processed. Valid answers are added to the response cache.
+     */
+    public Optional<List<GenerationOutcome>> fetchBatchResults(String batchId, List<String> ideas) {
+        MessageBatch batch = anthropicClient.messages().batches()
+            .retrieve(BatchRetrieveParams.builder().messageBatchId(batchId).build());
+        if (!MessageBatch.ProcessingStatus.ENDED.equals(batch.processingStatus())) {
+            return Optional.empty();
+        }
+
+        GenerationOutcome[] outcomes = new GenerationOutcome[ideas.size()];
+        try (StreamResponse<MessageBatchIndividualResponse> results = anthropicClient.messages().batches()
+                .resultsStreaming(BatchResultsParams.builder().messageBatchId(batchId).build())) {
+            results.stream().forEach(response -> {
+                int index = Integer.parseInt(response.customId().substring(BATCH_ITEM_PREFIX.length()));
+                outcomes[index] = toOutcome(ideas.get(index), response.result());
+            });
+        }
 
-    @Bean
-    public AnthropicClient anthropicClient() {
-        return AnthropicOkHttpClient.builder()
-            .apiKey(apiKey)
+        List<GenerationOutcome> ordered = new ArrayList<>(outcomes.length);
+        for (GenerationOutcome outcome : outcomes) {
+            ordered.add(outcome != null ? outcome : GenerationOutcome.failure("No result returned for this idea"));
+        }
+        return Optional.of(ordered);
+    }
+
+    private GenerationOutcome toOutcome(String ingredientsOrIdea, MessageBatchResult result) {
+        if (result.isErrored()) {
+            return GenerationOutcome.failure("The model request failed");
+        }
+        if (result.isCanceled()) {
+            return GenerationOutcome.failure("The batch was canceled");
+        }
+        if (result.isExpired()) {
+            return GenerationOutcome.failure("The batch expired before this request was processed");
+        }
+        try {
+            String recipeJson = result.asSucceeded().message().content().get(0).text()
+                .orElseThrow(() -> new RuntimeException("No text content in AI response"))
+                .text();
+            recipeJson = RecipeJsonParser.extractJson(recipeJson);
+            RecipeDto recipeDto = parseResponse(recipeJson);
+            recipeResponseCache.put(RecipeResponseCache.normalize(ingredientsOrIdea), recipeJson);
+            return GenerationOutcome.success(new GeneratedRecipe(ingredientsOrIdea, recipeJson, recipeDto));
+        } catch (RuntimeException e) {
+            return GenerationOutcome.failure(e.getMessage());
+        }
+    }
+
+    private MessageCreateParams buildParams(String ingredientsOrIdea) {
+        return MessageCreateParams.builder()
+            .maxTokens(MAX_TOKENS)
+            .addUserMessage(buildPrompt(ingredientsOrIdea))
+            .model(MODEL)
             .build();
     }
 
-    @Transactional
-    public RecipeDto generateRecipe(String ingredientsOrIdea, String userId) {
+    private String buildPrompt(String ingredientsOrIdea) {
         String prompt = """
             You are a recipe generator. Create a recipe based on the following input: %s
             
@@ -86,43 +257,13 @@ public class AIRecipeService {
             """.formatted(ingredientsOrIdea);
 
         logger.info("Sending prompt to AI: {}", prompt);
+        return prompt;
+    }
 
-        MessageCreateParams params = MessageCreateParams.builder()
-            .maxTokens(2048L)
-            .addUserMessage(prompt)
-            .model(Model.CLAUDE_3_7_SONNET_LATEST)
-            .build();
-
-        Message message = anthropicClient().messages().create(params);
-        ContentBlock contentBlock = message.content().get(0);
-        String recipeJson = contentBlock.text()
-            .orElseThrow(() -> new RuntimeException("No text content in AI response"))
-            .text();
-        
-        logger.info("Received response from AI: {}", recipeJson);
-
-        // Clean the response by removing any markdown code block markers
-        recipeJson = recipeJson.replaceAll("```json\\s*", "").replaceAll("```\\s*", "").trim();
-        
+    private RecipeDto parseResponse(String recipeJson) {
         try {
             RecipeDto recipeDto = parseRecipeJson(recipeJson);
             logger.info("Parsed recipe DTO: {}", recipeDto);
-            
-            // Save the recipe
-            Recipe savedRecipe = recipeService.createRecipe(recipeDto, userId);
-            logger.info("Saved recipe to database with ID: {}", savedRecipe.getId());
-            
-            // Save the request history
-            RequestHistory requestHistory = new RequestHistory();
-            requestHistory.setUserId(userId);
-            requestHistory.setUserInput(ingredientsOrIdea);
-            requestHistory.setAiResponse(recipeJson);
-            requestHistory.setGeneratedRecipe(savedRecipe);
-            requestHistoryRepository.save(requestHistory);
-            logger.info("Saved request history with ID: {}", requestHistory.getId());
-            
-            // Set the ID in the DTO before returning
-            recipeDto.setId(savedRecipe.getId());
             return recipeDto;
         } catch (Exception e) {
             logger.error("Failed to parse AI response: {}", recipeJson, e);
@@ -130,57 +271,19 @@ public class AIRecipeService {
         }
     }
 
-    private RecipeDto parseRecipeJson(String json) {
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(json);
-
-            // Validate required fields
-            validateField(root, "title", JsonNode::isTextual);
-            validateField(root, "description", JsonNode::isTextual);
-            validateField(root, "ingredients", JsonNode::isArray);
-            validateField(root, "instructions", JsonNode::isArray);
-            validateField(root, "preparation_time", JsonNode::isNumber);
-            validateField(root, "cooking_time", JsonNode::isNumber);
-            validateField(root, "servings", JsonNode::isNumber);
-
-            RecipeDto recipeDto = new RecipeDto();
-            recipeDto.setTitle(root.get("title").asText());
-            recipeDto.setDescription(root.get("description").asText());
-            
-            List<String> ingredients = new ArrayList<>();
-            root.get("ingredients").forEach(node -> {
-                if (!node.isTextual()) {
-                    throw new IllegalArgumentException("Ingredients must be strings");
-                }
-                ingredients.add(node.asText());
-            });
-            recipeDto.setIngredients(ingredients);
-            
-            // Join instructions with newlines to preserve markdown formatting
-            List<String> steps = new ArrayList<>();
-            root.get("instructions").forEach(node -> {
-                if (!node.isTextual()) {
-                    throw new IllegalArgumentException("Instructions must be strings");
-                }
-                steps.add(node.asText());
-            });
-            recipeDto.setInstructions(String.join("\n", steps));
-            
-            int prepTime = root.get("preparation_time").asInt();
-            int cookTime = root.get("cooking_time").asInt();
-            int servings = root.get("servings").asInt();
-
-            // Validate numeric values
-            if (prepTime <= 0) throw new IllegalArgumentException("Preparation time must be positive");
-            if (cookTime <= 0) throw new IllegalArgumentException("Cooking time must be positive");
-            if (servings <= 0) throw new IllegalArgumentException("Servings must be positive");
+    private RecipeDto save(RecipeDto recipeDto, String recipeJson, String ingredientsOrIdea, String userId) {
+        // Save the recipe in one short transaction, the request history is written behind
+        Recipe savedRecipe = recipeService.saveGeneratedRecipe(recipeDto, userId, ingredientsOrIdea, recipeJson);
+        logger.info("Saved recipe to database with ID: {}", savedRecipe.getId());
 
-            recipeDto.setPreparationTime(prepTime);
-            recipeDto.setCookingTime(cookTime);
-            recipeDto.setServings(servings);
+        // Set the ID in the DTO before returning
+        recipeDto.setId(savedRecipe.getId());
+        return recipeDto;
+    }
 
-            return recipeDto;
+    private RecipeDto parseRecipeJson(String json) {
+        try {
+            return RecipeJsonParser.parse(json);
         } catch (JsonProcessingException e) {
             logger.error("Invalid JSON format: {}", e.getMessage());
             throw new RuntimeException("The AI response is not valid JSON: " + e.getMessage());
@@ -190,13 +293,16 @@ public class AIRecipeService {
         }
     }
 
-    private void validateField(JsonNode root, String fieldName, Predicate<JsonNode> validator) {
-        JsonNode node = root.get(fieldName);
-        if (node == null) {
-            throw new IllegalArgumentException("Missing required field: " + fieldName);
-        }
-        if (!validator.test(node)) {
-            throw new IllegalArgumentException("Invalid type for field: " + fieldName);
-        }
+    // Every caller of a coalesced generation gets its own DTO, since save() assigns the recipe ID
+    private RecipeDto copyOf(RecipeDto source) {
+        RecipeDto copy = new RecipeDto();
+        copy.setTitle(source.getTitle());
+        copy.setDescription(source.getDescription());
+        copy.setIngredients(new ArrayList<>(source.getIngredients()));
+        copy.setInstructions(source.getInstructions());
+        copy.setPreparationTime(source.getPreparationTime());
+        copy.setCookingTime(source.getCookingTime());
+        copy.setServings(source.getServings());
+        return copy;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,203 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.AnthropicProperties;
+import ch.ilv.m295.airezept.dto.BatchGenerationDto;
+import ch.ilv.m295.airezept.dto.BatchItemDto;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.JobStatus;
+import ch.ilv.m295.airezept.entity.OfflineBatch;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.OfflineBatchRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Generates several recipes for one request. Online batches fan out to the model on the job
+ * executor with at most {@code anthropic.batch.parallelism} calls in flight; offline batches are
+ * handed to the Message Batches API, kept in the offline_batch table and collected by a scheduled
+ * poller or when the client polls for them, whichever comes first. In both cases
+ * all successful recipes are saved in one transaction and failed ideas are reported per item.
+ */
+@Service
+@RequiredArgsConstructor
+public class BatchGenerationService {
+    private static final Logger logger = LoggerFactory.getLogger(BatchGenerationService.class);
+    private static final String BATCH_EXPIRED = "The batch did not return any results before it expired";
+    private final AIRecipeService aiRecipeService;
+    private final RecipeService recipeService;
+    private final AsyncTaskExecutor aiJobExecutor;
+    private final AnthropicProperties anthropicProperties;
+    private final OfflineBatchRepository offlineBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public BatchGenerationDto generateBatch(List<String> ideas, String userId, boolean useCache) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        Semaphore permits = new Semaphore(anthropicProperties.getBatch().getParallelism());
+        List<CompletableFuture<GenerationOutcome>> futures = new ArrayList<>(ideas.size());
+
+        for (String idea : ideas) {
+            permits.acquireUninterruptibly();
+            CompletableFuture<GenerationOutcome> future = new CompletableFuture<>();
+            futures.add(future);
+            try {
+                aiJobExecutor.execute(() -> {
+                    try {
+                        future.complete(GenerationOutcome.success(aiRecipeService.prepareRecipe(idea, useCache)));
+                    } catch (Exception e) {
+                        logger.warn("Batch generation failed for idea: {}", idea, e);
+                        future.complete(GenerationOutcome.failure(e.getMessage()));
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                permits.release();
+                future.complete(GenerationOutcome.failure("Too many recipe generations in progress, please retry later"));
+            }
+        }
+
+        List<GenerationOutcome> outcomes = futures.stream().map(CompletableFuture::join).toList();
+        BatchGenerationDto result = saveOutcomes(ideas, outcomes, userId);
+        result.setCreatedAt(createdAt);
+        return result;
+    }
+
+    public BatchGenerationDto submitOfflineBatch(List<String> ideas, String userId) {
+        OfflineBatch batch = new OfflineBatch();
+        batch.setId(aiRecipeService.submitBatch(ideas));
+        batch.setUserId(userId);
+        batch.setIdeas(List.copyOf(ideas));
+        batch.setStatus(JobStatus.RUNNING);
+        batch.setCreatedAt(LocalDateTime.now());
+        offlineBatchRepository.save(batch);
+        return toDto(batch);
+    }
+
+    /**
+     * Returns the offline batch, checking with the provider while it is still running. The results
+     * are saved the first time the batch is seen as ended, here or by {@link #pollOfflineBatches()}.
+     */
+    public BatchGenerationDto getOfflineBatch(String id, String userId) {
+        OfflineBatch batch = offlineBatchRepository.findById(id)
+            .filter(found -> found.getUserId().equals(userId))
+            .orElseThrow(() -> new EntityNotFoundException("Batch not found with id: " + id));
+        if (batch.getStatus() == JobStatus.RUNNING) {
+            batch = collect(batch);
+        }
+        return toDto(batch);
+    }
+
+    /**
+     * Saves the results of every ended batch, whether or not its owner polls for it. Batches the
+     * provider has not returned within {@code anthropic.batch.offline-expiry} are failed, and
+     * finished ones are deleted after {@code anthropic.jobs.retention}.
+     */
+    @Scheduled(initialDelayString = "${anthropic.batch.offline-poll-interval:PT1M}",
+        fixedDelayString = "${anthropic.batch.offline-poll-interval:PT1M}")
+    public void pollOfflineBatches() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expired = now.minus(anthropicProperties.getBatch().getOfflineExpiry());
+        for (OfflineBatch batch : offlineBatchRepository.findByStatusOrderByCreatedAt(JobStatus.RUNNING)) {
+            try {
+                batch = collect(batch);
+            } catch (RuntimeException e) {
+                logger.warn("Could not collect message batch {}", batch.getId(), e);
+            }
+            if (batch.getStatus() == JobStatus.RUNNING && batch.getCreatedAt().isBefore(expired)
+                    && offlineBatchRepository.failIfRunning(batch.getId(), BATCH_EXPIRED, now) > 0) {
+                logger.warn("Gave up on message batch {} submitted at {}", batch.getId(), batch.getCreatedAt());
+            }
+        }
+
+        LocalDateTime cutoff = now.minus(anthropicProperties.getJobs().getRetention());
+        int deleted = offlineBatchRepository.deleteByStatusInAndCompletedAtBefore(
+            EnumSet.of(JobStatus.COMPLETED, JobStatus.FAILED), cutoff);
+        if (deleted > 0) {
+            logger.info("Deleted {} finished message batches", deleted);
+        }
+    }
+
+    // Fetches the results outside of any transaction, then saves them under a row lock unless
+    // someone else has already done so
+    private OfflineBatch collect(OfflineBatch batch) {
+        Optional<List<GenerationOutcome>> outcomes = aiRecipeService.fetchBatchResults(batch.getId(), batch.getIdeas());
+        if (outcomes.isEmpty()) {
+            return batch;
+        }
+        return transactionTemplate.execute(status -> {
+            OfflineBatch locked = offlineBatchRepository.findForUpdateById(batch.getId()).orElse(null);
+            if (locked == null || locked.getStatus() != JobStatus.RUNNING) {
+                return locked != null ? locked : batch;
+            }
+            BatchGenerationDto result = saveOutcomes(locked.getIdeas(), outcomes.get(), locked.getUserId());
+            locked.setItems(result.getItems());
+            locked.setStatus(JobStatus.COMPLETED);
+            locked.setCompletedAt(LocalDateTime.now());
+            logger.info("Saved {} recipes from message batch {}", result.getSucceeded(), locked.getId());
+            return locked;
+        });
+    }
+
+    private BatchGenerationDto saveOutcomes(List<String> ideas, List<GenerationOutcome> outcomes, String userId) {
+        List<GeneratedRecipe> generated = outcomes.stream()
+            .filter(GenerationOutcome::isSuccess)
+            .map(GenerationOutcome::generated)
+            .toList();
+        Iterator<Recipe> saved = generated.isEmpty()
+            ? List.<Recipe>of().iterator()
+            : recipeService.saveGeneratedRecipes(generated, userId).iterator();
+
+        List<BatchItemDto> items = new ArrayList<>(outcomes.size());
+        for (int i = 0; i < outcomes.size(); i++) {
+            GenerationOutcome outcome = outcomes.get(i);
+            BatchItemDto item = new BatchItemDto();
+            item.setIndex(i);
+            item.setIdea(ideas.get(i));
+            if (outcome.isSuccess()) {
+                RecipeDto recipe = outcome.generated().recipe();
+                recipe.setId(saved.next().getId());
+                item.setRecipe(recipe);
+            } else {
+                item.setError(outcome.error());
+            }
+            items.add(item);
+        }
+
+        BatchGenerationDto dto = new BatchGenerationDto();
+        dto.setStatus(JobStatus.COMPLETED);
+        dto.setSucceeded(generated.size());
+        dto.setFailed(outcomes.size() - generated.size());
+        dto.setItems(items);
+        return dto;
+    }
+
+    private static BatchGenerationDto toDto(OfflineBatch batch) {
+        List<BatchItemDto> items = batch.getItems() != null ? batch.getItems() : List.of();
+        int succeeded = (int) items.stream().filter(item -> item.getRecipe() != null).count();
+        BatchGenerationDto dto = new BatchGenerationDto();
+        dto.setId(batch.getId());
+        dto.setStatus(batch.getStatus());
+        dto.setSucceeded(succeeded);
+        dto.setFailed(items.size() - succeeded);
+        dto.setItems(items);
+        dto.setError(batch.getError());
+        dto.setCreatedAt(batch.getCreatedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,13 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.dto.RecipeDto;
+
+/**
+ * A validated model answer that has not been saved yet.
+ *
+ * @param userInput  what the user asked for
+ * @param aiResponse the JSON written by the model, without code fences
+ * @param recipe     the parsed recipe
+ */
+public record GeneratedRecipe(String userInput, String aiResponse, RecipeDto recipe) {
+}
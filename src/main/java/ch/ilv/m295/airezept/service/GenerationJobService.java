@@ -0,0 +1,96 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.AnthropicProperties;
+import ch.ilv.m295.airezept.dto.GenerationJobDto;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.GenerationJob;
+import ch.ilv.m295.airezept.entity.JobStatus;
+import ch.ilv.m295.airezept.exception.GenerationQueueFullException;
+import ch.ilv.m295.airezept.repository.GenerationJobStore;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Runs recipe generations as background jobs on a bounded worker pool, so a burst of AI
+ * requests queues up here instead of holding servlet request threads for the model call.
+ */
+@Service
+@RequiredArgsConstructor
+public class GenerationJobService {
+    private static final Logger logger = LoggerFactory.getLogger(GenerationJobService.class);
+    private final AIRecipeService aiRecipeService;
+    private final RecipeService recipeService;
+    private final GenerationJobStore generationJobStore;
+    private final AsyncTaskExecutor aiJobExecutor;
+    private final AnthropicProperties anthropicProperties;
+
+    public GenerationJobDto submitJob(String ingredientsOrIdea, String userId) {
+        GenerationJob job = new GenerationJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setUserId(userId);
+        job.setUserInput(ingredientsOrIdea);
+        job.setStatus(JobStatus.PENDING);
+        job.setCreatedAt(LocalDateTime.now());
+        job.setUpdatedAt(job.getCreatedAt());
+        generationJobStore.save(job);
+        // Taken before the worker starts changing the job
+        GenerationJobDto submitted = toDto(job);
+
+        try {
+            aiJobExecutor.execute(() -> runJob(job));
+        } catch (TaskRejectedException e) {
+            generationJobStore.deleteById(job.getId());
+            throw new GenerationQueueFullException("Too many recipe generations in progress, please retry later",
+                anthropicProperties.getJobs().getRetryAfter());
+        }
+        logger.info("Queued generation job {} for user {}", submitted.getId(), userId);
+        return submitted;
+    }
+
+    public GenerationJobDto getJob(String id, String userId) {
+        GenerationJob job = generationJobStore.findById(id)
+            .filter(found -> found.getUserId().equals(userId))
+            .orElseThrow(() -> new EntityNotFoundException("Generation job not found with id: " + id));
+        return toDto(job);
+    }
+
+    private void runJob(GenerationJob job) {
+        updateStatus(job, JobStatus.RUNNING);
+        try {
+            RecipeDto recipe = aiRecipeService.generateRecipe(job.getUserInput(), job.getUserId());
+            job.setRecipeId(recipe.getId());
+            updateStatus(job, JobStatus.COMPLETED);
+        } catch (Exception e) {
+            logger.error("Generation job {} failed", job.getId(), e);
+            job.setError(e.getMessage());
+            updateStatus(job, JobStatus.FAILED);
+        }
+    }
+
+    private void updateStatus(GenerationJob job, JobStatus status) {
+        job.setStatus(status);
+        job.setUpdatedAt(LocalDateTime.now());
+        generationJobStore.save(job);
+    }
+
+    private GenerationJobDto toDto(GenerationJob job) {
+        GenerationJobDto dto = new GenerationJobDto();
+        dto.setId(job.getId());
+        dto.setStatus(job.getStatus());
+        dto.setError(job.getError());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setUpdatedAt(job.getUpdatedAt());
+        if (job.getStatus() == JobStatus.COMPLETED) {
+            dto.setRecipe(recipeService.getRecipeDtoById(job.getRecipeId()));
+        }
+        return dto;
+    }
+}
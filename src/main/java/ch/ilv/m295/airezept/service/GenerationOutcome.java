@@ -0,0 +1,19 @@
+package ch.ilv.m295.airezept.service;
+
+/**
+ * The result for one idea of a batch: either a generated recipe or the reason it failed.
+ */
+public record GenerationOutcome(GeneratedRecipe generated, String error) {
+
+    public static GenerationOutcome success(GeneratedRecipe generated) {
+        return new GenerationOutcome(generated, null);
+    }
+
+    public static GenerationOutcome failure(String error) {
+        return new GenerationOutcome(null, error);
+    }
+
+    public boolean isSuccess() {
+        return generated != null;
+    }
+}
@@ -0,0 +1,120 @@
+package ch.ilv.m295.airezept.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Parses the recipe JSON while the model is still streaming it and reports every field as
+ * soon as its value is complete. Text before the opening brace (such as a markdown code fence)
+ * and anything after the closing brace is ignored.
+ */
+public class IncrementalRecipeParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // JSON field names mapped to the event names sent to clients
+    private static final Map<String, String> SCALAR_EVENTS = Map.of(
+        "title", "title",
+        "description", "description",
+        "preparation_time", "preparationTime",
+        "cooking_time", "cookingTime",
+        "servings", "servings"
+    );
+    private static final Map<String, String> ARRAY_EVENTS = Map.of(
+        "ingredients", "ingredient",
+        "instructions", "instruction"
+    );
+
+    private final BiConsumer<String, Object> onField;
+    private final StringBuilder raw = new StringBuilder();
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private boolean started;
+    private boolean finished;
+    private int depth;
+    private String currentField;
+
+    public IncrementalRecipeParser(BiConsumer<String, Object> onField) {
+        this.onField = onField;
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create JSON parser", e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    public void feed(String chunk) {
+        raw.append(chunk);
+        if (finished) {
+            return;
+        }
+        if (!started) {
+            int start = chunk.indexOf('{');
+            if (start < 0) {
+                return;
+            }
+            started = true;
+            chunk = chunk.substring(start);
+        }
+
+        try {
+            byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+            feeder.feedInput(bytes, 0, bytes.length);
+            drain();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("The AI response is not valid JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /** The complete text received so far, including anything outside the JSON object. */
+    public String getRaw() {
+        return raw.toString();
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!finished && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+            switch (token) {
+                case START_OBJECT, START_ARRAY -> depth++;
+                case END_OBJECT, END_ARRAY -> {
+                    depth--;
+                    if (depth == 0) {
+                        finished = true;
+                        feeder.endOfInput();
+                    }
+                }
+                case FIELD_NAME -> {
+                    if (depth == 1) {
+                        currentField = parser.currentName();
+                    }
+                }
+                case VALUE_STRING, VALUE_NUMBER_INT -> emit(token);
+                default -> {
+                    // Other value types are rejected by the final validation
+                }
+            }
+        }
+    }
+
+    private void emit(JsonToken token) throws IOException {
+        Object value = token == JsonToken.VALUE_STRING ? parser.getText() : parser.getIntValue();
+        if (depth == 1 && SCALAR_EVENTS.containsKey(currentField)) {
+            onField.accept(SCALAR_EVENTS.get(currentField), value);
+        } else if (depth == 2 && ARRAY_EVENTS.containsKey(currentField)) {
+            onField.accept(ARRAY_EVENTS.get(currentField), value);
+        }
+    }
+}
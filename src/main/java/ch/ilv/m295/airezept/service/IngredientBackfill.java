@@ -0,0 +1,45 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Normalizes the ingredients of recipes stored before the normalized ingredient table existed.
+ * Runs at startup before the ingredient index is built, one short transaction per batch.
+ */
+@Component
+@RequiredArgsConstructor
+public class IngredientBackfill {
+    private static final Logger logger = LoggerFactory.getLogger(IngredientBackfill.class);
+
+    private static final int BATCH_SIZE = 200;
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeService recipeService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfill() {
+        long afterId = 0;
+        int normalized = 0;
+        List<Long> ids;
+        while (!(ids = recipeRepository.findIdsWithoutNormalizedIngredients(afterId, PageRequest.of(0, BATCH_SIZE))).isEmpty()) {
+            recipeService.normalizeIngredients(ids);
+            normalized += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (normalized > 0) {
+            logger.info("Normalized the ingredients of {} recipes", normalized);
+        }
+    }
+}
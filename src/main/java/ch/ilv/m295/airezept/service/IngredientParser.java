@@ -0,0 +1,211 @@
+package ch.ilv.m295.airezept.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a free-text ingredient such as "1 1/2 cups of chopped tomatoes (ripe)" into a quantity
+ * (1.5), a unit ("cup") and a canonical name ("tomato"). The canonical name is lower case,
+ * without accents, preparation words or a plural ending, so that "Tomatoes" in a recipe and
+ * "tomato" in a pantry are the same ingredient.
+ */
+public final class IngredientParser {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NUMBER = Pattern.compile("\\d+(?:[.,]\\d+)?");
+    private static final Pattern FRACTION = Pattern.compile("(\\d+)/(\\d+)");
+    // "2-3", "200g" and "2x" are written without spaces
+    private static final Pattern RANGE = Pattern.compile("(\\d+(?:[.,]\\d+)?)[-–](\\d+(?:[.,]\\d+)?)");
+    private static final Pattern NUMBER_WITH_UNIT = Pattern.compile("(\\d+(?:[.,]\\d+)?)([a-z]+)");
+    private static final Pattern PARENTHESES = Pattern.compile("\\([^)]*\\)?");
+    private static final Pattern SERVING_HINT = Pattern.compile("\\b(to taste|for \\w+|as needed)\\b.*");
+    private static final Pattern NOT_A_WORD = Pattern.compile("[^a-z ]+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private static final Map<Character, String> VULGAR_FRACTIONS = Map.of(
+        '½', " 1/2", '⅓', " 1/3", '⅔', " 2/3", '¼', " 1/4", '¾', " 3/4", '⅛', " 1/8");
+
+    private static final Map<String, String> UNITS = Map.ofEntries(
+        Map.entry("g", "g"), Map.entry("gr", "g"), Map.entry("gram", "g"), Map.entry("grams", "g"),
+        Map.entry("kg", "kg"), Map.entry("kilogram", "kg"), Map.entry("kilograms", "kg"),
+        Map.entry("mg", "mg"),
+        Map.entry("ml", "ml"), Map.entry("milliliter", "ml"), Map.entry("milliliters", "ml"),
+        Map.entry("millilitre", "ml"), Map.entry("millilitres", "ml"),
+        Map.entry("cl", "cl"), Map.entry("dl", "dl"),
+        Map.entry("l", "l"), Map.entry("liter", "l"), Map.entry("liters", "l"),
+        Map.entry("litre", "l"), Map.entry("litres", "l"),
+        Map.entry("tsp", "tsp"), Map.entry("teaspoon", "tsp"), Map.entry("teaspoons", "tsp"),
+        Map.entry("tbsp", "tbsp"), Map.entry("tbs", "tbsp"), Map.entry("tablespoon", "tbsp"),
+        Map.entry("tablespoons", "tbsp"),
+        Map.entry("cup", "cup"), Map.entry("cups", "cup"),
+        Map.entry("oz", "oz"), Map.entry("ounce", "oz"), Map.entry("ounces", "oz"),
+        Map.entry("lb", "lb"), Map.entry("lbs", "lb"), Map.entry("pound", "lb"), Map.entry("pounds", "lb"),
+        Map.entry("pinch", "pinch"), Map.entry("pinches", "pinch"), Map.entry("dash", "dash"),
+        Map.entry("clove", "clove"), Map.entry("cloves", "clove"),
+        Map.entry("can", "can"), Map.entry("cans", "can"), Map.entry("tin", "can"), Map.entry("tins", "can"),
+        Map.entry("piece", "piece"), Map.entry("pieces", "piece"), Map.entry("pc", "piece"), Map.entry("pcs", "piece"),
+        Map.entry("slice", "slice"), Map.entry("slices", "slice"),
+        Map.entry("bunch", "bunch"), Map.entry("bunches", "bunch"),
+        Map.entry("handful", "handful"), Map.entry("handfuls", "handful"),
+        Map.entry("sprig", "sprig"), Map.entry("sprigs", "sprig"),
+        Map.entry("stick", "stick"), Map.entry("sticks", "stick"),
+        Map.entry("package", "package"), Map.entry("packages", "package"),
+        Map.entry("pack", "package"), Map.entry("packs", "package"));
+
+    // How an ingredient is prepared or sized does not change what it is
+    private static final Set<String> DESCRIPTORS = Set.of(
+        "fresh", "freshly", "large", "medium", "small", "chopped", "finely", "roughly", "diced", "minced",
+        "sliced", "grated", "shredded", "crushed", "peeled", "ripe", "whole", "about", "approx");
+
+    private static final Map<String, String> IRREGULAR_PLURALS = Map.of(
+        "leaves", "leaf", "loaves", "loaf", "halves", "half", "knives", "knife");
+
+    private static final Set<String> NOT_PLURAL = Set.of(
+        "molasses", "couscous", "hummus", "asparagus", "swiss", "series", "species");
+
+    private IngredientParser() {
+    }
+
+    /**
+     * An ingredient as stored in the normalized ingredient table; quantity and unit are null
+     * when the text does not start with them.
+     */
+    public record ParsedIngredient(Double quantity, String unit, String name) {
+    }
+
+    /**
+     * Parses one ingredient line, or returns null when no name is left, e.g. for "200 g".
+     */
+    public static ParsedIngredient parse(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        List<String> tokens = tokenize(text);
+
+        int next = 0;
+        Double quantity = null;
+        while (next < tokens.size()) {
+            Double value = number(tokens.get(next));
+            if (value == null) {
+                break;
+            }
+            // "1 1/2" adds up, "2 - 3" keeps the lower bound
+            quantity = quantity == null ? value : quantity + value;
+            next++;
+            if (next < tokens.size() && (tokens.get(next).equals("-") || tokens.get(next).equals("to"))
+                    && next + 1 < tokens.size() && number(tokens.get(next + 1)) != null) {
+                next += 2;
+                break;
+            }
+        }
+
+        String unit = null;
+        if (quantity != null && next < tokens.size()) {
+            unit = UNITS.get(tokens.get(next).replace(".", ""));
+            if (unit != null) {
+                next++;
+            }
+        }
+
+        String name = canonicalName(String.join(" ", tokens.subList(next, tokens.size())));
+        if (name.isEmpty() && "clove".equals(unit)) {
+            // "3 cloves" is the spice, not a unit without an ingredient
+            name = canonicalName(tokens.get(next - 1));
+            unit = null;
+        }
+        return name.isEmpty() ? null : new ParsedIngredient(quantity, unit, name);
+    }
+
+    /**
+     * The canonical name of an ingredient without quantity, as used for pantry lookups.
+     */
+    public static String canonicalName(String text) {
+        String name = fold(text);
+        // Notes after a comma or in parentheses, and serving hints, are not part of the name
+        int comma = name.indexOf(',');
+        if (comma >= 0) {
+            name = name.substring(0, comma);
+        }
+        name = PARENTHESES.matcher(name).replaceAll(" ");
+        name = SERVING_HINT.matcher(name).replaceAll(" ");
+        name = SPACES.matcher(NOT_A_WORD.matcher(name).replaceAll(" ")).replaceAll(" ").trim();
+
+        List<String> words = new ArrayList<>(List.of(name.split(" ")));
+        words.removeIf(word -> word.isEmpty() || DESCRIPTORS.contains(word));
+        if (!words.isEmpty() && words.get(0).equals("of")) {
+            words.remove(0);
+        }
+        if (words.isEmpty()) {
+            return "";
+        }
+        words.set(words.size() - 1, singular(words.get(words.size() - 1)));
+        return String.join(" ", words);
+    }
+
+    private static List<String> tokenize(String text) {
+        StringBuilder expanded = new StringBuilder(text.length() + 8);
+        for (char c : text.toCharArray()) {
+            String fraction = VULGAR_FRACTIONS.get(c);
+            expanded.append(fraction != null ? fraction : String.valueOf(c));
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : SPACES.split(fold(expanded.toString()).trim())) {
+            Matcher range = RANGE.matcher(token);
+            Matcher withUnit = NUMBER_WITH_UNIT.matcher(token);
+            if (range.matches()) {
+                tokens.add(range.group(1));
+                tokens.add("-");
+                tokens.add(range.group(2));
+            } else if (withUnit.matches() && !withUnit.group(2).equals("x")) {
+                tokens.add(withUnit.group(1));
+                tokens.add(withUnit.group(2));
+            } else if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static Double number(String token) {
+        if (NUMBER.matcher(token).matches()) {
+            return Double.valueOf(token.replace(',', '.'));
+        }
+        Matcher fraction = FRACTION.matcher(token);
+        if (fraction.matches() && !fraction.group(2).equals("0")) {
+            return Double.parseDouble(fraction.group(1)) / Double.parseDouble(fraction.group(2));
+        }
+        return null;
+    }
+
+    private static String singular(String word) {
+        String irregular = IRREGULAR_PLURALS.get(word);
+        if (irregular != null) {
+            return irregular;
+        }
+        if (NOT_PLURAL.contains(word) || word.length() < 4) {
+            return word;
+        }
+        if (word.endsWith("ies") && word.length() > 4) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.endsWith("oes") || word.endsWith("ches") || word.endsWith("shes") || word.endsWith("sses")
+                || word.endsWith("xes")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is")) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    private static String fold(String text) {
+        return DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+            .toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,38 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.exception.InvalidPaginationException;
+import ch.ilv.m295.airezept.repository.RecipeSortField;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * The opaque {@code after} token of cursor listings. It holds the sort field, the direction and
+ * the (value, id) position of the last recipe of the previous page. Clients must not build it.
+ */
+public record RecipeCursor(RecipeSortField field, Sort.Direction direction, Object value, Long id) {
+
+    private static final String SEPARATOR = ",";
+
+    public String encode() {
+        // The value goes last because titles may contain the separator
+        String raw = field.name() + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RecipeCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new InvalidPaginationException("Invalid cursor");
+            }
+            RecipeSortField field = RecipeSortField.valueOf(parts[0]);
+            return new RecipeCursor(field, Sort.Direction.valueOf(parts[1]), field.parse(parts[3]), Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidPaginationException("Invalid cursor");
+        }
+    }
+}
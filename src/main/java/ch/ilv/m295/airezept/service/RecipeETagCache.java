@@ -0,0 +1,94 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.repository.AfterCommit;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded LRU map of recipe id to its current strong ETag, so conditional GETs can be
+ * answered without touching the database. Entries are evicted after a change is committed.
+ */
+@Component
+public class RecipeETagCache {
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final Map<Long, String> eTags = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    // One token per id with a load in flight; an eviction removes it, so a load that started
+    // before the eviction cannot put its older tag afterwards
+    private final Map<Long, Object> loads = new HashMap<>();
+    // A lock instead of synchronized, so waiting virtual threads do not pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The ETag of a recipe version. Timestamps are cut to microseconds, the precision the
+     * database stores, so a freshly saved and a reloaded recipe get the same tag.
+     */
+    public static String eTagOf(Long id, LocalDateTime updatedAt) {
+        long micros = updatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + updatedAt.getNano() / 1_000;
+        return "\"" + id + "-" + micros + "\"";
+    }
+
+    public String get(Long id, Supplier<String> loader) {
+        Object load;
+        lock.lock();
+        try {
+            String eTag = eTags.get(id);
+            if (eTag != null) {
+                return eTag;
+            }
+            // Concurrent loads of the same id share the token, they read the same version
+            load = loads.computeIfAbsent(id, key -> new Object());
+        } finally {
+            lock.unlock();
+        }
+
+        // Loaded outside the lock, and only cached if the id was not evicted in the meantime
+        String eTag = null;
+        try {
+            eTag = loader.get();
+            return eTag;
+        } finally {
+            lock.lock();
+            try {
+                if (loads.get(id) == load) {
+                    loads.remove(id);
+                    if (eTag != null) {
+                        eTags.put(id, eTag);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Drops the ETag once the surrounding transaction has committed. Evicting earlier would let
+     * a concurrent read cache the old version again before the change becomes visible.
+     */
+    public void evictAfterCommit(Long id) {
+        AfterCommit.run(() -> evict(id));
+    }
+
+    public void evict(Long id) {
+        lock.lock();
+        try {
+            eTags.remove(id);
+            loads.remove(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
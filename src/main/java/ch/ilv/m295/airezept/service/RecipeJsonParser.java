@@ -0,0 +1,196 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the recipe JSON returned by the model straight into a {@link RecipeDto}. Tokens are
+ * streamed from one shared, thread-safe {@link JsonFactory} and validated as they are read, so
+ * no tree model and no cleaned-up copy of the response is built. Text before the opening brace
+ * (such as a markdown code fence) and anything after the closing brace is ignored.
+ */
+public final class RecipeJsonParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private RecipeJsonParser() {
+    }
+
+    /**
+     * Returns the JSON object inside the response, without surrounding code fences or text.
+     */
+    public static String extractJson(String response) {
+        int start = response.indexOf('{');
+        int end = response.lastIndexOf('}');
+        if (start < 0 || end < start) {
+            return response.trim();
+        }
+        return response.substring(start, end + 1);
+    }
+
+    /**
+     * Parses and validates a recipe. Malformed JSON is reported as a {@link JsonProcessingException},
+     * missing fields, wrong types and non-positive numbers as an {@link IllegalArgumentException}.
+     */
+    public static RecipeDto parse(String response) throws JsonProcessingException {
+        int start = Math.max(response.indexOf('{'), 0);
+        try (JsonParser parser = JSON_FACTORY.createParser(new StringWindowReader(response, start))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            return readRecipe(parser);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            // Reading from a String cannot fail with anything else
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static RecipeDto readRecipe(JsonParser parser) throws IOException {
+        String title = null;
+        String description = null;
+        List<String> ingredients = null;
+        String instructions = null;
+        Integer prepTime = null;
+        Integer cookTime = null;
+        Integer servings = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "title" -> title = readText(parser, value, field);
+                case "description" -> description = readText(parser, value, field);
+                case "ingredients" -> ingredients = readIngredients(parser, value);
+                case "instructions" -> instructions = readInstructions(parser, value);
+                case "preparation_time" -> prepTime = readNumber(parser, value, field);
+                case "cooking_time" -> cookTime = readNumber(parser, value, field);
+                case "servings" -> servings = readNumber(parser, value, field);
+                default -> parser.skipChildren();
+            }
+        }
+
+        // Validate required fields in the same order as before
+        requireField(title, "title");
+        requireField(description, "description");
+        requireField(ingredients, "ingredients");
+        requireField(instructions, "instructions");
+        requireField(prepTime, "preparation_time");
+        requireField(cookTime, "cooking_time");
+        requireField(servings, "servings");
+
+        // Validate numeric values
+        if (prepTime <= 0) throw new IllegalArgumentException("Preparation time must be positive");
+        if (cookTime <= 0) throw new IllegalArgumentException("Cooking time must be positive");
+        if (servings <= 0) throw new IllegalArgumentException("Servings must be positive");
+
+        RecipeDto recipeDto = new RecipeDto();
+        recipeDto.setTitle(title);
+        recipeDto.setDescription(description);
+        recipeDto.setIngredients(ingredients);
+        recipeDto.setInstructions(instructions);
+        recipeDto.setPreparationTime(prepTime);
+        recipeDto.setCookingTime(cookTime);
+        recipeDto.setServings(servings);
+        return recipeDto;
+    }
+
+    private static String readText(JsonParser parser, JsonToken value, String field) throws IOException {
+        if (value != JsonToken.VALUE_STRING) {
+            throw invalidType(field);
+        }
+        return parser.getText();
+    }
+
+    private static int readNumber(JsonParser parser, JsonToken value, String field) throws IOException {
+        if (value != JsonToken.VALUE_NUMBER_INT && value != JsonToken.VALUE_NUMBER_FLOAT) {
+            throw invalidType(field);
+        }
+        return parser.getValueAsInt();
+    }
+
+    private static List<String> readIngredients(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            throw invalidType("ingredients");
+        }
+        List<String> ingredients = new ArrayList<>();
+        JsonToken element;
+        while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (element != JsonToken.VALUE_STRING) {
+                throw new IllegalArgumentException("Ingredients must be strings");
+            }
+            ingredients.add(parser.getText());
+        }
+        return ingredients;
+    }
+
+    // Instructions are joined with newlines to preserve markdown formatting
+    private static String readInstructions(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            throw invalidType("instructions");
+        }
+        StringBuilder steps = new StringBuilder();
+        boolean first = true;
+        JsonToken element;
+        while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (element != JsonToken.VALUE_STRING) {
+                throw new IllegalArgumentException("Instructions must be strings");
+            }
+            if (!first) {
+                steps.append('\n');
+            }
+            steps.append(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            first = false;
+        }
+        return steps.toString();
+    }
+
+    private static IllegalArgumentException invalidType(String field) {
+        return new IllegalArgumentException("Invalid type for field: " + field);
+    }
+
+    private static void requireField(Object value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing required field: " + field);
+        }
+    }
+
+    /**
+     * Reads a String from an offset on without copying it, so the code fence does not need to
+     * be cut off first. Jackson reads it into its own recycled buffer.
+     */
+    private static final class StringWindowReader extends Reader {
+        private final String source;
+        private int position;
+
+        StringWindowReader(String source, int start) {
+            this.source = source;
+            this.position = start;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position >= source.length()) {
+                return -1;
+            }
+            int count = Math.min(length, source.length() - position);
+            source.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.RecipeProperties;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Bulk deletes for moderation. Recipes are deleted in transactions of
+ * {@code recipes.moderation.delete-batch-size}, so deleting thousands of recipes never holds
+ * the locks of all their rows at once; a failure keeps the batches deleted before it.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecipeModerationService {
+    private static final Logger logger = LoggerFactory.getLogger(RecipeModerationService.class);
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeService recipeService;
+    private final RecipeProperties recipeProperties;
+
+    /**
+     * Deletes every recipe created by the given user.
+     *
+     * @return the number of recipes deleted
+     */
+    public long deleteByCreatedBy(String createdBy) {
+        int batchSize = recipeProperties.getModeration().getDeleteBatchSize();
+        long deleted = 0;
+        List<Long> ids;
+        do {
+            // Always the first page, the previous batch is gone
+            ids = recipeRepository.findIdsByCreatedBy(createdBy, PageRequest.of(0, batchSize));
+            deleted += recipeService.deleteRecipes(ids);
+        } while (ids.size() == batchSize);
+        logger.info("Deleted {} recipes created by {}", deleted, createdBy);
+        return deleted;
+    }
+
+    /**
+     * Deletes the recipes with the given ids; ids without a recipe are skipped.
+     *
+     * @return the number of recipes deleted
+     */
+    public long deleteByIds(List<Long> ids) {
+        int batchSize = recipeProperties.getModeration().getDeleteBatchSize();
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        long deleted = 0;
+        for (int from = 0; from < distinctIds.size(); from += batchSize) {
+            deleted += recipeService.deleteRecipes(distinctIds.subList(from, Math.min(from + batchSize, distinctIds.size())));
+        }
+        logger.info("Deleted {} of {} recipes by id", deleted, distinctIds.size());
+        return deleted;
+    }
+}
@@ -0,0 +1,309 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.AnthropicProperties;
+import ch.ilv.m295.airezept.dto.CacheStatsDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Two-tier cache of validated recipe JSON keyed by the normalized user input.
+ * <p>
+ * The heap tier is a size-bounded LRU map. The optional disk tier keeps one file per key
+ * under {@code anthropic.cache.disk-directory}, so entries survive a restart; it holds at most
+ * {@code anthropic.cache.max-disk-entries} files, the oldest are deleted first. Both tiers
+ * expire entries after {@code anthropic.cache.ttl}, and a scheduled sweep deletes expired files
+ * that are never read again.
+ */
+@Component
+public class RecipeResponseCache {
+    private static final Logger logger = LoggerFactory.getLogger(RecipeResponseCache.class);
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Path diskDirectory;
+    private final int maxDiskEntries;
+    private final Map<String, Entry> heap;
+    // A lock instead of synchronized, so waiting virtual threads do not pin their carrier
+    private final ReentrantLock heapLock = new ReentrantLock();
+    // Number of entry files, kept up to date by this instance and recounted by every sweep
+    private final AtomicInteger diskEntries = new AtomicInteger();
+    // Held while files are listed and deleted, so concurrent writers do not trim at the same time
+    private final ReentrantLock diskLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RecipeResponseCache(AnthropicProperties properties) {
+        AnthropicProperties.Cache cache = properties.getCache();
+        this.enabled = cache.isEnabled();
+        this.ttl = cache.getTtl();
+        this.diskDirectory = cache.getDiskDirectory() == null || cache.getDiskDirectory().isBlank()
+            ? null
+            : Path.of(cache.getDiskDirectory());
+        this.maxDiskEntries = cache.getMaxDiskEntries();
+        int maxEntries = cache.getMaxEntries();
+        this.heap = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        if (diskDirectory != null) {
+            try {
+                Files.createDirectories(diskDirectory);
+                diskEntries.set(listEntryFiles().size());
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not create recipe cache directory " + diskDirectory, e);
+            }
+        }
+    }
+
+    /**
+     * Canonical form of the user input: case-folded, split into comma, semicolon or
+     * newline separated items, whitespace-collapsed and sorted. "Broccoli, Chicken, Rice"
+     * and "chicken, rice,  broccoli" therefore share one key.
+     */
+    public static String normalize(String ingredientsOrIdea) {
+        return Arrays.stream(ingredientsOrIdea.toLowerCase(Locale.ROOT).split("[,;\\n]+"))
+            .map(item -> item.trim().replaceAll("\\s+", " "))
+            .filter(item -> !item.isEmpty())
+            .sorted()
+            .distinct()
+            .collect(Collectors.joining(","));
+    }
+
+    public Optional<String> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Instant now = Instant.now();
+        heapLock.lock();
+        try {
+            Entry entry = heap.get(key);
+            if (entry != null) {
+                if (entry.expiresAt().isAfter(now)) {
+                    hits.increment();
+                    return Optional.of(entry.json());
+                }
+                heap.remove(key);
+                evictions.increment();
+            }
+        } finally {
+            heapLock.unlock();
+        }
+
+        Optional<String> fromDisk = readFromDisk(key, now);
+        if (fromDisk.isPresent()) {
+            hits.increment();
+            heapLock.lock();
+            try {
+                heap.put(key, new Entry(fromDisk.get(), now.plus(ttl)));
+            } finally {
+                heapLock.unlock();
+            }
+            return fromDisk;
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(String key, String json) {
+        if (!enabled) {
+            return;
+        }
+        heapLock.lock();
+        try {
+            heap.put(key, new Entry(json, Instant.now().plus(ttl)));
+        } finally {
+            heapLock.unlock();
+        }
+        writeToDisk(key, json);
+    }
+
+    public CacheStatsDto getStats() {
+        int heapEntries;
+        heapLock.lock();
+        try {
+            heapEntries = heap.size();
+        } finally {
+            heapLock.unlock();
+        }
+        return new CacheStatsDto(hits.sum(), misses.sum(), evictions.sum(), heapEntries, diskEntries.get());
+    }
+
+    /**
+     * Deletes the expired files of the disk tier, which reads only notice for the keys asked
+     * for again, and files of writes that never finished. Runs every
+     * {@code anthropic.cache.disk-sweep-interval}.
+     */
+    @Scheduled(initialDelayString = "${anthropic.cache.disk-sweep-interval:PT1H}",
+        fixedDelayString = "${anthropic.cache.disk-sweep-interval:PT1H}")
+    public void sweepDisk() {
+        if (diskDirectory == null) {
+            return;
+        }
+        Instant expiredBefore = Instant.now().minus(ttl);
+        diskLock.lock();
+        try {
+            int deleted = 0;
+            for (DiskFile file : listFiles("*.{json,tmp}")) {
+                if (file.modified().toInstant().isBefore(expiredBefore) && delete(file.path())) {
+                    deleted++;
+                }
+            }
+            diskEntries.set(listEntryFiles().size());
+            if (deleted > 0) {
+                evictions.add(deleted);
+                logger.info("Deleted {} expired recipe cache files", deleted);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not sweep recipe cache directory {}", diskDirectory, e);
+        } finally {
+            diskLock.unlock();
+        }
+    }
+
+    private Optional<String> readFromDisk(String key, Instant now) {
+        if (diskDirectory == null) {
+            return Optional.empty();
+        }
+        Path file = diskFile(key);
+        try {
+            if (!Files.exists(file)) {
+                return Optional.empty();
+            }
+            if (Files.getLastModifiedTime(file).toInstant().plus(ttl).isBefore(now)) {
+                if (delete(file)) {
+                    evictions.increment();
+                }
+                return Optional.empty();
+            }
+            return Optional.of(Files.readString(file, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warn("Could not read recipe cache file {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    private void writeToDisk(String key, String json) {
+        if (diskDirectory == null) {
+            return;
+        }
+        Path file = diskFile(key);
+        try {
+            // Write to a temporary file first so readers never see a partially written entry
+            Path temp = Files.createTempFile(diskDirectory, "recipe", ".tmp");
+            Files.writeString(temp, json, StandardCharsets.UTF_8);
+            boolean replaced = Files.exists(file);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (!replaced && diskEntries.incrementAndGet() > maxDiskEntries) {
+                trimDisk();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write recipe cache file {}", file, e);
+        }
+    }
+
+    /**
+     * Deletes the oldest files until a tenth of the limit is free again, so the directory is not
+     * listed on every write once it is full. A writer that finds another one trimming goes on.
+     */
+    private void trimDisk() {
+        if (!diskLock.tryLock()) {
+            return;
+        }
+        try {
+            List<DiskFile> files = listEntryFiles();
+            int keep = maxDiskEntries - maxDiskEntries / 10;
+            files.sort(Comparator.comparing(DiskFile::modified));
+            int deleted = 0;
+            for (DiskFile file : files.subList(0, Math.max(files.size() - keep, 0))) {
+                if (delete(file.path())) {
+                    deleted++;
+                }
+            }
+            diskEntries.set(files.size() - deleted);
+            evictions.add(deleted);
+        } catch (IOException e) {
+            logger.warn("Could not trim recipe cache directory {}", diskDirectory, e);
+        } finally {
+            diskLock.unlock();
+        }
+    }
+
+    private List<DiskFile> listEntryFiles() throws IOException {
+        return listFiles("*.json");
+    }
+
+    private List<DiskFile> listFiles(String glob) throws IOException {
+        List<DiskFile> files = new ArrayList<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(diskDirectory, glob)) {
+            for (Path path : paths) {
+                try {
+                    files.add(new DiskFile(path, Files.getLastModifiedTime(path)));
+                } catch (NoSuchFileException e) {
+                    // Deleted by a concurrent read of an expired entry
+                }
+            }
+        }
+        return files;
+    }
+
+    private boolean delete(Path file) throws IOException {
+        if (Files.deleteIfExists(file)) {
+            if (file.getFileName().toString().endsWith(".json")) {
+                diskEntries.decrementAndGet();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private Path diskFile(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return diskDirectory.resolve(HexFormat.of().formatHex(hash) + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Entry(String json, Instant expiresAt) {
+    }
+
+    private record DiskFile(Path path, FileTime modified) {
+    }
+}
@@ -1,27 +1,148 @@
 package ch.ilv.m295.airezept.service;
 
+import ch.ilv.m295.airezept.dto.CacheRegionStatsDto;
+import ch.ilv.m295.airezept.dto.CursorPageDto;
+import ch.ilv.m295.airezept.dto.PantryMatchDto;
+import ch.ilv.m295.airezept.dto.RecipePatchDto;
 import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.dto.RequestHistoryDto;
+import ch.ilv.m295.airezept.dto.RequestHistoryWriterStatsDto;
+import ch.ilv.m295.airezept.entity.NormalizedIngredient;
 import ch.ilv.m295.airezept.entity.Recipe;
 import ch.ilv.m295.airezept.entity.RequestHistory;
+import ch.ilv.m295.airezept.exception.InvalidPaginationException;
+import ch.ilv.m295.airezept.repository.IngredientIndex;
+import ch.ilv.m295.airezept.repository.NormalizedIngredientRepository;
 import ch.ilv.m295.airezept.repository.RecipeRepository;
+import ch.ilv.m295.airezept.repository.RecipeSearchIndex;
+import ch.ilv.m295.airezept.repository.RecipeSortField;
 import ch.ilv.m295.airezept.repository.RequestHistoryRepository;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class RecipeService {
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final RecipeRepository recipeRepository;
     private final RequestHistoryRepository requestHistoryRepository;
+    private final NormalizedIngredientRepository normalizedIngredientRepository;
+    private final RequestHistoryWriter requestHistoryWriter;
+    private final RecipeETagCache recipeETagCache;
+    private final EntityManagerFactory entityManagerFactory;
+    private final RecipeSearchIndex recipeSearchIndex;
+    private final IngredientIndex ingredientIndex;
 
+    /**
+     * Loads a page in a fixed number of statements, however large it is: the ids of the page,
+     * the total count, and the recipes with their ingredients. Paging over a fetch join directly
+     * would make Hibernate apply the limit in memory.
+     */
+    @Transactional(readOnly = true)
     public Page<Recipe> getAllRecipes(Pageable pageable) {
-        return recipeRepository.findAll(pageable);
+        Page<Long> ids = recipeRepository.findPageOfIds(pageable);
+        return new PageImpl<>(loadInOrder(ids.getContent()), pageable, ids.getTotalElements());
+    }
+
+    /**
+     * Keyset variant of {@link #getAllRecipes}: each page continues after the position encoded
+     * in {@code after}, so deep pages cost the same as the first one and no count query is run.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<Recipe> getRecipesAfter(String after, String sortBy, String direction, int size) {
+        checkPageSize(size);
+        RecipeSortField field = RecipeSortField.fromProperty(sortBy);
+        Sort.Direction sortDirection = Sort.Direction.fromOptionalString(direction)
+            .orElseThrow(() -> new InvalidPaginationException("Sort direction must be asc or desc"));
+
+        RecipeCursor cursor = null;
+        if (after != null && !after.isEmpty()) {
+            cursor = RecipeCursor.decode(after);
+            if (cursor.field() != field || cursor.direction() != sortDirection) {
+                throw new InvalidPaginationException("The cursor belongs to a listing with a different sort order");
+            }
+        }
+
+        // One extra row tells whether there is a next page
+        List<Long> ids = recipeRepository.findIdsAfter(field, sortDirection,
+            cursor != null ? cursor.value() : null, cursor != null ? cursor.id() : null, size + 1);
+        boolean hasNext = ids.size() > size;
+        List<Long> pageIds = hasNext ? ids.subList(0, size) : ids;
+
+        List<Recipe> recipes = loadInOrder(pageIds);
+        if (recipes.isEmpty() && !pageIds.isEmpty()) {
+            // Every recipe of the page was deleted in the meantime, so there is no row to continue
+            // after; reading the page again skips them
+            return getRecipesAfter(after, sortBy, direction, size);
+        }
+
+        CursorPageDto<Recipe> page = new CursorPageDto<>();
+        page.setContent(recipes);
+        page.setSize(recipes.size());
+        page.setHasNext(hasNext);
+        if (hasNext) {
+            // Continuing after the last recipe still there also skips any deleted after it
+            Recipe last = recipes.get(recipes.size() - 1);
+            page.setNextCursor(new RecipeCursor(field, sortDirection, field.valueOf(last), last.getId()).encode());
+        }
+        return page;
+    }
+
+    /**
+     * Full-text search over title, ingredients, description and instructions, best match first.
+     */
+    @Transactional(readOnly = true)
+    public List<Recipe> searchRecipes(String query, int limit) {
+        checkPageSize(limit);
+        return loadInOrder(recipeSearchIndex.search(query, limit));
+    }
+
+    /**
+     * Recipes that can be cooked from the pantry, the ones missing the fewest ingredients first.
+     * Pantry items are normalized like recipe ingredients, so "Eggs" finds recipes with "2 eggs".
+     */
+    @Transactional(readOnly = true)
+    public List<PantryMatchDto> findRecipesByIngredients(List<String> pantry, int limit) {
+        checkPageSize(limit);
+        List<String> names = pantry.stream()
+            .map(IngredientParser::canonicalName)
+            .filter(name -> !name.isEmpty())
+            .toList();
+        List<IngredientIndex.Match> matches = ingredientIndex.findByCoverage(names, limit);
+        List<Recipe> recipes = loadInOrder(matches.stream().map(IngredientIndex.Match::recipeId).toList());
+
+        List<PantryMatchDto> result = new ArrayList<>(matches.size());
+        for (int i = 0; i < matches.size(); i++) {
+            IngredientIndex.Match match = matches.get(i);
+            if (recipes.get(i) != null) {
+                result.add(new PantryMatchDto(recipes.get(i), match.matched(), match.total(),
+                    (double) match.matched() / match.total()));
+            }
+        }
+        return result;
     }
 
     public Recipe getRecipeById(Long id) {
@@ -29,8 +150,40 @@ public class RecipeService {
                 .orElseThrow(() -> new EntityNotFoundException("Recipe not found with id: " + id));
     }
 
-    public List<Recipe> getRecipesByUser(String userId) {
-        return recipeRepository.findByCreatedBy(userId);
+    /**
+     * The current ETag of a recipe, served from {@link RecipeETagCache} when possible.
+     */
+    public String getRecipeETag(Long id) {
+        return recipeETagCache.get(id, () -> recipeRepository.findUpdatedAtById(id)
+            .map(updatedAt -> RecipeETagCache.eTagOf(id, updatedAt))
+            .orElseThrow(() -> new EntityNotFoundException("Recipe not found with id: " + id)));
+    }
+
+    @Transactional(readOnly = true)
+    public RecipeDto getRecipeDtoById(Long id) {
+        return toDto(getRecipeById(id));
+    }
+
+    /**
+     * One page of a user's recipes, newest first. Returned as a slice, so no count query runs
+     * over everything the user has generated.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Recipe> getRecipesByUser(String userId, int page, int size) {
+        Pageable pageable = checkedPage(page, size);
+        Slice<Long> ids = recipeRepository.findSliceOfIdsByCreatedBy(userId, pageable);
+        return new SliceImpl<>(loadInOrder(ids.getContent()), pageable, ids.hasNext());
+    }
+
+    /**
+     * The generation requests of a user, newest first, one slice at a time. Each request comes
+     * with its recipe, joined in the same statement.
+     */
+    @Transactional(readOnly = true)
+    public Slice<RequestHistoryDto> getHistoryByUser(String userId, int page, int size) {
+        return requestHistoryRepository.findByUserIdOrderByRequestedAtDescIdDesc(userId, checkedPage(page, size))
+            .map(history -> new RequestHistoryDto(history.getId(), history.getUserInput(),
+                history.getGeneratedRecipe(), history.getRequestedAt()));
     }
 
     @Transactional
@@ -38,7 +191,67 @@ public class RecipeService {
         Recipe recipe = new Recipe();
         updateRecipeFromDto(recipe, recipeDto);
         recipe.setCreatedBy(userId);
-        return recipeRepository.save(recipe);
+        Recipe savedRecipe = recipeRepository.save(recipe);
+        indexRecipe(savedRecipe);
+        return savedRecipe;
+    }
+
+    /**
+     * Persists an AI-generated recipe in one short transaction; its request history is written
+     * behind, once the transaction has committed. The model call itself must happen before this,
+     * outside of any transaction.
+     */
+    @Transactional
+    public Recipe saveGeneratedRecipe(RecipeDto recipeDto, String userId, String userInput, String aiResponse) {
+        Recipe savedRecipe = createRecipe(recipeDto, userId);
+        requestHistoryWriter.write(userId, userInput, aiResponse, savedRecipe.getId());
+        return savedRecipe;
+    }
+
+    /**
+     * Persists several AI-generated recipes and their request histories in one transaction.
+     *
+     * @return the saved recipes, in the same order
+     */
+    @Transactional
+    public List<Recipe> saveGeneratedRecipes(List<GeneratedRecipe> generatedRecipes, String userId) {
+        List<Recipe> recipes = new ArrayList<>(generatedRecipes.size());
+        List<RequestHistory> histories = new ArrayList<>(generatedRecipes.size());
+        for (GeneratedRecipe generated : generatedRecipes) {
+            Recipe recipe = new Recipe();
+            updateRecipeFromDto(recipe, generated.recipe());
+            recipe.setCreatedBy(userId);
+            recipes.add(recipe);
+
+            RequestHistory requestHistory = new RequestHistory();
+            requestHistory.setUserId(userId);
+            requestHistory.setUserInput(generated.userInput());
+            requestHistory.setAiResponse(generated.aiResponse());
+            requestHistory.setGeneratedRecipe(recipe);
+            histories.add(requestHistory);
+        }
+
+        List<Recipe> savedRecipes = recipeRepository.saveAll(recipes);
+        requestHistoryRepository.saveAll(histories);
+        savedRecipes.forEach(this::indexRecipe);
+        return savedRecipes;
+    }
+
+    /**
+     * Persists several recipes in one transaction, e.g. one batch of an import.
+     */
+    @Transactional
+    public List<Recipe> createRecipes(List<RecipeDto> recipeDtos, String userId) {
+        List<Recipe> recipes = new ArrayList<>(recipeDtos.size());
+        for (RecipeDto recipeDto : recipeDtos) {
+            Recipe recipe = new Recipe();
+            updateRecipeFromDto(recipe, recipeDto);
+            recipe.setCreatedBy(userId);
+            recipes.add(recipe);
+        }
+        List<Recipe> savedRecipes = recipeRepository.saveAll(recipes);
+        savedRecipes.forEach(this::indexRecipe);
+        return savedRecipes;
     }
 
     @Transactional
@@ -48,29 +261,225 @@ public class RecipeService {
             throw new SecurityException("You can only update your own recipes");
         }
         updateRecipeFromDto(recipe, recipeDto);
-        return recipeRepository.save(recipe);
+        recipeETagCache.evictAfterCommit(id);
+        Recipe savedRecipe = recipeRepository.save(recipe);
+        indexRecipe(savedRecipe);
+        return savedRecipe;
     }
 
+    /**
+     * Changes only the fields present in the patch. Together with dynamic updates on
+     * {@link Recipe}, the SQL update contains just the changed columns, and nothing is written
+     * at all when the patch matches the stored recipe.
+     */
     @Transactional
-    public void deleteRecipe(Long id, String userId) {
+    public Recipe patchRecipe(Long id, RecipePatchDto patch, String userId) {
         Recipe recipe = getRecipeById(id);
+        if (!recipe.getCreatedBy().equals(userId)) {
+            throw new SecurityException("You can only update your own recipes");
+        }
+        if (patch.getVersion() != null && !patch.getVersion().equals(recipe.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Recipe.class, id);
+        }
+
+        boolean textChanged = false;
+        if (patch.getTitle() != null && !patch.getTitle().equals(recipe.getTitle())) {
+            recipe.setTitle(patch.getTitle());
+            textChanged = true;
+        }
+        if (patch.getDescription() != null && !patch.getDescription().equals(recipe.getDescription())) {
+            recipe.setDescription(patch.getDescription());
+            textChanged = true;
+        }
+        if (patch.getInstructions() != null && !patch.getInstructions().equals(recipe.getInstructions())) {
+            recipe.setInstructions(patch.getInstructions());
+            textChanged = true;
+        }
+        boolean ingredientsChanged = patch.getIngredients() != null && setIngredients(recipe, patch.getIngredients());
+        if (patch.getPreparationTime() != null) {
+            recipe.setPreparationTime(patch.getPreparationTime());
+        }
+        if (patch.getCookingTime() != null) {
+            recipe.setCookingTime(patch.getCookingTime());
+        }
+        if (patch.getServings() != null) {
+            recipe.setServings(patch.getServings());
+        }
+
+        recipeETagCache.evictAfterCommit(id);
+        if (textChanged || ingredientsChanged) {
+            recipeSearchIndex.index(recipe);
+        }
+        if (ingredientsChanged) {
+            ingredientIndex.index(id, ingredientNames(recipe));
+        }
+        return recipe;
+    }
+
+    @Transactional
+    public void deleteRecipe(Long id, String userId) {
+        if (deleteRecipes(List.of(id)) == 0) {
+            throw new EntityNotFoundException("Recipe not found with id: " + id);
+        }
+    }
+
+    /**
+     * Deletes recipes without loading them, with one statement per table: their normalized
+     * ingredients, then the recipes, whose request histories the database deletes with them.
+     * Histories still queued for writing are discarded. Ids without a recipe are ignored.
+     *
+     * @return the number of recipes deleted
+     */
+    @Transactional
+    public int deleteRecipes(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        normalizedIngredientRepository.deleteByRecipeIdIn(ids);
+        int deleted = recipeRepository.deleteByIdIn(ids);
+        requestHistoryWriter.discard(ids);
+        for (Long id : ids) {
+            recipeETagCache.evictAfterCommit(id);
+            recipeSearchIndex.remove(id);
+            ingredientIndex.remove(id);
+        }
+        return deleted;
+    }
+
+    /**
+     * Fills in the normalized ingredients of recipes saved before they existed, without
+     * touching anything else of the recipes.
+     */
+    @Transactional
+    public void normalizeIngredients(List<Long> recipeIds) {
+        for (Recipe recipe : recipeRepository.findAllByIdIn(recipeIds)) {
+            normalizeIngredients(recipe);
+        }
+    }
+
+    /**
+     * Hit, miss and put counters of the Hibernate second-level cache regions (recipes, their
+     * ingredients and the query cache), sorted by region name.
+     */
+    public List<CacheRegionStatsDto> getCacheRegionStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+            .sorted()
+            .map(region -> {
+                CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+                return new CacheRegionStatsDto(region, regionStatistics.getHitCount(), regionStatistics.getMissCount(),
+                    regionStatistics.getPutCount(), regionStatistics.getElementCountInMemory());
+            })
+            .toList();
+    }
+
+    public RequestHistoryWriterStatsDto getHistoryWriterStats() {
+        return requestHistoryWriter.getStats();
+    }
 
-        // Find and delete associated request history
-        List<RequestHistory> histories = requestHistoryRepository.findByGeneratedRecipe_Id(id);
-        if (histories != null && !histories.isEmpty()) {
-            requestHistoryRepository.deleteAll(histories);
+    // Loads recipes with their ingredients in one query and keeps the order of the ids. A recipe
+    // deleted since its id was read is left out, so a page can be shorter than requested.
+    private List<Recipe> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
         }
+        Map<Long, Recipe> recipesById = new HashMap<>();
+        for (Recipe recipe : recipeRepository.findAllByIdIn(ids)) {
+            recipesById.put(recipe.getId(), recipe);
+        }
+        List<Recipe> recipes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Recipe recipe = recipesById.get(id);
+            if (recipe != null) {
+                recipes.add(recipe);
+            }
+        }
+        return recipes;
+    }
 
-        recipeRepository.delete(recipe);
+    private Pageable checkedPage(int page, int size) {
+        if (page < 0) {
+            throw new InvalidPaginationException("Page number must not be negative");
+        }
+        checkPageSize(size);
+        return PageRequest.of(page, size);
     }
 
-    private void updateRecipeFromDto(Recipe recipe, RecipeDto dto) {
+    private void checkPageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidPaginationException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    // Package-private so the JMH benchmarks can measure it
+    void updateRecipeFromDto(Recipe recipe, RecipeDto dto) {
         recipe.setTitle(dto.getTitle());
         recipe.setDescription(dto.getDescription());
-        recipe.setIngredients(dto.getIngredients());
+        setIngredients(recipe, dto.getIngredients());
         recipe.setInstructions(dto.getInstructions());
         recipe.setPreparationTime(dto.getPreparationTime());
         recipe.setCookingTime(dto.getCookingTime());
         recipe.setServings(dto.getServings());
     }
-} 
\ No newline at end of file
+
+    // Unchanged ingredients are left alone, so they cause no writes and the normalized rows are not even loaded
+    private boolean setIngredients(Recipe recipe, List<String> ingredients) {
+        if (Objects.equals(recipe.getIngredients(), ingredients)) {
+            return false;
+        }
+        recipe.setIngredients(ingredients);
+        normalizeIngredients(recipe);
+        return true;
+    }
+
+    // Diffs the normalized ingredients by position: rows that parse the same are kept as they are,
+    // changed ones are updated in place, surplus ones are deleted through orphan removal
+    private void normalizeIngredients(Recipe recipe) {
+        List<NormalizedIngredient> normalized = recipe.getNormalizedIngredients();
+        List<String> ingredients = recipe.getIngredients();
+        int index = 0;
+        for (int position = 0; ingredients != null && position < ingredients.size(); position++) {
+            IngredientParser.ParsedIngredient parsed = IngredientParser.parse(ingredients.get(position));
+            if (parsed == null) {
+                continue;
+            }
+            NormalizedIngredient ingredient;
+            if (index < normalized.size()) {
+                ingredient = normalized.get(index);
+            } else {
+                ingredient = new NormalizedIngredient();
+                ingredient.setRecipe(recipe);
+                normalized.add(ingredient);
+            }
+            // Setting equal values leaves the entity clean, so Hibernate writes nothing for it
+            ingredient.setPosition(position);
+            ingredient.setQuantity(parsed.quantity());
+            ingredient.setUnit(parsed.unit());
+            ingredient.setName(parsed.name());
+            index++;
+        }
+        normalized.subList(index, normalized.size()).clear();
+    }
+
+    private void indexRecipe(Recipe recipe) {
+        recipeSearchIndex.index(recipe);
+        ingredientIndex.index(recipe.getId(), ingredientNames(recipe));
+    }
+
+    private static List<String> ingredientNames(Recipe recipe) {
+        return recipe.getNormalizedIngredients().stream().map(NormalizedIngredient::getName).toList();
+    }
+
+    private RecipeDto toDto(Recipe recipe) {
+        RecipeDto dto = new RecipeDto();
+        dto.setId(recipe.getId());
+        dto.setTitle(recipe.getTitle());
+        dto.setDescription(recipe.getDescription());
+        dto.setIngredients(new ArrayList<>(recipe.getIngredients()));
+        dto.setInstructions(recipe.getInstructions());
+        dto.setPreparationTime(recipe.getPreparationTime());
+        dto.setCookingTime(recipe.getCookingTime());
+        dto.setServings(recipe.getServings());
+        return dto;
+    }
+}
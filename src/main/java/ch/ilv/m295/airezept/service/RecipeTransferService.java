@@ -0,0 +1,286 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.RecipeProperties;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.dto.RecipeImportProgressDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Bulk import and export of recipes as NDJSON, one recipe per line. Both directions stream:
+ * an import holds one batch of recipes at a time and an export one fetch of rows, so memory
+ * does not depend on how many recipes are moved.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecipeTransferService {
+    private static final Logger logger = LoggerFactory.getLogger(RecipeTransferService.class);
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeService recipeService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final RecipeProperties recipeProperties;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Reads recipes line by line and saves them in transactions of
+     * {@code recipes.transfer.import-batch-size}. Invalid lines, and lines longer than
+     * {@code recipes.transfer.max-import-line-length}, are skipped and reported; a batch that fails
+     * to save is rolled back and reported as a whole, the import goes on with the next.
+     *
+     * @param progress called after every batch and once more at the end, with {@code done} set
+     * @return the final progress
+     */
+    public RecipeImportProgressDto importRecipes(InputStream ndjson, String userId,
+                                                 Consumer<RecipeImportProgressDto> progress) throws IOException {
+        RecipeProperties.Transfer transfer = recipeProperties.getTransfer();
+        ObjectReader reader = objectMapper.readerFor(RecipeDto.class);
+        ImportRun run = new ImportRun(transfer.getMaxImportErrors());
+        List<RecipeDto> batch = new ArrayList<>(transfer.getImportBatchSize());
+        long firstLineOfBatch = 0;
+
+        LineReader lines = new LineReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8),
+            transfer.getMaxImportLineLength());
+        String line;
+        while ((line = lines.readLine()) != null) {
+            run.lines++;
+            if (lines.isTooLong()) {
+                run.fail(1, "line " + run.lines + ": longer than " + transfer.getMaxImportLineLength() + " characters");
+                continue;
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            RecipeDto recipeDto = parse(reader, line, run);
+            if (recipeDto == null) {
+                continue;
+            }
+            if (batch.isEmpty()) {
+                firstLineOfBatch = run.lines;
+            }
+            batch.add(recipeDto);
+            if (batch.size() == transfer.getImportBatchSize()) {
+                save(batch, firstLineOfBatch, userId, run);
+                progress.accept(run.progress(false));
+            }
+        }
+        if (!batch.isEmpty()) {
+            save(batch, firstLineOfBatch, userId, run);
+        }
+
+        RecipeImportProgressDto result = run.progress(true);
+        progress.accept(result);
+        logger.info("Imported {} recipes from {} lines, {} failed", result.getImported(), result.getLines(), result.getFailed());
+        return result;
+    }
+
+    /**
+     * Writes every recipe as one line of JSON, in id order. Recipes are read from a database
+     * cursor and detached once written, so neither the persistence context nor the
+     * second-level cache fills up with the whole table.
+     *
+     * @return the number of recipes written
+     */
+    @Transactional(readOnly = true)
+    public long exportRecipes(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(Recipe.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // On the session rather than as a query hint: rows are loaded while the stream is consumed,
+        // after the query has run and restored the cache mode of the session
+        entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+        long exported = 0;
+        try (Stream<Recipe> recipes = recipeRepository.streamAllOrderById();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // Lines are separated by the newline below, not by the default space between root values
+            generator.setRootValueSeparator(null);
+            for (Recipe recipe : (Iterable<Recipe>) recipes::iterator) {
+                writer.writeValue(generator, recipe);
+                generator.writeRaw('\n');
+                entityManager.detach(recipe);
+                exported++;
+            }
+        }
+        logger.info("Exported {} recipes", exported);
+        return exported;
+    }
+
+    private RecipeDto parse(ObjectReader reader, String line, ImportRun run) {
+        RecipeDto recipeDto;
+        try {
+            recipeDto = reader.readValue(line);
+        } catch (JsonProcessingException e) {
+            run.fail(1, "line " + run.lines + ": invalid JSON, " + e.getOriginalMessage());
+            return null;
+        }
+        if (recipeDto == null) {
+            run.fail(1, "line " + run.lines + ": not a recipe");
+            return null;
+        }
+        Set<ConstraintViolation<RecipeDto>> violations = validator.validate(recipeDto);
+        if (!violations.isEmpty()) {
+            run.fail(1, "line " + run.lines + ": " + violations.stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .collect(Collectors.joining(", ")));
+            return null;
+        }
+        return recipeDto;
+    }
+
+    private void save(List<RecipeDto> batch, long firstLine, String userId, ImportRun run) {
+        try {
+            recipeService.createRecipes(batch, userId);
+            run.imported += batch.size();
+        } catch (RuntimeException e) {
+            logger.warn("Import batch from line {} failed", firstLine, e);
+            run.fail(batch.size(), "lines " + firstLine + "-" + run.lines + ": batch not saved, " + e.getMessage());
+        } finally {
+            // Each batch commits on its own, but an EntityManager bound around the import (open in
+            // view, a caller's transaction) would keep every saved recipe managed until the end,
+            // and flushes would dirty-check all of them
+            entityManager.clear();
+        }
+        batch.clear();
+    }
+
+    /**
+     * Reads lines like {@link java.io.BufferedReader#readLine()}, but keeps at most
+     * {@code maxLength} characters of a line, so one line without a line break cannot fill the
+     * heap. The rest of a longer line is read and dropped, and {@link #isTooLong()} reports it.
+     */
+    private static final class LineReader {
+        private final Reader in;
+        private final int maxLength;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean tooLong;
+
+        LineReader(Reader in, int maxLength) {
+            this.in = in;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * @return the next line without its line break, or {@code null} at the end of the input
+         */
+        String readLine() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(in.read(buffer), 0);
+                    position = 0;
+                    if (limit == 0) {
+                        return read ? finish() : null;
+                    }
+                }
+                read = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+                append(start, position);
+                if (position < limit) {
+                    position++;
+                    return finish();
+                }
+            }
+        }
+
+        boolean isTooLong() {
+            return tooLong;
+        }
+
+        private void append(int start, int end) {
+            // One character more than the limit, for the \r of a \r\n line break
+            int kept = Math.max(Math.min(maxLength + 1 - line.length(), end - start), 0);
+            line.append(buffer, start, kept);
+            if (kept < end - start) {
+                tooLong = true;
+            }
+        }
+
+        private String finish() {
+            int length = line.length();
+            if (length > 0 && line.charAt(length - 1) == '\r') {
+                line.setLength(length - 1);
+            }
+            if (line.length() > maxLength) {
+                tooLong = true;
+            }
+            return line.toString();
+        }
+    }
+
+    /**
+     * Counters of one import. Errors are handed out with the next progress line and listed up to
+     * a limit, so a file full of bad lines cannot fill the heap.
+     */
+    private static final class ImportRun {
+        private final int maxErrors;
+        private long lines;
+        private long imported;
+        private long failed;
+        private int listedErrors;
+        private List<String> errors = new ArrayList<>();
+
+        ImportRun(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void fail(int count, String error) {
+            failed += count;
+            if (listedErrors < maxErrors) {
+                errors.add(error);
+                listedErrors++;
+            }
+        }
+
+        RecipeImportProgressDto progress(boolean done) {
+            RecipeImportProgressDto progress = new RecipeImportProgressDto();
+            progress.setLines(lines);
+            progress.setImported(imported);
+            progress.setFailed(failed);
+            progress.setErrors(errors);
+            progress.setDone(done);
+            errors = new ArrayList<>();
+            return progress;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.RecipeProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keeps request_history small: requests older than {@code recipes.history.archive-after} are
+ * moved to request_history_archive, and archived ones older than
+ * {@code recipes.history.delete-after} are deleted. Rows are moved oldest first in batches of
+ * {@code recipes.history.retention-batch-size}, each in its own short transaction, so a large
+ * backlog never holds locks for long.
+ * <p>
+ * Each batch locks the rows it selects and skips rows another instance has locked already, so
+ * several instances can run the job at the same time without archiving a row twice.
+ */
+@Service
+public class RequestHistoryRetention {
+    private static final Logger logger = LoggerFactory.getLogger(RequestHistoryRetention.class);
+
+    private static final String OLDEST_REQUESTS =
+        "select id from request_history where requested_at < ? order by requested_at, id fetch first ? rows only"
+            + " for update skip locked";
+
+    private static final String ARCHIVE =
+        "insert into request_history_archive (id, user_id, user_input, ai_response, recipe_id, requested_at, archived_at)"
+            + " select id, user_id, user_input, ai_response, recipe_id, requested_at, :archivedAt"
+            + " from request_history where id in (:ids)";
+
+    private static final String OLDEST_ARCHIVED =
+        "select id from request_history_archive where requested_at < ? order by requested_at, id fetch first ? rows only"
+            + " for update skip locked";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RecipeProperties.History history;
+
+    public RequestHistoryRetention(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+                                   TransactionTemplate transactionTemplate, RecipeProperties recipeProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.history = recipeProperties.getHistory();
+    }
+
+    @Scheduled(initialDelayString = "${recipes.history.retention-interval:PT1H}",
+        fixedDelayString = "${recipes.history.retention-interval:PT1H}")
+    public void applyRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        int archived = archiveRequestedBefore(now.minus(history.getArchiveAfter()));
+        int deleted = deleteArchivedRequestedBefore(now.minus(history.getDeleteAfter()));
+        if (archived > 0 || deleted > 0) {
+            logger.info("Archived {} requests, deleted {} archived requests", archived, deleted);
+        }
+    }
+
+    /**
+     * Moves the requests made before the cutoff to the archive.
+     *
+     * @return the number of requests moved
+     */
+    public int archiveRequestedBefore(LocalDateTime cutoff) {
+        int batchSize = history.getRetentionBatchSize();
+        int total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> {
+                List<Long> ids = jdbcTemplate.queryForList(OLDEST_REQUESTS, Long.class, cutoff, batchSize);
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                MapSqlParameterSource params = new MapSqlParameterSource("ids", ids)
+                    .addValue("archivedAt", LocalDateTime.now());
+                namedJdbcTemplate.update(ARCHIVE, params);
+                return namedJdbcTemplate.update("delete from request_history where id in (:ids)", params);
+            });
+            total += moved;
+        } while (moved == batchSize);
+        return total;
+    }
+
+    /**
+     * Deletes the archived requests made before the cutoff.
+     *
+     * @return the number of requests deleted
+     */
+    public int deleteArchivedRequestedBefore(LocalDateTime cutoff) {
+        int batchSize = history.getRetentionBatchSize();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = jdbcTemplate.queryForList(OLDEST_ARCHIVED, Long.class, cutoff, batchSize);
+                return ids.isEmpty() ? 0
+                    : namedJdbcTemplate.update("delete from request_history_archive where id in (:ids)",
+                        new MapSqlParameterSource("ids", ids));
+            });
+            total += deleted;
+        } while (deleted == batchSize);
+        return total;
+    }
+}
@@ -0,0 +1,255 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.RecipeProperties;
+import ch.ilv.m295.airezept.dto.RequestHistoryWriterStatsDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.entity.RequestHistory;
+import ch.ilv.m295.airezept.repository.AfterCommit;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import ch.ilv.m295.airezept.repository.RequestHistoryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes request histories behind the request. A history is queued once the transaction that
+ * saved its recipe has committed, and a flusher thread inserts the queue in batches of
+ * {@code recipes.history.flush-batch-size}, at the latest {@code recipes.history.flush-interval}
+ * after the first history of a batch was queued.
+ * <p>
+ * The queue holds {@code recipes.history.buffer-capacity} histories. When it is full, a writer
+ * waits up to {@code recipes.history.enqueue-timeout} and then inserts its history itself, so
+ * generations slow down to the pace of the database instead of histories being lost. On
+ * shutdown the queue is drained before the data source closes.
+ * <p>
+ * Histories of recipes deleted before they were written are skipped: deleting recipes discards
+ * their queued histories, and a batch only inserts the histories whose recipe still exists.
+ */
+@Component
+public class RequestHistoryWriter implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(RequestHistoryWriter.class);
+
+    private final RequestHistoryRepository requestHistoryRepository;
+    private final RecipeRepository recipeRepository;
+    // Its own transactions, also when called after the commit of the recipe's transaction
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingHistory> queue;
+    private final int flushBatchSize;
+    private final Duration flushInterval;
+    private final Duration enqueueTimeout;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder writtenByCaller = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    public RequestHistoryWriter(RequestHistoryRepository requestHistoryRepository,
+                                RecipeRepository recipeRepository,
+                                PlatformTransactionManager transactionManager,
+                                RecipeProperties recipeProperties) {
+        RecipeProperties.History history = recipeProperties.getHistory();
+        this.requestHistoryRepository = requestHistoryRepository;
+        this.recipeRepository = recipeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queue = new ArrayBlockingQueue<>(history.getBufferCapacity());
+        this.flushBatchSize = history.getFlushBatchSize();
+        this.flushInterval = history.getFlushInterval();
+        this.enqueueTimeout = history.getEnqueueTimeout();
+    }
+
+    /**
+     * Writes the history of a generated recipe after the current transaction commits, or right
+     * away outside of one. A rolled-back recipe gets no history.
+     */
+    public void write(String userId, String userInput, String aiResponse, Long recipeId) {
+        PendingHistory history = new PendingHistory(userId, userInput, aiResponse, recipeId, LocalDateTime.now());
+        AfterCommit.run(() -> enqueue(history));
+    }
+
+    /**
+     * Discards the queued histories of recipes once the current transaction that deletes them
+     * has committed, or right away outside of one.
+     */
+    public void discard(Collection<Long> recipeIds) {
+        Set<Long> ids = Set.copyOf(recipeIds);
+        AfterCommit.run(() -> {
+            List<PendingHistory> discarded = new ArrayList<>();
+            queue.removeIf(history -> ids.contains(history.recipeId()) && discarded.add(history));
+            if (!discarded.isEmpty()) {
+                skipped.add(discarded.size());
+                logger.debug("Discarded {} queued request histories of deleted recipes", discarded.size());
+            }
+        });
+    }
+
+    public RequestHistoryWriterStatsDto getStats() {
+        long flushCount = flushes.sum();
+        return new RequestHistoryWriterStatsDto(queue.size(), queue.size() + queue.remainingCapacity(),
+            written.sum(), writtenByCaller.sum(), skipped.sum(), dropped.sum(), flushCount,
+            flushCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(flushNanos.sum() / flushCount),
+            TimeUnit.NANOSECONDS.toMillis(maxFlushNanos.get()));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushUntilStopped, "request-history-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Request history writer stopped, {} histories written", written.sum());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stops after the web server and the generation executors, so their last histories are drained too
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void enqueue(PendingHistory history) {
+        boolean queued = false;
+        if (running) {
+            try {
+                queued = queue.offer(history, enqueueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!queued) {
+            // Full or shut down: the caller pays for its own insert
+            writtenByCaller.increment();
+            flush(List.of(history));
+        }
+    }
+
+    private void flushUntilStopped() {
+        List<PendingHistory> batch = new ArrayList<>(flushBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                // Only stop() ends the flusher; whatever was collected is flushed below
+                Thread.interrupted();
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // Waits for a first history, then for more until the batch is full or the interval is over.
+    // Once stopped, takes what is queued without waiting.
+    private void collect(List<PendingHistory> batch) throws InterruptedException {
+        PendingHistory first = running ? queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS) : queue.poll();
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (batch.size() < flushBatchSize) {
+            long remaining = running ? deadline - System.nanoTime() : 0;
+            PendingHistory next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<PendingHistory> batch) {
+        long start = System.nanoTime();
+        try {
+            insert(batch);
+        } catch (RuntimeException e) {
+            // A recipe deleted between the check in insert and the insert itself, or a real
+            // failure; keep the others
+            logger.warn("Could not write {} request histories in one batch, writing them one by one", batch.size(), e);
+            for (PendingHistory history : batch) {
+                try {
+                    insert(List.of(history));
+                } catch (RuntimeException single) {
+                    dropped.increment();
+                    logger.warn("Dropped the request history of recipe {}", history.recipeId(), single);
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        flushes.increment();
+        flushNanos.add(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    private void insert(List<PendingHistory> batch) {
+        int inserted = transactionTemplate.execute(status -> {
+            Set<Long> existing = new HashSet<>(recipeRepository.findIdsForShareByIdIn(
+                batch.stream().map(PendingHistory::recipeId).toList()));
+            List<RequestHistory> histories = new ArrayList<>(batch.size());
+            for (PendingHistory pending : batch) {
+                if (!existing.contains(pending.recipeId())) {
+                    // Deleted after it was generated, an expected race with deleteRecipes
+                    skipped.increment();
+                    logger.debug("Skipped the request history of deleted recipe {}", pending.recipeId());
+                    continue;
+                }
+                RequestHistory history = new RequestHistory();
+                history.setUserId(pending.userId());
+                history.setUserInput(pending.userInput());
+                history.setAiResponse(pending.aiResponse());
+                history.setGeneratedRecipe(entityManager.getReference(Recipe.class, pending.recipeId()));
+                history.setRequestedAt(pending.requestedAt());
+                histories.add(history);
+            }
+            requestHistoryRepository.saveAll(histories);
+            return histories.size();
+        });
+        written.add(inserted);
+    }
+
+    private record PendingHistory(String userId, String userInput, String aiResponse, Long recipeId,
+                                  LocalDateTime requestedAt) {
+    }
+}
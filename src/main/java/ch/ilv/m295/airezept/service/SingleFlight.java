@@ -0,0 +1,57 @@
+package ch.ilv.m295.airezept.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into one execution. The first caller runs the
+ * supplier, every caller that arrives while it is running waits for and shares its result.
+ * The key is released on success and on failure, so the next call starts a fresh execution.
+ * Whatever the supplier throws, errors included, is handed to the waiting callers as well.
+ */
+public class SingleFlight<T> {
+    private final ConcurrentMap<String, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+
+    public T execute(String key, Supplier<T> supplier) {
+        CompletableFuture<T> own = new CompletableFuture<>();
+        CompletableFuture<T> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            return join(existing);
+        }
+
+        try {
+            T result = supplier.get();
+            own.complete(result);
+            return result;
+        } catch (Throwable t) {
+            // Not only RuntimeException: an Error or a sneakily thrown checked exception would
+            // otherwise leave the waiting callers blocked in join() for good
+            own.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /** Number of keys that currently have an execution in progress. */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package db.migration.common;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Turns request_history.ai_response from text into gzip-compressed UTF-8 bytes, the format
+ * CompressedTextConverter reads. The existing responses are compressed here in Java, since
+ * neither database can write gzip in SQL. The compression is written out here rather than
+ * calling the converter, so the migration keeps doing what it did when it was applied.
+ */
+public class V11__CompressRequestHistoryAiResponse extends BaseJavaMigration {
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table request_history add column ai_response_gzip bytea");
+        }
+
+        try (Statement select = connection.createStatement();
+             PreparedStatement update = connection.prepareStatement(
+                 "update request_history set ai_response_gzip = ? where id = ?")) {
+            select.setFetchSize(BATCH_SIZE);
+            try (ResultSet rows = select.executeQuery(
+                "select id, ai_response from request_history where ai_response is not null")) {
+                int pending = 0;
+                while (rows.next()) {
+                    update.setBytes(1, gzip(rows.getString(2)));
+                    update.setLong(2, rows.getLong(1));
+                    update.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        update.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    update.executeBatch();
+                }
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table request_history drop column ai_response");
+            statement.execute("alter table request_history rename column ai_response_gzip to ai_response");
+        }
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
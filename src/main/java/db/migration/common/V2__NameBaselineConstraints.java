@@ -0,0 +1,60 @@
+package db.migration.common;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Gives the constraints of the baseline schema the names of the later migrations. The baseline
+ * left the primary and unique keys to the database, which names them differently on PostgreSQL
+ * (recipe_pkey) and H2 (CONSTRAINT_8), and the foreign keys carry Hibernate's hashes; so the
+ * current names are looked up instead of written here.
+ */
+public class V2__NameBaselineConstraints extends BaseJavaMigration {
+    private static final String FIND_CONSTRAINT = """
+        select tc.constraint_name
+        from information_schema.table_constraints tc
+        join information_schema.key_column_usage kcu
+          on kcu.constraint_schema = tc.constraint_schema
+         and kcu.constraint_name = tc.constraint_name
+        where lower(tc.table_schema) = lower(?)
+          and lower(tc.table_name) = ?
+          and tc.constraint_type = ?
+          and lower(kcu.column_name) = ?
+        """;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        rename(connection, "recipe", "PRIMARY KEY", "id", "pk_recipe");
+        rename(connection, "request_history", "PRIMARY KEY", "id", "pk_request_history");
+        // One request generates at most one recipe; the unique index also serves lookups by recipe
+        rename(connection, "request_history", "UNIQUE", "recipe_id", "uk_request_history_recipe");
+        rename(connection, "request_history", "FOREIGN KEY", "recipe_id", "fk_request_history_recipe");
+    }
+
+    private static void rename(Connection connection, String table, String type, String column, String name)
+        throws Exception {
+        String current;
+        try (PreparedStatement select = connection.prepareStatement(FIND_CONSTRAINT)) {
+            select.setString(1, connection.getSchema());
+            select.setString(2, table);
+            select.setString(3, type);
+            select.setString(4, column);
+            try (ResultSet rows = select.executeQuery()) {
+                if (!rows.next()) {
+                    throw new IllegalStateException("No " + type + " on " + table + "." + column);
+                }
+                current = rows.getString(1);
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table " + table + " rename constraint \""
+                + current.replace("\"", "\"\"") + "\" to " + name);
+        }
+    }
+}
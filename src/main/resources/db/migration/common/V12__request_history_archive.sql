@@ -0,0 +1,20 @@
+-- Requests older than recipes.history.archive-after are moved here by RequestHistoryRetention,
+-- so request_history and its indexes only hold the recent ones. Rows are purged after
+-- recipes.history.delete-after.
+
+-- For archiving the oldest requests first
+create index idx_request_history_requested_at on request_history (requested_at, id);
+
+-- Same columns as request_history; recipe_id has no foreign key so archived requests
+-- do not keep recipes from being deleted
+create table request_history_archive (
+    id bigint not null,
+    user_id varchar(255) not null,
+    user_input text,
+    ai_response bytea,
+    recipe_id bigint,
+    requested_at timestamp(6) not null,
+    archived_at timestamp(6) not null,
+    constraint pk_request_history_archive primary key (id)
+);
+create index idx_request_history_archive_requested_at on request_history_archive (requested_at, id);
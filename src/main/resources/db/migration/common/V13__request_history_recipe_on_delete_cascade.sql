@@ -0,0 +1,8 @@
+-- Histories are written behind the request (RequestHistoryWriter), so one can be inserted while
+-- its recipe is being deleted. With the cascade the database deletes the histories together with
+-- the recipe, under the row lock of the recipe, instead of a separate delete that a history
+-- committed in between would make the recipe delete fail on.
+
+alter table request_history drop constraint fk_request_history_recipe;
+alter table request_history add constraint fk_request_history_recipe
+    foreign key (recipe_id) references recipe (id) on delete cascade;
@@ -0,0 +1,17 @@
+-- Offline batches of BatchGenerationService. Pending ones are collected by whichever instance
+-- polls first, also after a restart; items holds the per-idea result once the batch has completed.
+
+create table offline_batch (
+    id varchar(255) not null,
+    user_id varchar(255) not null,
+    ideas jsonb not null,
+    status varchar(255) not null,
+    items jsonb,
+    error text,
+    created_at timestamp(6) not null,
+    completed_at timestamp(6),
+    constraint pk_offline_batch primary key (id),
+    constraint ck_offline_batch_status check (status in ('RUNNING', 'COMPLETED', 'FAILED'))
+);
+-- The pending batches for the poller, oldest first
+create index idx_offline_batch_status_created_at on offline_batch (status, created_at);
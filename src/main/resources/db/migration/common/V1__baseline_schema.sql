@@ -0,0 +1,43 @@
+-- The schema of the last release without migrations, exactly as Hibernate created it there with
+-- ddl-auto: update on PostgreSQL. Those databases are baselined at version 1 and start with V2,
+-- so everything that changed since goes into a migration of its own, never into this file.
+-- Runs on H2 in PostgreSQL mode too (bigserial is an identity column there, text is varchar).
+
+create table recipe (
+    cooking_time integer,
+    preparation_time integer,
+    servings integer,
+    created_at timestamp(6) not null,
+    id bigserial not null,
+    updated_at timestamp(6) not null,
+    created_by varchar(255) not null,
+    description text,
+    instructions text,
+    title varchar(255) not null,
+    primary key (id)
+);
+
+create table recipe_ingredients (
+    recipe_id bigint not null,
+    ingredient varchar(255)
+);
+
+create table request_history (
+    id bigserial not null,
+    recipe_id bigint unique,
+    requested_at timestamp(6) not null,
+    ai_response text,
+    user_id varchar(255) not null,
+    user_input text,
+    primary key (id)
+);
+
+alter table if exists recipe_ingredients
+    add constraint FKhnsmvxdlwxqq6x2wbgnoef5gr
+    foreign key (recipe_id)
+    references recipe;
+
+alter table if exists request_history
+    add constraint FKe4pg3h1ljqgi4olrtnjtfkwe
+    foreign key (recipe_id)
+    references recipe;
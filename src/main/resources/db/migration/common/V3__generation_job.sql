@@ -0,0 +1,15 @@
+-- Generation jobs of JpaGenerationJobStore, shared by every instance of the application.
+-- recipe_id has no foreign key: a job keeps the id of its recipe after the recipe is deleted.
+
+create table generation_job (
+    id varchar(255) not null,
+    user_id varchar(255) not null,
+    user_input text,
+    status varchar(255) not null,
+    recipe_id bigint,
+    error text,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    constraint pk_generation_job primary key (id),
+    constraint ck_generation_job_status check (status in ('PENDING', 'RUNNING', 'COMPLETED', 'FAILED'))
+);
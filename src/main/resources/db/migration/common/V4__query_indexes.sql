@@ -0,0 +1,10 @@
+-- One index per cursor sort field (see RecipeSortField), leading with created_at for the
+-- newest-first listing. Descending because H2 cannot scan an index backwards.
+create index idx_recipe_created_at_id on recipe (created_at desc, id desc);
+create index idx_recipe_title_id on recipe (title, id);
+create index idx_recipe_cooking_time_id on recipe (cooking_time, id);
+-- "My recipes", newest first; also serves every other lookup by created_by
+create index idx_recipe_created_by_created_at on recipe (created_by, created_at desc, id desc);
+
+-- A user's history, newest first; also serves every other lookup by user_id
+create index idx_request_history_user_requested_at on request_history (user_id, requested_at desc, id desc);
@@ -0,0 +1,17 @@
+-- Ingredients parsed by IngredientParser into quantity, unit and name, one row per ingredient.
+-- bigserial like the baseline tables, so V10 moves all of them to sequences the same way.
+
+create table normalized_ingredient (
+    id bigserial not null,
+    recipe_id bigint not null,
+    position integer not null,
+    quantity double precision,
+    unit varchar(255),
+    name varchar(255) not null,
+    constraint pk_normalized_ingredient primary key (id),
+    constraint fk_normalized_ingredient_recipe foreign key (recipe_id) references recipe (id)
+);
+
+-- Pantry lookups by name, and loading or deleting the ingredients of a recipe
+create index idx_normalized_ingredient_name_recipe on normalized_ingredient (name, recipe_id);
+create index idx_normalized_ingredient_recipe on normalized_ingredient (recipe_id);
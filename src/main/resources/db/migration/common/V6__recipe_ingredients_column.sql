@@ -0,0 +1,4 @@
+-- The ingredients of a recipe as one jsonb array instead of a row each in recipe_ingredients.
+-- V7 copies the existing rows over; it needs the functions of the database to keep their order.
+
+alter table recipe add column ingredients jsonb;
@@ -0,0 +1,2 @@
+-- Optimistic locking of Recipe; existing rows start at version 0
+alter table recipe add column version bigint default 0 not null;
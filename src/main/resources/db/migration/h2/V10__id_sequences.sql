@@ -0,0 +1,17 @@
+-- The H2 version of postgresql/V10: bigserial is an identity column in H2, and the sequences
+-- are restarted after the existing rows instead of using setval.
+
+create sequence recipe_seq start with 1 increment by 50;
+alter sequence recipe_seq restart with (select coalesce(max(id), 0) + 1 from recipe);
+alter table recipe alter column id drop identity;
+alter table recipe alter column id set default nextval('recipe_seq');
+
+create sequence normalized_ingredient_seq start with 1 increment by 50;
+alter sequence normalized_ingredient_seq restart with (select coalesce(max(id), 0) + 1 from normalized_ingredient);
+alter table normalized_ingredient alter column id drop identity;
+alter table normalized_ingredient alter column id set default nextval('normalized_ingredient_seq');
+
+create sequence request_history_seq start with 1 increment by 50;
+alter sequence request_history_seq restart with (select coalesce(max(id), 0) + 1 from request_history);
+alter table request_history alter column id drop identity;
+alter table request_history alter column id set default nextval('request_history_seq');
@@ -0,0 +1,9 @@
+-- The H2 version of postgresql/V7: H2 has no ctid, _rowid_ keeps the insertion order instead.
+
+update recipe r set ingredients = coalesce(
+    (select json_arrayagg(i.ingredient order by i._rowid_)
+     from recipe_ingredients i
+     where i.recipe_id = r.id and i.ingredient is not null),
+    json '[]');
+
+drop table recipe_ingredients;
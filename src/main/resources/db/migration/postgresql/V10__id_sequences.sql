@@ -0,0 +1,22 @@
+-- Ids come from sequences with an increment of 50 instead of the bigserial ones, so Hibernate
+-- can batch inserts: with a database-generated id every insert has to run on its own to read
+-- the id back. Each nextval reserves a block of 50 ids (allocationSize of the entities,
+-- pooled-lo optimizer), so the increment here has to stay equal to it.
+-- The sequences start after the existing rows; with pooled-lo the next value is the first id
+-- of the next block, so it must not be taken yet. Rows inserted with plain SQL still get an id,
+-- the first of a block Hibernate never hands out.
+
+create sequence recipe_seq start with 1 increment by 50;
+select setval('recipe_seq', (select coalesce(max(id), 0) + 1 from recipe), false);
+alter table recipe alter column id set default nextval('recipe_seq');
+drop sequence recipe_id_seq;
+
+create sequence normalized_ingredient_seq start with 1 increment by 50;
+select setval('normalized_ingredient_seq', (select coalesce(max(id), 0) + 1 from normalized_ingredient), false);
+alter table normalized_ingredient alter column id set default nextval('normalized_ingredient_seq');
+drop sequence normalized_ingredient_id_seq;
+
+create sequence request_history_seq start with 1 increment by 50;
+select setval('request_history_seq', (select coalesce(max(id), 0) + 1 from request_history), false);
+alter table request_history alter column id set default nextval('request_history_seq');
+drop sequence request_history_id_seq;
@@ -0,0 +1,12 @@
+-- Copies the ingredients of recipe_ingredients into the jsonb column of V6 and drops the table,
+-- in the transaction of the migration, so a failed copy leaves the old table in place.
+-- The old table has no order column and no index: the baseline read it with a sequential scan,
+-- in ctid order, so that is the order its users saw and the order kept here.
+
+update recipe r set ingredients = coalesce(
+    (select jsonb_agg(i.ingredient order by i.ctid)
+     from recipe_ingredients i
+     where i.recipe_id = r.id and i.ingredient is not null),
+    '[]'::jsonb);
+
+drop table recipe_ingredients;
@@ -0,0 +1,13 @@
+-- Weighted tsvector for PostgresRecipeSearchIndex: title A, ingredients B, description C,
+-- instructions D, as ranked by ts_rank_cd. Not mapped in Recipe. A stored generated column,
+-- so PostgreSQL keeps it current on every insert and update, in the statement itself; the
+-- existing rows are computed when the column is added. Needs PostgreSQL 12.
+-- to_tsvector of the jsonb array indexes its strings, the ingredients.
+
+alter table recipe add column search_vector tsvector generated always as (
+    setweight(to_tsvector('simple', coalesce(title, '')), 'A')
+    || setweight(to_tsvector('simple', coalesce(ingredients, '[]'::jsonb)), 'B')
+    || setweight(to_tsvector('simple', coalesce(description, '')), 'C')
+    || setweight(to_tsvector('simple', coalesce(instructions, '')), 'D')) stored;
+
+create index idx_recipe_search_vector on recipe using gin (search_vector);
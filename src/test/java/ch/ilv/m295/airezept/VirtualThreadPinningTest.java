@@ -0,0 +1,156 @@
+package ch.ilv.m295.airezept;
+
+import ch.ilv.m295.airezept.config.AnthropicProperties;
+import ch.ilv.m295.airezept.config.BoundedVirtualThreadExecutor;
+import ch.ilv.m295.airezept.service.RecipeResponseCache;
+import ch.ilv.m295.airezept.service.SingleFlight;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the virtual thread mode against carrier pinning in our own code. The bytecode scan runs
+ * on every JDK; the JFR check needs Java 21 and records {@code jdk.VirtualThreadPinned} while the
+ * shared concurrency helpers are used from many virtual threads.
+ */
+class VirtualThreadPinningTest {
+
+    private static final String BASE_PACKAGE = "ch/ilv/m295/airezept";
+
+    @Test
+    void applicationCode_ShouldNotUseSynchronized() throws Exception {
+        // Arrange
+        List<String> monitors = new ArrayList<>();
+        Resource[] classes = new PathMatchingResourcePatternResolver()
+            .getResources("classpath*:" + BASE_PACKAGE + "/**/*.class");
+
+        // Act
+        for (Resource resource : classes) {
+            if (resource.getURL().toString().contains("test-classes")) {
+                continue;
+            }
+            try (InputStream in = resource.getInputStream()) {
+                new ClassReader(in).accept(new MonitorFinder(monitors), ClassReader.SKIP_DEBUG);
+            }
+        }
+
+        // Assert
+        assertTrue(classes.length > 0, "No application classes found");
+        assertEquals(List.of(), monitors, "Use a java.util.concurrent lock instead of synchronized");
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void sharedHelpersOnVirtualThreads_ShouldNotPin(@TempDir Path tempDir) throws Exception {
+        // Arrange
+        AnthropicProperties properties = new AnthropicProperties();
+        properties.getCache().setDiskDirectory(tempDir.resolve("cache").toString());
+        RecipeResponseCache cache = new RecipeResponseCache(properties);
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        BoundedVirtualThreadExecutor executor = new BoundedVirtualThreadExecutor("pinning-", 1000);
+        int tasks = 500;
+        CountDownLatch done = new CountDownLatch(tasks);
+
+        List<String> pinned = new ArrayList<>();
+        Path recordingFile = tempDir.resolve("pinning.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+
+            // Act
+            for (int i = 0; i < tasks; i++) {
+                String key = "key-" + (i % 10);
+                executor.execute(() -> {
+                    try {
+                        cache.put(key, "{}");
+                        cache.get(key);
+                        singleFlight.execute(key, () -> {
+                            sleep(5);
+                            return key;
+                        });
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+            if (event.getStackTrace() == null) {
+                continue;
+            }
+            for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                String type = frame.getMethod().getType().getName();
+                if (type.startsWith("ch.ilv.m295.airezept.")) {
+                    pinned.add(type + "." + frame.getMethod().getName());
+                    break;
+                }
+            }
+        }
+
+        // Assert
+        assertEquals(List.of(), pinned);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class MonitorFinder extends ClassVisitor {
+        private final List<String> monitors;
+        private String className;
+
+        MonitorFinder(List<String> monitors) {
+            super(Opcodes.ASM9);
+            this.monitors = monitors;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            className = name.replace('/', '.');
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            String method = className + "." + name;
+            if ((access & Opcodes.ACC_SYNCHRONIZED) != 0) {
+                monitors.add(method);
+            }
+            return new MethodVisitor(Opcodes.ASM9) {
+                @Override
+                public void visitInsn(int opcode) {
+                    if (opcode == Opcodes.MONITORENTER) {
+                        monitors.add(method);
+                    }
+                }
+            };
+        }
+    }
+}
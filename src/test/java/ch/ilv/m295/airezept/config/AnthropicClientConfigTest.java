@@ -0,0 +1,152 @@
+package ch.ilv.m295.airezept.config;
+
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.exception.GenerationQueueFullException;
+import ch.ilv.m295.airezept.service.AIRecipeService;
+import ch.ilv.m295.airezept.service.RecipeResponseCache;
+import ch.ilv.m295.airezept.service.RecipeService;
+import com.anthropic.backends.Backend;
+import com.anthropic.client.AnthropicClient;
+import com.anthropic.core.RequestOptions;
+import com.anthropic.core.http.HttpMethod;
+import com.anthropic.core.http.HttpRequest;
+import com.anthropic.core.http.HttpResponse;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AnthropicClientConfigTest {
+
+    private static final int GENERATIONS = 10;
+
+    private MockWebServer server;
+    private PooledAnthropicHttpClient httpClient;
+    private AIRecipeService aiRecipeService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+
+        AnthropicClientConfig config = new AnthropicClientConfig();
+        AnthropicProperties properties = StubAnthropicResponses.properties(server.url("/").toString());
+        httpClient = config.anthropicHttpClient(properties, new MockEnvironment());
+        AnthropicClient anthropicClient = config.anthropicClient(httpClient, properties);
+
+        RecipeService recipeService = mock(RecipeService.class);
+        Recipe saved = new Recipe();
+        saved.setId(1L);
+        when(recipeService.saveGeneratedRecipe(any(RecipeDto.class), anyString(), anyString(), anyString())).thenReturn(saved);
+
+        aiRecipeService = new AIRecipeService(recipeService, anthropicClient, new RecipeResponseCache(properties));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        server.shutdown();
+    }
+
+    @Test
+    void sequentialGenerations_ShouldReuseSingleConnection() throws InterruptedException {
+        // Arrange
+        for (int i = 0; i < GENERATIONS; i++) {
+            server.enqueue(StubAnthropicResponses.message(StubAnthropicResponses.recipeJson("Recipe " + i)));
+        }
+
+        // Act
+        for (int i = 0; i < GENERATIONS; i++) {
+            RecipeDto recipe = aiRecipeService.generateRecipe("chicken, rice, broccoli", "test-user");
+            assertEquals("Recipe " + i, recipe.getTitle());
+        }
+
+        // Assert - the sequence number is per connection, so a single TCP connection yields 0..N-1
+        for (int i = 0; i < GENERATIONS; i++) {
+            RecordedRequest request = server.takeRequest(1, TimeUnit.SECONDS);
+            assertNotNull(request);
+            assertEquals("/v1/messages", request.getPath());
+            assertEquals("test-key", request.getHeader("x-api-key"));
+            assertEquals(i, request.getSequenceNumber());
+        }
+        assertEquals(1, httpClient.connectionCount());
+    }
+
+    @Test
+    void execute_WhenNoConnectionFreesUp_ShouldFailAfterTheAcquireTimeout() throws IOException {
+        // Arrange - a single slot, held by a response that is never closed during the test
+        AnthropicProperties properties = StubAnthropicResponses.properties(server.url("/").toString());
+        properties.getClient().setMaxConcurrency(1);
+        properties.getClient().setAcquireTimeout(Duration.ofMillis(200));
+        server.enqueue(new MockResponse().setBody("{}"));
+        HttpRequest request = HttpRequest.builder().method(HttpMethod.GET).addPathSegments("v1", "models").build();
+
+        try (PooledAnthropicHttpClient pooled = new AnthropicClientConfig().anthropicHttpClient(properties, new MockEnvironment());
+             HttpResponse held = pooled.execute(request, RequestOptions.none())) {
+            // Act
+            long start = System.nanoTime();
+            GenerationQueueFullException exception = assertThrows(GenerationQueueFullException.class,
+                () -> pooled.execute(request, RequestOptions.none()));
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // Assert
+            assertEquals(200, held.statusCode());
+            assertEquals(Duration.ofMillis(200), exception.getRetryAfter());
+            assertTrue(waitedMillis >= 150 && waitedMillis < 5_000, "waited " + waitedMillis + "ms");
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void execute_WhenTheBackendFailsOnTheResponse_ShouldReleaseTheConnectionSlot() throws IOException {
+        // Arrange - a single slot and a backend that fails on the first response only
+        server.enqueue(new MockResponse().setBody("{}"));
+        server.enqueue(new MockResponse().setBody("{}"));
+        AtomicBoolean fail = new AtomicBoolean(true);
+        Backend backend = new Backend() {
+            @Override
+            public String baseUrl() {
+                return server.url("/").toString();
+            }
+
+            @Override
+            public HttpResponse prepareResponse(HttpResponse response) {
+                if (fail.getAndSet(false)) {
+                    throw new IllegalStateException("broken response");
+                }
+                return response;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        HttpRequest request = HttpRequest.builder().method(HttpMethod.GET).addPathSegments("v1", "models").build();
+
+        try (PooledAnthropicHttpClient pooled = new PooledAnthropicHttpClient(new OkHttpClient(), backend, 1,
+                Duration.ofMillis(200))) {
+            // Act
+            assertThrows(IllegalStateException.class, () -> pooled.execute(request, RequestOptions.none()));
+
+            // Assert - the slot is free again
+            try (HttpResponse response = pooled.execute(request, RequestOptions.none())) {
+                assertEquals(200, response.statusCode());
+            }
+        }
+    }
+}
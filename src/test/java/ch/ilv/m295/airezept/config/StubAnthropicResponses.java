@@ -0,0 +1,141 @@
+package ch.ilv.m295.airezept.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.mockwebserver.MockResponse;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Canned Messages API payloads for tests that run the real Anthropic client against a local stub server.
+ */
+public final class StubAnthropicResponses {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private StubAnthropicResponses() {
+    }
+
+    public static String recipeJson(String title) {
+        return """
+            {
+                "title": "%s",
+                "description": "A quick weeknight dinner",
+                "ingredients": ["200 g chicken", "150 g rice", "1 broccoli"],
+                "instructions": ["### Step 1: Prepare", "1. Chop everything", "", "### Step 2: Cook", "1. Cook it"],
+                "preparation_time": 10,
+                "cooking_time": 25,
+                "servings": 2
+            }
+            """.formatted(title);
+    }
+
+    public static MockResponse message(String text) {
+        return json(messageBody(text));
+    }
+
+    /** A Message Batches API batch object with the given processing status. */
+    public static MockResponse messageBatch(String id, String processingStatus) {
+        boolean ended = processingStatus.equals("ended");
+        Map<String, Object> batch = new HashMap<>();
+        batch.put("id", id);
+        batch.put("type", "message_batch");
+        batch.put("processing_status", processingStatus);
+        batch.put("request_counts", Map.of("processing", ended ? 0 : 1, "succeeded", ended ? 1 : 0,
+            "errored", 0, "canceled", 0, "expired", 0));
+        batch.put("created_at", "2024-01-01T12:00:00Z");
+        batch.put("expires_at", "2024-01-02T12:00:00Z");
+        batch.put("ended_at", ended ? "2024-01-01T12:30:00Z" : null);
+        batch.put("archived_at", null);
+        batch.put("cancel_initiated_at", null);
+        batch.put("results_url", ended ? "/v1/messages/batches/" + id + "/results" : null);
+        return json(batch);
+    }
+
+    /** Message Batches API results as JSON lines; a {@code null} text produces an errored result. */
+    public static MockResponse batchResults(Map<String, String> textByCustomId) {
+        try {
+            StringBuilder body = new StringBuilder();
+            for (Map.Entry<String, String> entry : textByCustomId.entrySet()) {
+                Map<String, Object> result = entry.getValue() != null
+                    ? Map.of("type", "succeeded", "message", messageBody(entry.getValue()))
+                    : Map.of("type", "errored", "error", Map.of("type", "error",
+                        "error", Map.of("type", "overloaded_error", "message", "Overloaded")));
+                body.append(MAPPER.writeValueAsString(Map.of("custom_id", entry.getKey(), "result", result))).append('\n');
+            }
+            return new MockResponse()
+                .setHeader("Content-Type", "application/binary")
+                .setBody(body.toString());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, Object> messageBody(String text) {
+        return Map.of(
+            "id", "msg_stub",
+            "type", "message",
+            "role", "assistant",
+            "model", "claude-3-7-sonnet-latest",
+            "content", List.of(Map.of("type", "text", "text", text)),
+            "stop_reason", "end_turn",
+            "usage", Map.of("input_tokens", 10, "output_tokens", 100)
+        );
+    }
+
+    private static MockResponse json(Map<String, ?> body) {
+        try {
+            return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(MAPPER.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** A streamed Messages API response that delivers {@code text} in deltas of {@code chunkSize} characters. */
+    public static MockResponse streamedMessage(String text, int chunkSize) {
+        try {
+            StringBuilder body = new StringBuilder();
+            appendEvent(body, "message_start", Map.of("type", "message_start", "message", Map.of(
+                "id", "msg_stub",
+                "type", "message",
+                "role", "assistant",
+                "model", "claude-3-7-sonnet-latest",
+                "content", List.of(),
+                "usage", Map.of("input_tokens", 10, "output_tokens", 1))));
+            appendEvent(body, "content_block_start", Map.of("type", "content_block_start", "index", 0,
+                "content_block", Map.of("type", "text", "text", "")));
+            for (int i = 0; i < text.length(); i += chunkSize) {
+                String chunk = text.substring(i, Math.min(text.length(), i + chunkSize));
+                appendEvent(body, "content_block_delta", Map.of("type", "content_block_delta", "index", 0,
+                    "delta", Map.of("type", "text_delta", "text", chunk)));
+            }
+            appendEvent(body, "content_block_stop", Map.of("type", "content_block_stop", "index", 0));
+            appendEvent(body, "message_delta", Map.of("type", "message_delta",
+                "delta", Map.of("stop_reason", "end_turn"), "usage", Map.of("output_tokens", 100)));
+            appendEvent(body, "message_stop", Map.of("type", "message_stop"));
+            return new MockResponse()
+                .setHeader("Content-Type", "text/event-stream")
+                .setBody(body.toString());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void appendEvent(StringBuilder body, String name, Map<String, ?> data) throws JsonProcessingException {
+        body.append("event: ").append(name).append('\n')
+            .append("data: ").append(MAPPER.writeValueAsString(data)).append("\n\n");
+    }
+
+    public static AnthropicProperties properties(String baseUrl) {
+        AnthropicProperties properties = new AnthropicProperties();
+        properties.getApi().setKey("test-key");
+        properties.getApi().setBaseUrl(baseUrl);
+        properties.getClient().setMaxRetries(0);
+        properties.getCache().setEnabled(false); // every generation must reach the stub server
+        return properties;
+    }
+}
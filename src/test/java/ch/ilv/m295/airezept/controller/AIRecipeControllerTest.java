@@ -1,19 +1,36 @@
 package ch.ilv.m295.airezept.controller;
 
+import ch.ilv.m295.airezept.config.AnthropicProperties;
+import ch.ilv.m295.airezept.dto.BatchGenerationDto;
+import ch.ilv.m295.airezept.dto.BatchGenerationRequestDto;
+import ch.ilv.m295.airezept.dto.GenerationJobDto;
 import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.JobStatus;
+import ch.ilv.m295.airezept.exception.GenerationQueueFullException;
 import ch.ilv.m295.airezept.service.AIRecipeService;
+import ch.ilv.m295.airezept.service.BatchGenerationService;
+import ch.ilv.m295.airezept.service.GenerationJobService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class AIRecipeControllerTest {
@@ -27,6 +44,18 @@ class AIRecipeControllerTest {
     @Mock
     private Jwt jwt;
 
+    @Mock
+    private GenerationJobService generationJobService;
+
+    @Mock
+    private BatchGenerationService batchGenerationService;
+
+    @Mock
+    private ThreadPoolTaskExecutor aiStreamExecutor;
+
+    @Spy
+    private AnthropicProperties anthropicProperties = new AnthropicProperties();
+
     @InjectMocks
     private AIRecipeController aiRecipeController;
 
@@ -44,15 +73,15 @@ class AIRecipeControllerTest {
         
         when(authentication.getPrincipal()).thenReturn(jwt);
         when(jwt.getSubject()).thenReturn(userId);
-        when(aiRecipeService.generateRecipe(anyString(), anyString())).thenReturn(expectedRecipe);
+        when(aiRecipeService.generateRecipe(anyString(), anyString(), anyBoolean())).thenReturn(expectedRecipe);
 
         // Act
-        ResponseEntity<RecipeDto> response = aiRecipeController.generateRecipe(ingredients, authentication);
+        ResponseEntity<RecipeDto> response = aiRecipeController.generateRecipe(ingredients, true, authentication);
 
         // Assert
         assertNotNull(response);
         assertEquals(expectedRecipe, response.getBody());
-        verify(aiRecipeService, times(1)).generateRecipe(ingredients, userId);
+        verify(aiRecipeService, times(1)).generateRecipe(ingredients, userId, true);
     }
 
     @Test
@@ -62,7 +91,7 @@ class AIRecipeControllerTest {
 
         // Act & Assert
         assertThrows(SecurityException.class, () -> {
-            aiRecipeController.generateRecipe(ingredients, null);
+            aiRecipeController.generateRecipe(ingredients, true, null);
         });
     }
 
@@ -74,7 +103,130 @@ class AIRecipeControllerTest {
 
         // Act & Assert
         assertThrows(SecurityException.class, () -> {
-            aiRecipeController.generateRecipe(ingredients, authentication);
+            aiRecipeController.generateRecipe(ingredients, true, authentication);
         });
     }
-} 
\ No newline at end of file
+
+    @Test
+    void generateRecipeStream_WithValidAuthentication_ShouldStreamOnExecutor() {
+        // Arrange
+        String ingredients = "chicken, rice, vegetables";
+        String userId = "test-user";
+        when(authentication.getPrincipal()).thenReturn(jwt);
+        when(jwt.getSubject()).thenReturn(userId);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(aiStreamExecutor).execute(any(Runnable.class));
+        when(aiRecipeService.generateRecipeStreaming(anyString(), anyString(), anyBoolean(), any())).thenReturn(new RecipeDto());
+
+        // Act
+        SseEmitter emitter = aiRecipeController.generateRecipeStream(ingredients, true, authentication);
+
+        // Assert
+        assertNotNull(emitter);
+        verify(aiStreamExecutor, times(1)).execute(any(Runnable.class));
+        verify(aiRecipeService, times(1)).generateRecipeStreaming(eq(ingredients), eq(userId), eq(true), any());
+    }
+
+    @Test
+    void generateRecipeStream_WithNullAuthentication_ShouldThrowSecurityException() {
+        // Act & Assert
+        assertThrows(SecurityException.class, () -> {
+            aiRecipeController.generateRecipeStream("chicken", true, null);
+        });
+        verifyNoInteractions(aiStreamExecutor);
+    }
+
+    @Test
+    void generateRecipeStream_WhenExecutorIsFull_ShouldThrowGenerationQueueFullException() {
+        // Arrange
+        when(authentication.getPrincipal()).thenReturn(jwt);
+        when(jwt.getSubject()).thenReturn("test-user");
+        doThrow(new TaskRejectedException("full")).when(aiStreamExecutor).execute(any(Runnable.class));
+
+        // Act & Assert
+        assertThrows(GenerationQueueFullException.class, () -> {
+            aiRecipeController.generateRecipeStream("chicken", true, authentication);
+        });
+    }
+
+    @Test
+    void submitJob_WithValidAuthentication_ShouldReturnAccepted() {
+        // Arrange
+        GenerationJobDto job = new GenerationJobDto();
+        job.setId("job-1");
+        job.setStatus(JobStatus.PENDING);
+        when(authentication.getPrincipal()).thenReturn(jwt);
+        when(jwt.getSubject()).thenReturn("test-user");
+        when(generationJobService.submitJob("chicken", "test-user")).thenReturn(job);
+
+        // Act
+        ResponseEntity<GenerationJobDto> response = aiRecipeController.submitJob("chicken", authentication);
+
+        // Assert
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("/api/ai/recipes/jobs/job-1", response.getHeaders().getLocation().toString());
+        assertEquals(job, response.getBody());
+    }
+
+    @Test
+    void getJob_WithValidAuthentication_ShouldReturnJob() {
+        // Arrange
+        GenerationJobDto job = new GenerationJobDto();
+        job.setId("job-1");
+        job.setStatus(JobStatus.RUNNING);
+        when(authentication.getPrincipal()).thenReturn(jwt);
+        when(jwt.getSubject()).thenReturn("test-user");
+        when(generationJobService.getJob("job-1", "test-user")).thenReturn(job);
+
+        // Act
+        ResponseEntity<GenerationJobDto> response = aiRecipeController.getJob("job-1", authentication);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(JobStatus.RUNNING, response.getBody().getStatus());
+    }
+
+    @Test
+    void generateBatch_WithValidAuthentication_ShouldReturnResults() {
+        // Arrange
+        BatchGenerationRequestDto request = new BatchGenerationRequestDto();
+        request.setIdeas(List.of("pasta", "soup"));
+        BatchGenerationDto batch = new BatchGenerationDto();
+        batch.setStatus(JobStatus.COMPLETED);
+        batch.setSucceeded(2);
+        when(authentication.getPrincipal()).thenReturn(jwt);
+        when(jwt.getSubject()).thenReturn("test-user");
+        when(batchGenerationService.generateBatch(List.of("pasta", "soup"), "test-user", true)).thenReturn(batch);
+
+        // Act
+        ResponseEntity<BatchGenerationDto> response = aiRecipeController.generateBatch(request, true, false, authentication);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(batch, response.getBody());
+        verify(batchGenerationService, never()).submitOfflineBatch(any(), anyString());
+    }
+
+    @Test
+    void generateBatch_Offline_ShouldReturnAccepted() {
+        // Arrange
+        BatchGenerationRequestDto request = new BatchGenerationRequestDto();
+        request.setIdeas(List.of("pasta"));
+        BatchGenerationDto batch = new BatchGenerationDto();
+        batch.setId("msgbatch_1");
+        batch.setStatus(JobStatus.RUNNING);
+        when(authentication.getPrincipal()).thenReturn(jwt);
+        when(jwt.getSubject()).thenReturn("test-user");
+        when(batchGenerationService.submitOfflineBatch(List.of("pasta"), "test-user")).thenReturn(batch);
+
+        // Act
+        ResponseEntity<BatchGenerationDto> response = aiRecipeController.generateBatch(request, true, true, authentication);
+
+        // Assert
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("/api/ai/recipes/generate/batch/msgbatch_1", response.getHeaders().getLocation().toString());
+        verify(batchGenerationService, never()).generateBatch(any(), anyString(), anyBoolean());
+    }
+}
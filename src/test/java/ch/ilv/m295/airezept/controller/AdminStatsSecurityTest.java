@@ -0,0 +1,58 @@
+package ch.ilv.m295.airezept.controller;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The operational statistics endpoints are for admins only. They are guarded by URL rules in
+ * SecurityConfig, since the {@code @PreAuthorize} on them has no effect without method security.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class AdminStatsSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void getAiCacheStats_ShouldRequireAdminRole() throws Exception {
+        assertAdminOnly("/api/ai/recipes/cache/stats");
+    }
+
+    @Test
+    void getRecipeCacheRegionStats_ShouldRequireAdminRole() throws Exception {
+        assertAdminOnly("/api/recipes/cache/stats");
+    }
+
+    @Test
+    void getHistoryWriterStats_ShouldRequireAdminRole() throws Exception {
+        assertAdminOnly("/api/recipes/history/stats");
+    }
+
+    private void assertAdminOnly(String path) throws Exception {
+        mockMvc.perform(get(path))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(get(path).with(jwt()))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(get(path).with(admin()))
+            .andExpect(status().isOk());
+    }
+
+    private static RequestPostProcessor admin() {
+        return jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"));
+    }
+}
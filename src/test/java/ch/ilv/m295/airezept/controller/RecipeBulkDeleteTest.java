@@ -0,0 +1,167 @@
+package ch.ilv.m295.airezept.controller;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.IngredientIndex;
+import ch.ilv.m295.airezept.repository.NormalizedIngredientRepository;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import ch.ilv.m295.airezept.repository.RecipeSearchIndex;
+import ch.ilv.m295.airezept.repository.RequestHistoryRepository;
+import ch.ilv.m295.airezept.service.GeneratedRecipe;
+import ch.ilv.m295.airezept.service.RecipeService;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Deletes recipes in bulk through {@code DELETE /api/recipes}, with a batch size of two to see
+ * every batch, and checks that no recipe, ingredient or history is loaded to delete it.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:recipebulkdelete;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.show-sql=false",
+    "recipes.moderation.delete-batch-size=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class RecipeBulkDeleteTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private NormalizedIngredientRepository normalizedIngredientRepository;
+
+    @Autowired
+    private RequestHistoryRepository requestHistoryRepository;
+
+    @Autowired
+    private RecipeSearchIndex recipeSearchIndex;
+
+    @Autowired
+    private IngredientIndex ingredientIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        recipeService.deleteRecipes(recipeRepository.findAll().stream().map(Recipe::getId).toList());
+    }
+
+    @Test
+    void deleteRecipes_ByCreatedBy_ShouldDeleteEveryRecipeOfTheUserInBatches() throws Exception {
+        // Arrange
+        List<Long> spam = generate("spammer", 5);
+        Long kept = recipeService.createRecipe(recipeDto("Bread"), "test-user").getId();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        mockMvc.perform(delete("/api/recipes").param("createdBy", "spammer").with(admin()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.deleted").value(5));
+        long statements = statistics.getPrepareStatementCount();
+        long loads = statistics.getEntityLoadCount() + statistics.getCollectionLoadCount();
+
+        // Assert
+        // Batches of 2, 2 and 1: each one select of ids, one delete of the normalized ingredients
+        // and one of the recipes, which takes their histories along; nothing loaded
+        assertEquals(3 * 3, statements);
+        assertEquals(0, loads);
+        assertEquals(List.of(kept), recipeRepository.findAll().stream().map(Recipe::getId).toList());
+        assertEquals(0, requestHistoryRepository.count());
+        assertTrue(normalizedIngredientRepository.findAll().stream()
+            .allMatch(ingredient -> ingredient.getRecipe().getId().equals(kept)));
+        // Gone from the in-memory indexes as well
+        assertTrue(recipeSearchIndex.search("spam", 10).stream().noneMatch(spam::contains));
+        assertTrue(ingredientIndex.findByCoverage(List.of("water"), 10).stream()
+            .noneMatch(match -> spam.contains(match.recipeId())));
+    }
+
+    @Test
+    void deleteRecipes_ByIds_ShouldSkipUnknownIds() throws Exception {
+        // Arrange
+        List<Long> ids = generate("test-user", 4);
+
+        // Act
+        mockMvc.perform(delete("/api/recipes").param("ids", ids.get(0) + "," + ids.get(2) + ",-1," + ids.get(0))
+                .with(admin()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.deleted").value(2));
+
+        // Assert
+        assertEquals(List.of(ids.get(1), ids.get(3)),
+            recipeRepository.findAll().stream().map(Recipe::getId).sorted().toList());
+        assertEquals(2, requestHistoryRepository.count());
+    }
+
+    @Test
+    void deleteRecipes_WithoutAdminRoleOrFilter_ShouldBeRejected() throws Exception {
+        // Arrange
+        generate("spammer", 1);
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/recipes").param("createdBy", "spammer").with(jwt()))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/recipes").param("createdBy", "spammer"))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(delete("/api/recipes").with(admin()))
+            .andExpect(status().isBadRequest());
+        assertEquals(1, recipeRepository.count());
+    }
+
+    @Test
+    void deleteRecipe_WithUnknownId_ShouldStillBeNotFound() {
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> recipeService.deleteRecipe(-1L, "test-user"));
+    }
+
+    private List<Long> generate(String userId, int count) {
+        List<GeneratedRecipe> generated = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            generated.add(new GeneratedRecipe("spam " + i, "{}", recipeDto("Spam " + i)));
+        }
+        return recipeService.saveGeneratedRecipes(generated, userId).stream().map(Recipe::getId).toList();
+    }
+
+    private static RequestPostProcessor admin() {
+        return jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"));
+    }
+
+    private static RecipeDto recipeDto(String title) {
+        RecipeDto dto = new RecipeDto();
+        dto.setTitle(title);
+        dto.setIngredients(new ArrayList<>(List.of("1 l water", "1 tsp salt")));
+        dto.setInstructions("Cook");
+        return dto;
+    }
+}
@@ -0,0 +1,145 @@
+package ch.ilv.m295.airezept.controller;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.NormalizedIngredient;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.NormalizedIngredientRepository;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import ch.ilv.m295.airezept.service.RecipeService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Stores recipes through {@link RecipeService} and ranks them with
+ * {@code GET /api/recipes/by-ingredients} against different pantries.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:recipebyingredients;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class RecipeByIngredientsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private NormalizedIngredientRepository normalizedIngredientRepository;
+
+    @AfterEach
+    void tearDown() {
+        recipeRepository.findAll().forEach(recipe -> recipeService.deleteRecipe(recipe.getId(), "test-user"));
+    }
+
+    @Test
+    void createRecipe_ShouldStoreNormalizedIngredients() {
+        // Act
+        Recipe recipe = create("Pancakes", "200 g Flour", "2 eggs", "300 ml milk");
+
+        // Assert
+        List<NormalizedIngredient> stored = normalizedIngredientRepository.findAll().stream()
+            .filter(ingredient -> ingredient.getRecipe().getId().equals(recipe.getId()))
+            .sorted(Comparator.comparingInt(NormalizedIngredient::getPosition))
+            .toList();
+        assertEquals(List.of("flour", "egg", "milk"), stored.stream().map(NormalizedIngredient::getName).toList());
+        assertEquals(List.of("g", "ml"), stored.stream().map(NormalizedIngredient::getUnit).filter(unit -> unit != null).toList());
+        assertEquals(200.0, stored.get(0).getQuantity());
+    }
+
+    @Test
+    void getRecipesByIngredients_ShouldRankByPantryCoverage() throws Exception {
+        // Arrange
+        Recipe pancakes = create("Pancakes", "200 g flour", "2 eggs", "300 ml milk");
+        Recipe omelette = create("Omelette", "3 eggs", "1 tbsp butter");
+        Recipe quiche = create("Quiche", "200 g flour", "3 eggs", "100 g butter", "200 g bacon");
+        create("Salad", "1 lettuce", "2 tomatoes");
+
+        // Act
+        JsonNode matches = byIngredients("have", "Eggs,flour,milk,butter");
+
+        // Assert
+        assertEquals(3, matches.size());
+        assertEquals(pancakes.getId(), matches.get(0).get("recipe").get("id").asLong());
+        assertEquals(omelette.getId(), matches.get(1).get("recipe").get("id").asLong());
+        assertEquals(quiche.getId(), matches.get(2).get("recipe").get("id").asLong());
+        assertEquals(3, matches.get(2).get("matchedIngredients").asInt());
+        assertEquals(4, matches.get(2).get("totalIngredients").asInt());
+        assertEquals(0.75, matches.get(2).get("coverage").asDouble());
+    }
+
+    @Test
+    void getRecipesByIngredients_ShouldFollowUpdatesAndDeletes() throws Exception {
+        // Arrange
+        Recipe recipe = create("Lemonade", "3 lemons", "1 l water");
+
+        // Act
+        recipeService.updateRecipe(recipe.getId(), toDto("Limeade", "3 limes", "1 l water"), "test-user");
+        JsonNode byLemon = byIngredients("have", "lemon");
+        JsonNode byLime = byIngredients("have", "lime");
+        recipeService.deleteRecipe(recipe.getId(), "test-user");
+        JsonNode afterDelete = byIngredients("have", "lime");
+
+        // Assert
+        assertEquals(0, byLemon.size());
+        assertEquals(1, byLime.size());
+        assertEquals(0, afterDelete.size());
+        assertEquals(0, normalizedIngredientRepository.count());
+    }
+
+    @Test
+    void getRecipesByIngredients_WithEmptyPantry_ShouldReturnBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/recipes/by-ingredients").param("have", ""))
+            .andExpect(status().isBadRequest());
+    }
+
+    private Recipe create(String title, String... ingredients) {
+        return recipeService.createRecipe(toDto(title, ingredients), "test-user");
+    }
+
+    private RecipeDto toDto(String title, String... ingredients) {
+        RecipeDto dto = new RecipeDto();
+        dto.setTitle(title);
+        dto.setIngredients(new ArrayList<>(List.of(ingredients)));
+        dto.setInstructions("Cook it");
+        dto.setPreparationTime(10);
+        dto.setCookingTime(20);
+        dto.setServings(2);
+        return dto;
+    }
+
+    private JsonNode byIngredients(String name, String value) throws Exception {
+        String body = mockMvc.perform(get("/api/recipes/by-ingredients").param(name, value))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
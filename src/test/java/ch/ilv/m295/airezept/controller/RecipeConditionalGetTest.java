@@ -0,0 +1,288 @@
+package ch.ilv.m295.airezept.controller;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import ch.ilv.m295.airezept.service.RecipeETagCache;
+import ch.ilv.m295.airezept.service.RecipeService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional GETs of recipes: ETags, 304 answers that do not load the recipe, invalidation
+ * after updates and deletes, and a replayed request log comparing clients with and without
+ * If-None-Match.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:conditionalget;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN",
+    "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class RecipeConditionalGetTest {
+    private static final Logger logger = LoggerFactory.getLogger(RecipeConditionalGetTest.class);
+
+    private static final int RECIPES = 40;
+    private static final int LOGGED_REQUESTS = 3000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeETagCache recipeETagCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < RECIPES; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle("Recipe " + i);
+            recipe.setDescription("A hearty dish that takes its time, number " + i);
+            recipe.setIngredients(new ArrayList<>(List.of("2 onions", "1 kg potatoes", "200 g cheese", "Salt " + i)));
+            recipe.setInstructions("1. Peel everything\n2. Layer it in a dish\n3. Bake for an hour");
+            recipe.setPreparationTime(20);
+            recipe.setCookingTime(60);
+            recipe.setServings(4);
+            recipe.setCreatedBy("test-user");
+            recipes.add(recipe);
+        }
+        ids = recipeRepository.saveAll(recipes).stream().map(Recipe::getId).toList();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void getRecipeById_ShouldReturnStrongETagAndCacheControl() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/recipes/{id}", ids.get(0)))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"" + ids.get(0) + "-")))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"));
+    }
+
+    @Test
+    void getRecipeById_WithMatchingETag_ShouldReturnNotModifiedWithoutLoadingRecipe() throws Exception {
+        // Arrange
+        Long id = ids.get(0);
+        String eTag = fetch(get("/api/recipes/{id}", id)).getHeader(HttpHeaders.ETAG);
+        recipeETagCache.evict(id);
+        statistics.clear();
+
+        // Act
+        MockHttpServletResponse cold = fetch(get("/api/recipes/{id}", id).header(HttpHeaders.IF_NONE_MATCH, eTag));
+        long coldStatements = statistics.getPrepareStatementCount();
+        MockHttpServletResponse warm = fetch(get("/api/recipes/{id}", id).header(HttpHeaders.IF_NONE_MATCH, eTag));
+
+        // Assert
+        assertEquals(304, cold.getStatus());
+        assertEquals(304, warm.getStatus());
+        assertEquals(0, warm.getContentLength());
+        assertEquals(eTag, warm.getHeader(HttpHeaders.ETAG));
+        assertEquals("no-cache, public", warm.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals(1, coldStatements, "A cold revalidation reads only the version of the recipe");
+        assertEquals(1, statistics.getPrepareStatementCount(), "A warm revalidation does not touch the database");
+        assertEquals(0, statistics.getCollectionFetchCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getRecipeById_AfterUpdate_ShouldReturnNewVersion() throws Exception {
+        // Arrange
+        Long id = ids.get(0);
+        String eTag = fetch(get("/api/recipes/{id}", id)).getHeader(HttpHeaders.ETAG);
+
+        // Act
+        recipeService.updateRecipe(id, recipeDto("Updated recipe"), "test-user");
+
+        // Assert
+        mockMvc.perform(get("/api/recipes/{id}", id).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+            .andExpect(jsonPath("$.title").value("Updated recipe"));
+    }
+
+    @Test
+    void getRecipeById_AfterDelete_ShouldReturnNotFound() throws Exception {
+        // Arrange
+        Long id = ids.get(0);
+        String eTag = fetch(get("/api/recipes/{id}", id)).getHeader(HttpHeaders.ETAG);
+
+        // Act
+        recipeService.deleteRecipe(id, "test-user");
+
+        // Assert
+        mockMvc.perform(get("/api/recipes/{id}", id).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getAllRecipes_WithMatchingETag_ShouldReturnNotModified() throws Exception {
+        // Arrange
+        MockHttpServletResponse first = fetch(get("/api/recipes"));
+        String eTag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        assertEquals("no-cache, public", first.getHeader(HttpHeaders.CACHE_CONTROL));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/recipes").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+    }
+
+    /**
+     * Replays the same request log, mostly popular recipes with a few updates in between,
+     * once for a client that always downloads and once for one that revalidates its copies.
+     */
+    @Test
+    void replayedRequestLog_ShouldSaveMostBytesAndStayFresh() throws Exception {
+        // Arrange
+        List<Long> log = requestLog();
+
+        // Act
+        ReplayResult unconditional = replay(log, false);
+        ReplayResult conditional = replay(log, true);
+
+        // Assert
+        logger.info("Replayed {} requests: unconditional {} bytes, p99 {} us; conditional {} bytes ({} not modified), p99 {} us",
+            log.size(), unconditional.bytes, unconditional.p99Micros(), conditional.bytes, conditional.notModified,
+            conditional.p99Micros());
+        assertTrue(conditional.bytes < unconditional.bytes / 5,
+            "Expected at least 80% fewer bytes, got " + conditional.bytes + " of " + unconditional.bytes);
+        assertTrue(conditional.notModified > log.size() / 2);
+    }
+
+    // Every 50th entry is an update (negative id), the rest are reads skewed towards few recipes
+    private List<Long> requestLog() {
+        Random random = new Random(42);
+        List<Long> log = new ArrayList<>(LOGGED_REQUESTS);
+        for (int i = 0; i < LOGGED_REQUESTS; i++) {
+            Long id = ids.get((int) (Math.pow(random.nextDouble(), 3) * RECIPES));
+            log.add(i % 50 == 49 ? -id : id);
+        }
+        return log;
+    }
+
+    private ReplayResult replay(List<Long> log, boolean conditional) throws Exception {
+        Map<Long, String> eTags = new HashMap<>();
+        Map<Long, String> titles = new HashMap<>();
+        long[] latencies = new long[log.size()];
+        ReplayResult result = new ReplayResult(latencies);
+        int version = 0;
+
+        for (int i = 0; i < log.size(); i++) {
+            Long id = Math.abs(log.get(i));
+            if (log.get(i) < 0) {
+                String title = "Recipe " + id + " v" + ++version;
+                recipeService.updateRecipe(id, recipeDto(title), "test-user");
+                titles.put(id, title);
+                continue;
+            }
+
+            MockHttpServletRequestBuilder request = get("/api/recipes/{id}", id);
+            if (conditional && eTags.containsKey(id)) {
+                request.header(HttpHeaders.IF_NONE_MATCH, eTags.get(id));
+            }
+            long start = System.nanoTime();
+            MockHttpServletResponse response = fetch(request);
+            latencies[i] = System.nanoTime() - start;
+
+            result.bytes += response.getContentAsByteArray().length;
+            if (response.getStatus() == 304) {
+                result.notModified++;
+            } else {
+                assertEquals(200, response.getStatus());
+                eTags.put(id, response.getHeader(HttpHeaders.ETAG));
+                if (titles.containsKey(id)) {
+                    assertTrue(response.getContentAsString().contains(titles.get(id)), "Stale recipe after update");
+                }
+            }
+        }
+        return result;
+    }
+
+    private MockHttpServletResponse fetch(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    private static RecipeDto recipeDto(String title) {
+        RecipeDto dto = new RecipeDto();
+        dto.setTitle(title);
+        dto.setDescription("Updated description");
+        dto.setIngredients(new ArrayList<>(Arrays.asList("3 onions", "1 kg potatoes")));
+        dto.setInstructions("1. Peel\n2. Bake");
+        dto.setPreparationTime(25);
+        dto.setCookingTime(55);
+        dto.setServings(4);
+        return dto;
+    }
+
+    private static final class ReplayResult {
+        private final long[] latencies;
+        private long bytes;
+        private int notModified;
+
+        private ReplayResult(long[] latencies) {
+            this.latencies = latencies;
+        }
+
+        // Updates leave a zero in the array and are skipped
+        private long p99Micros() {
+            long[] reads = Arrays.stream(latencies).filter(latency -> latency > 0).sorted().toArray();
+            return reads[(int) Math.ceil(reads.length * 0.99) - 1] / 1_000;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ch.ilv.m295.airezept.controller;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the SQL statements of {@code GET /api/recipes}, including JSON serialization, which is
+ * where lazily loaded ingredients used to add one query per recipe.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:querycount;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class RecipeControllerQueryCountTest {
+
+    private static final int RECIPES = 150;
+
+    // Page of ids, total count, recipes with ingredients
+    private static final long STATEMENTS_PER_PAGE = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < RECIPES; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle("Recipe " + i);
+            recipe.setIngredients(new ArrayList<>(List.of("Ingredient A" + i, "Ingredient B" + i, "Ingredient C" + i)));
+            recipe.setInstructions("Cook it");
+            recipe.setPreparationTime(10);
+            recipe.setCookingTime(20);
+            recipe.setServings(2);
+            recipe.setCreatedBy("test-user");
+            recipes.add(recipe);
+        }
+        recipeRepository.saveAll(recipes);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recipeRepository.deleteAll();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 100})
+    void getAllRecipes_ShouldUseConstantNumberOfStatements(int pageSize) throws Exception {
+        // Act
+        mockMvc.perform(get("/api/recipes").param("size", String.valueOf(pageSize)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content.length()").value(pageSize))
+            .andExpect(jsonPath("$.content[0].ingredients.length()").value(3))
+            .andExpect(jsonPath("$.totalElements").value(RECIPES));
+
+        // Assert
+        assertEquals(STATEMENTS_PER_PAGE, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionFetchCount(), "Ingredients must not be loaded one recipe at a time");
+    }
+}
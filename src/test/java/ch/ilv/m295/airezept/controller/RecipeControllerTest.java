@@ -1,7 +1,14 @@
 package ch.ilv.m295.airezept.controller;
 
+import ch.ilv.m295.airezept.dto.CursorPageDto;
+import ch.ilv.m295.airezept.dto.PantryMatchDto;
+import ch.ilv.m295.airezept.dto.RecipeBulkDeleteDto;
 import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.dto.RecipePatchDto;
+import ch.ilv.m295.airezept.dto.RequestHistoryDto;
 import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.exception.InvalidBulkDeleteException;
+import ch.ilv.m295.airezept.service.RecipeModerationService;
 import ch.ilv.m295.airezept.service.RecipeService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,10 +18,20 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
@@ -27,6 +44,9 @@ class RecipeControllerTest {
     @Mock
     private RecipeService recipeService;
 
+    @Mock
+    private RecipeModerationService recipeModerationService;
+
     @InjectMocks
     private RecipeController recipeController;
 
@@ -52,23 +72,145 @@ class RecipeControllerTest {
         verify(recipeService, times(1)).getAllRecipes(any(PageRequest.class));
     }
 
+    @Test
+    void getRecipesByCursor_ShouldReturnPageWithNextCursor() {
+        // Arrange
+        CursorPageDto<Recipe> page = new CursorPageDto<>();
+        page.setContent(Arrays.asList(new Recipe(), new Recipe()));
+        page.setSize(2);
+        page.setHasNext(true);
+        page.setNextCursor("cursor");
+        when(recipeService.getRecipesAfter(null, "createdAt", "desc", 2)).thenReturn(page);
+
+        // Act
+        ResponseEntity<CursorPageDto<Recipe>> response = recipeController.getRecipesByCursor(null, 2, "createdAt", "desc");
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().getContent().size());
+        assertEquals("cursor", response.getBody().getNextCursor());
+        verify(recipeService, times(1)).getRecipesAfter(null, "createdAt", "desc", 2);
+    }
+
+    @Test
+    void searchRecipes_ShouldReturnMatchesFromService() {
+        // Arrange
+        List<Recipe> recipes = Arrays.asList(new Recipe(), new Recipe());
+        when(recipeService.searchRecipes("basil", 20)).thenReturn(recipes);
+
+        // Act
+        ResponseEntity<List<Recipe>> response = recipeController.searchRecipes("basil", 20);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().size());
+        verify(recipeService).searchRecipes("basil", 20);
+    }
+
+    @Test
+    void getRecipesByIngredients_ShouldReturnMatchesFromService() {
+        // Arrange
+        List<String> pantry = List.of("eggs", "flour");
+        List<PantryMatchDto> matches = List.of(new PantryMatchDto(new Recipe(), 2, 3, 2.0 / 3));
+        when(recipeService.findRecipesByIngredients(pantry, 20)).thenReturn(matches);
+
+        // Act
+        ResponseEntity<List<PantryMatchDto>> response = recipeController.getRecipesByIngredients(pantry, 20);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(matches, response.getBody());
+    }
+
+    @Test
+    void getMyRecipes_ShouldReturnSliceOfAuthenticatedUser() {
+        // Arrange
+        Authentication authentication = mock(Authentication.class);
+        Jwt jwt = mock(Jwt.class);
+        when(authentication.getPrincipal()).thenReturn(jwt);
+        when(jwt.getSubject()).thenReturn("user-1");
+        Slice<Recipe> slice = new SliceImpl<>(Arrays.asList(new Recipe(), new Recipe()), PageRequest.of(0, 2), true);
+        when(recipeService.getRecipesByUser("user-1", 0, 2)).thenReturn(slice);
+
+        // Act
+        ResponseEntity<Slice<Recipe>> response = recipeController.getMyRecipes(0, 2, authentication);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().getNumberOfElements());
+        assertTrue(response.getBody().hasNext());
+        verify(recipeService, times(1)).getRecipesByUser("user-1", 0, 2);
+    }
+
+    @Test
+    void getMyRecipes_WithoutAuthentication_ShouldThrowSecurityException() {
+        // Act & Assert
+        assertThrows(SecurityException.class, () -> recipeController.getMyRecipes(0, 20, null));
+        verifyNoInteractions(recipeService);
+    }
+
+    @Test
+    void getMyHistory_ShouldReturnSliceOfAuthenticatedUser() {
+        // Arrange
+        Authentication authentication = mock(Authentication.class);
+        Jwt jwt = mock(Jwt.class);
+        when(authentication.getPrincipal()).thenReturn(jwt);
+        when(jwt.getSubject()).thenReturn("user-1");
+        Slice<RequestHistoryDto> slice = new SliceImpl<>(
+            List.of(new RequestHistoryDto(2L, "pasta", new Recipe(), LocalDateTime.now())), PageRequest.of(0, 1), true);
+        when(recipeService.getHistoryByUser("user-1", 0, 1)).thenReturn(slice);
+
+        // Act
+        ResponseEntity<Slice<RequestHistoryDto>> response = recipeController.getMyHistory(0, 1, authentication);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("pasta", response.getBody().getContent().get(0).getUserInput());
+        assertTrue(response.getBody().hasNext());
+        verify(recipeService, times(1)).getHistoryByUser("user-1", 0, 1);
+    }
+
+    @Test
+    void getMyHistory_WithoutAuthentication_ShouldThrowSecurityException() {
+        // Act & Assert
+        assertThrows(SecurityException.class, () -> recipeController.getMyHistory(0, 20, null));
+        verifyNoInteractions(recipeService);
+    }
+
     @Test
     void getRecipeById_ShouldReturnRecipe() {
         // Arrange
         Long recipeId = 1L;
         Recipe recipe = new Recipe();
+        when(recipeService.getRecipeETag(recipeId)).thenReturn("\"1-100\"");
         when(recipeService.getRecipeById(recipeId)).thenReturn(recipe);
 
         // Act
-        ResponseEntity<Recipe> response = recipeController.getRecipeById(recipeId);
+        ResponseEntity<Recipe> response = recipeController.getRecipeById(recipeId, webRequest(null));
 
         // Assert
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(recipe, response.getBody());
+        assertEquals("\"1-100\"", response.getHeaders().getETag());
         verify(recipeService, times(1)).getRecipeById(recipeId);
     }
 
+    @Test
+    void getRecipeById_WithMatchingETag_ShouldReturnNotModifiedWithoutLoadingRecipe() {
+        // Arrange
+        Long recipeId = 1L;
+        when(recipeService.getRecipeETag(recipeId)).thenReturn("\"1-100\"");
+
+        // Act
+        ResponseEntity<Recipe> response = recipeController.getRecipeById(recipeId, webRequest("\"1-100\""));
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(recipeService, never()).getRecipeById(recipeId);
+    }
+
     @Test
     void createRecipe_ShouldReturnCreatedRecipe() {
         // Arrange
@@ -104,6 +246,25 @@ class RecipeControllerTest {
         verify(recipeService, times(1)).updateRecipe(anyLong(), any(RecipeDto.class), anyString());
     }
 
+    @Test
+    void patchRecipe_ShouldReturnPatchedRecipe() {
+        // Arrange
+        Long recipeId = 1L;
+        RecipePatchDto patch = new RecipePatchDto();
+        patch.setTitle("New title");
+        Recipe patchedRecipe = new Recipe();
+        when(recipeService.patchRecipe(anyLong(), any(RecipePatchDto.class), anyString())).thenReturn(patchedRecipe);
+
+        // Act
+        ResponseEntity<Recipe> response = recipeController.patchRecipe(recipeId, patch);
+
+        // Assert
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(patchedRecipe, response.getBody());
+        verify(recipeService, times(1)).patchRecipe(anyLong(), any(RecipePatchDto.class), anyString());
+    }
+
     @Test
     void deleteRecipe_ShouldReturnNoContent() {
         // Arrange
@@ -118,4 +279,34 @@ class RecipeControllerTest {
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
         verify(recipeService, times(1)).deleteRecipe(anyLong(), anyString());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void deleteRecipes_ByCreatedBy_ShouldReturnNumberDeleted() {
+        // Arrange
+        when(recipeModerationService.deleteByCreatedBy("spammer")).thenReturn(1200L);
+
+        // Act
+        ResponseEntity<RecipeBulkDeleteDto> response = recipeController.deleteRecipes("spammer", null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1200, response.getBody().getDeleted());
+        verify(recipeModerationService, never()).deleteByIds(any());
+    }
+
+    @Test
+    void deleteRecipes_WithNeitherOrBothFilters_ShouldThrow() {
+        // Act & Assert
+        assertThrows(InvalidBulkDeleteException.class, () -> recipeController.deleteRecipes(null, null));
+        assertThrows(InvalidBulkDeleteException.class, () -> recipeController.deleteRecipes("spammer", List.of(1L)));
+        verifyNoInteractions(recipeModerationService);
+    }
+
+    private static WebRequest webRequest(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/recipes/1");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,174 @@
+package ch.ilv.m295.airezept.controller;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Walks {@code GET /api/recipes/cursor} page by page and compares the result with the full
+ * listing sorted in memory. Sort values repeat on purpose, so ties have to be broken by id.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:cursorpagination;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class RecipeCursorPaginationTest {
+
+    private static final int RECIPES = 95;
+
+    // Page of ids, recipes with ingredients
+    private static final long STATEMENTS_PER_PAGE = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < RECIPES; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle(String.format("Recipe, %02d", i % 30));
+            recipe.setIngredients(new ArrayList<>(List.of("Ingredient " + i)));
+            recipe.setInstructions("Cook it");
+            recipe.setPreparationTime(10);
+            recipe.setCookingTime(i % 10 == 0 ? null : i % 7 * 5);
+            recipe.setServings(2);
+            recipe.setCreatedBy("test-user");
+            recipes.add(recipe);
+        }
+        recipeRepository.saveAll(recipes);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recipeRepository.deleteAll();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "createdAt, desc", "createdAt, asc",
+        "title, asc", "title, desc",
+        "cookingTime, asc", "cookingTime, desc"
+    })
+    void getRecipesByCursor_ShouldVisitEveryRecipeOnceInSortOrder(String sortBy, String direction) throws Exception {
+        // Arrange
+        int pageSize = 10;
+        List<Long> expected = expectedOrder(sortBy, direction);
+        statistics.clear();
+
+        // Act
+        List<Long> visited = new ArrayList<>();
+        String after = null;
+        int pages = 0;
+        do {
+            JsonNode page = fetchPage(after, pageSize, sortBy, direction);
+            page.get("content").forEach(recipe -> visited.add(recipe.get("id").asLong()));
+            after = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            assertEquals(after != null, page.get("hasNext").asBoolean());
+            pages++;
+        } while (after != null);
+
+        // Assert
+        assertEquals(expected, visited);
+        assertEquals(visited.size(), new HashSet<>(visited).size(), "No recipe may appear twice");
+        assertEquals((expected.size() + pageSize - 1) / pageSize, pages);
+        assertEquals(STATEMENTS_PER_PAGE * pages, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getRecipesByCursor_WithTamperedCursor_ShouldReturnBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/recipes/cursor").param("after", "not a cursor"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getRecipesByCursor_WithCursorOfOtherSortOrder_ShouldReturnBadRequest() throws Exception {
+        // Arrange
+        String after = fetchPage(null, 5, "title", "asc").get("nextCursor").asText();
+
+        // Act & Assert
+        mockMvc.perform(get("/api/recipes/cursor").param("after", after).param("sortBy", "createdAt"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getRecipesByCursor_WithUnsupportedSortOrSize_ShouldReturnBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/recipes/cursor").param("sortBy", "servings"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/recipes/cursor").param("size", "101"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode fetchPage(String after, int size, String sortBy, String direction) throws Exception {
+        String body = mockMvc.perform(get("/api/recipes/cursor")
+                .param("after", after == null ? "" : after)
+                .param("size", String.valueOf(size))
+                .param("sortBy", sortBy)
+                .param("direction", direction))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private List<Long> expectedOrder(String sortBy, String direction) {
+        Comparator<Recipe> comparator = switch (sortBy) {
+            case "createdAt" -> Comparator.comparing(Recipe::getCreatedAt);
+            case "title" -> Comparator.comparing(Recipe::getTitle);
+            default -> Comparator.comparing(Recipe::getCookingTime);
+        };
+        comparator = comparator.thenComparing(Recipe::getId);
+        if (direction.equals("desc")) {
+            comparator = comparator.reversed();
+        }
+        return recipeRepository.findAll().stream()
+            .filter(recipe -> !sortBy.equals("cookingTime") || recipe.getCookingTime() != null)
+            .sorted(comparator)
+            .map(Recipe::getId)
+            .toList();
+    }
+}
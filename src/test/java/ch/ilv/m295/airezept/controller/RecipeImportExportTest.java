@@ -0,0 +1,244 @@
+package ch.ilv.m295.airezept.controller;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.dto.RecipeImportProgressDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import ch.ilv.m295.airezept.service.RecipeService;
+import ch.ilv.m295.airezept.service.RecipeTransferService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Imports and exports recipes as NDJSON through {@code /api/recipes/import} and
+ * {@code /api/recipes/export}, with a batch size of two to see every batch and a line limit
+ * of 500 characters.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:recipetransfer;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.show-sql=false",
+    "recipes.transfer.import-batch-size=2",
+    "recipes.transfer.max-import-line-length=500"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class RecipeImportExportTest {
+
+    private static final MediaType NDJSON = MediaType.APPLICATION_NDJSON;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeTransferService recipeTransferService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        recipeRepository.findAll().forEach(recipe -> recipeService.deleteRecipe(recipe.getId(), "test-user"));
+    }
+
+    @Test
+    void importRecipes_ShouldSaveValidLinesInBatchesAndReportTheOthers() throws Exception {
+        // Arrange
+        String body = String.join("\n",
+            line("Bread"),
+            line("Soup"),
+            "{not json",
+            "",
+            line("Salad"),
+            "{\"title\":\"\",\"ingredients\":[],\"instructions\":\"Mix\"}",
+            line("Pie")) + "\n";
+
+        // Act
+        String response = mockMvc.perform(post("/api/recipes/import").with(admin())
+                .contentType(NDJSON).content(body))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(NDJSON))
+            .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        // Assert
+        List<RecipeImportProgressDto> progress = new ArrayList<>();
+        for (String line : response.split("\n")) {
+            progress.add(objectMapper.readValue(line, RecipeImportProgressDto.class));
+        }
+        // One line per saved batch of two, then the totals
+        assertEquals(List.of(2L, 4L, 4L), progress.stream().map(RecipeImportProgressDto::getImported).toList());
+        assertEquals(List.of(false, false, true), progress.stream().map(RecipeImportProgressDto::isDone).toList());
+        RecipeImportProgressDto last = progress.get(2);
+        assertEquals(7, last.getLines());
+        assertEquals(2, last.getFailed());
+
+        List<String> errors = progress.stream().flatMap(line -> line.getErrors().stream()).toList();
+        assertEquals(2, errors.size(), errors.toString());
+        assertTrue(errors.get(0).startsWith("line 3: invalid JSON"), errors.get(0));
+        assertTrue(errors.get(1).startsWith("line 6: title"), errors.get(1));
+
+        assertEquals(List.of("Bread", "Soup", "Salad", "Pie"),
+            recipeRepository.findAll().stream().sorted(Comparator.comparing(Recipe::getId)).map(Recipe::getTitle).toList());
+    }
+
+    @Test
+    void importRecipes_WithALineOverTheLimit_ShouldSkipItWithoutReadingItIn() throws Exception {
+        // Arrange
+        String longLine = "{\"title\":\"" + "x".repeat(10_000) + "\"}";
+        String body = String.join("\r\n", line("Bread"), longLine, line("Soup")) + "\r\n";
+
+        // Act
+        RecipeImportProgressDto result = recipeTransferService.importRecipes(
+            new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), "test-user", progress -> { });
+
+        // Assert
+        assertEquals(3, result.getLines());
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(List.of("Bread", "Soup"),
+            recipeRepository.findAll().stream().map(Recipe::getTitle).sorted().toList());
+    }
+
+    @Test
+    void importRecipes_InAnOpenEntityManager_ShouldNotKeepTheSavedRecipesManaged() throws Exception {
+        // Arrange: bound to the thread the way open in view binds one to a request
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        String body = String.join("\n", line("Bread"), line("Soup"), line("Salad"), line("Pie"), line("Cake"));
+        List<Integer> managed = new ArrayList<>();
+
+        try {
+            // Act
+            recipeTransferService.importRecipes(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), "test-user",
+                progress -> managed.add(entityManager.unwrap(Session.class).getStatistics().getEntityCount()));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+
+        // Assert: after each batch of two and at the end
+        assertEquals(List.of(0, 0, 0), managed);
+        assertEquals(5, recipeRepository.count());
+    }
+
+    @Test
+    void exportRecipes_ShouldStreamOneLinePerRecipeInIdOrder() throws Exception {
+        // Arrange
+        List<Long> ids = new ArrayList<>();
+        for (String title : List.of("Bread", "Soup", "Salad")) {
+            ids.add(recipeService.createRecipe(recipeDto(title), "test-user").getId());
+        }
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        String response = mockMvc.perform(get("/api/recipes/export").with(admin()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(NDJSON))
+            .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        // Assert
+        assertTrue(response.endsWith("}\n"), response);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : response.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        assertEquals(ids, lines.stream().map(line -> line.get("id").asLong()).toList());
+        assertEquals(List.of("Bread", "Soup", "Salad"), lines.stream().map(line -> line.get("title").asText()).toList());
+        assertEquals(2, lines.get(0).get("ingredients").size());
+        // One query, and the recipes are not put into the second-level cache
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getSecondLevelCachePutCount());
+    }
+
+    @Test
+    void exportedRecipes_ShouldImportAgain() throws Exception {
+        // Arrange
+        recipeService.createRecipe(recipeDto("Bread"), "test-user");
+        recipeService.createRecipe(recipeDto("Soup"), "test-user");
+        byte[] export = mockMvc.perform(get("/api/recipes/export").with(admin()))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        // Act
+        String response = mockMvc.perform(post("/api/recipes/import").with(admin())
+                .contentType(NDJSON).content(export))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        // Assert
+        String[] progress = response.split("\n");
+        RecipeImportProgressDto last = objectMapper.readValue(progress[progress.length - 1], RecipeImportProgressDto.class);
+        assertEquals(2, last.getImported());
+        assertEquals(0, last.getFailed());
+        assertEquals(List.of("Bread", "Bread", "Soup", "Soup"),
+            recipeRepository.findAll().stream().map(Recipe::getTitle).sorted().toList());
+    }
+
+    @Test
+    void importAndExport_WithoutAdminRole_ShouldBeForbidden() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/recipes/import").with(jwt()).contentType(NDJSON).content(line("Bread")))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/recipes/export").with(jwt()))
+            .andExpect(status().isForbidden());
+        assertEquals(0, recipeRepository.count());
+    }
+
+    private static org.springframework.test.web.servlet.request.RequestPostProcessor admin() {
+        return jwt().authorities(new SimpleGrantedAuthority("ROLE_ADMIN"));
+    }
+
+    private String line(String title) throws Exception {
+        return objectMapper.writeValueAsString(recipeDto(title));
+    }
+
+    private static RecipeDto recipeDto(String title) {
+        RecipeDto dto = new RecipeDto();
+        dto.setTitle(title);
+        dto.setIngredients(new ArrayList<>(Arrays.asList("200 g flour", "1 tsp salt")));
+        dto.setInstructions("Mix and cook");
+        return dto;
+    }
+}
@@ -0,0 +1,159 @@
+package ch.ilv.m295.airezept.controller;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.InMemoryRecipeSearchIndex;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import ch.ilv.m295.airezept.service.RecipeService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Searches through {@code GET /api/recipes/search} on the in-memory index and checks that
+ * creates, updates and deletes are reflected right after they commit.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:recipesearch;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class RecipeSearchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private InMemoryRecipeSearchIndex searchIndex;
+
+    @AfterEach
+    void tearDown() {
+        recipeRepository.findAll().forEach(recipe -> recipeService.deleteRecipe(recipe.getId(), "test-user"));
+    }
+
+    @Test
+    void searchRecipes_ShouldRankTitleMatchesFirst() throws Exception {
+        // Arrange
+        Recipe inInstructions = create("Pasta al forno", List.of("Pasta", "Cheese"), "Serve with basil on top");
+        Recipe inIngredients = create("Pasta verde", List.of("Pasta", "Basil"), "Boil and mix");
+        Recipe inTitle = create("Basil pesto", List.of("Pine nuts", "Olive oil"), "Blend everything");
+        create("Tomato soup", List.of("Tomatoes"), "Simmer");
+
+        // Act
+        List<Long> ids = search("basil");
+
+        // Assert
+        assertEquals(List.of(inTitle.getId(), inIngredients.getId(), inInstructions.getId()), ids);
+    }
+
+    @Test
+    void searchRecipes_ShouldPreferRecipesMatchingMoreTermsAndIgnoreAccents() throws Exception {
+        // Arrange
+        Recipe both = create("Crème brûlée", List.of("Cream", "Sugar"), "Caramelise the sugar");
+        Recipe one = create("Crème caramel", List.of("Milk", "Eggs"), "Bake in a water bath");
+
+        // Act
+        List<Long> ids = search("creme brulee");
+
+        // Assert
+        assertEquals(List.of(both.getId(), one.getId()), ids);
+    }
+
+    @Test
+    void searchRecipes_ShouldReflectUpdatesAndDeletes() throws Exception {
+        // Arrange
+        Recipe recipe = create("Lemon tart", List.of("Lemons", "Butter"), "Bake");
+
+        // Act
+        RecipeDto update = toDto("Lime tart", List.of("Limes", "Butter"), "Bake");
+        recipeService.updateRecipe(recipe.getId(), update, "test-user");
+        List<Long> afterUpdate = search("lemon");
+        List<Long> byNewTitle = search("lime");
+        recipeService.deleteRecipe(recipe.getId(), "test-user");
+        List<Long> afterDelete = search("lime");
+
+        // Assert
+        assertEquals(List.of(), afterUpdate);
+        assertEquals(List.of(recipe.getId()), byNewTitle);
+        assertEquals(List.of(), afterDelete);
+    }
+
+    @Test
+    void rebuild_ShouldIndexRecipesSavedWithoutTheService() throws Exception {
+        // Arrange
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Goulash");
+        recipe.setIngredients(new ArrayList<>(List.of("Beef", "Paprika")));
+        recipe.setInstructions("Stew for hours");
+        recipe.setCreatedBy("test-user");
+        recipe = recipeRepository.save(recipe);
+        assertEquals(List.of(), search("paprika"));
+
+        // Act
+        searchIndex.rebuild();
+
+        // Assert
+        assertEquals(List.of(recipe.getId()), search("paprika"));
+    }
+
+    @Test
+    void searchRecipes_WithBlankQueryOrInvalidLimit_ShouldReturnBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/recipes/search").param("q", " "))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/recipes/search").param("q", "pasta").param("limit", "101"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private Recipe create(String title, List<String> ingredients, String instructions) {
+        return recipeService.createRecipe(toDto(title, ingredients, instructions), "test-user");
+    }
+
+    private RecipeDto toDto(String title, List<String> ingredients, String instructions) {
+        RecipeDto dto = new RecipeDto();
+        dto.setTitle(title);
+        dto.setIngredients(new ArrayList<>(ingredients));
+        dto.setInstructions(instructions);
+        dto.setPreparationTime(10);
+        dto.setCookingTime(20);
+        dto.setServings(2);
+        return dto;
+    }
+
+    private List<Long> search(String query) throws Exception {
+        String body = mockMvc.perform(get("/api/recipes/search").param("q", query))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode recipe : objectMapper.readTree(body)) {
+            ids.add(recipe.get("id").asLong());
+        }
+        return ids;
+    }
+}
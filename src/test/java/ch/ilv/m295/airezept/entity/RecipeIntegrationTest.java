@@ -7,6 +7,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -149,10 +151,11 @@ class RecipeIntegrationTest {
         recipeRepository.save(recipe2);
 
         // Act
-        List<Recipe> user1Recipes = recipeRepository.findByCreatedBy("user1");
+        Slice<Long> user1Recipes = recipeRepository.findSliceOfIdsByCreatedBy("user1", PageRequest.of(0, 10));
 
         // Assert
-        assertEquals(1, user1Recipes.size());
-        assertEquals("User1 Recipe", user1Recipes.get(0).getTitle());
+        assertEquals(1, user1Recipes.getNumberOfElements());
+        assertFalse(user1Recipes.hasNext());
+        assertEquals("User1 Recipe", recipeRepository.findById(user1Recipes.getContent().get(0)).orElseThrow().getTitle());
     }
 } 
\ No newline at end of file
@@ -0,0 +1,135 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.entity.RequestHistory;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.CoreMigrationType;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Upgrades a database the last release without migrations created with ddl-auto: update:
+ * Flyway baselines it at V1 and the later migrations have to carry it, and its rows, to the
+ * schema Hibernate validates.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=" + BaselineUpgradeTest.URL,
+    "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class BaselineUpgradeTest {
+    static final String URL = "jdbc:h2:mem:baselineupgrade;DB_CLOSE_DELAY=-1;MODE=PostgreSQL";
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RequestHistoryRepository requestHistoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Runs before the application context, and so before Flyway, is created
+    @BeforeAll
+    static void createBaselineDatabase() throws Exception {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "password")) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/baseline-h2.sql"));
+        }
+    }
+
+    @Test
+    void migrate_ShouldBaselineTheExistingSchemaAndApplyTheLaterMigrations() {
+        // Act
+        MigrationInfo[] applied = flyway.info().applied();
+
+        // Assert
+        assertEquals(CoreMigrationType.BASELINE, applied[0].getType());
+        assertEquals("1", applied[0].getVersion().getVersion());
+        assertEquals(List.of("2", "3", "4", "5", "6", "7", "8", "10", "11", "12", "13", "14"),
+            Arrays.stream(applied).skip(1).map(info -> info.getVersion().getVersion()).toList());
+        assertDoesNotThrow(() -> entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager().validateMappedObjects());
+    }
+
+    @Test
+    void migrate_ShouldMoveTheIngredientsInTheirOrder() {
+        // Act
+        Recipe pancakes = recipeRepository.findById(1L).orElseThrow();
+        Recipe water = recipeRepository.findById(2L).orElseThrow();
+        Recipe omelette = recipeRepository.findById(3L).orElseThrow();
+
+        // Assert
+        assertEquals(List.of("200 g flour", "2 eggs", "300 ml milk"), pancakes.getIngredients());
+        assertEquals(List.of(), water.getIngredients());
+        assertEquals(List.of("3 eggs", "salt"), omelette.getIngredients());
+        assertEquals(0L, pancakes.getVersion());
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "select count(*) from information_schema.tables where lower(table_name) = 'recipe_ingredients'", Integer.class));
+    }
+
+    @Test
+    void migrate_ShouldKeepTheRequestHistory() {
+        // Act
+        List<RequestHistory> histories = requestHistoryRepository.findAll().stream()
+            .sorted((a, b) -> a.getId().compareTo(b.getId()))
+            .toList();
+
+        // Assert
+        assertEquals(2, histories.size());
+        assertEquals("{\"title\": \"Pancakes\"}", histories.get(0).getAiResponse());
+        assertEquals(1L, histories.get(0).getGeneratedRecipe().getId());
+        assertNull(histories.get(1).getAiResponse());
+    }
+
+    @Test
+    void migrate_ShouldNameTheBaselineConstraints() {
+        // Act
+        List<String> constraints = jdbcTemplate.queryForList(
+            "select lower(constraint_name) from information_schema.table_constraints "
+                + "where lower(table_name) in ('recipe', 'request_history')", String.class);
+
+        // Assert
+        assertTrue(constraints.containsAll(List.of(
+            "pk_recipe", "pk_request_history", "uk_request_history_recipe", "fk_request_history_recipe")),
+            constraints.toString());
+    }
+
+    @Test
+    void save_ShouldContinueTheIdsAfterTheExistingRows() {
+        // Arrange
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Toast");
+        recipe.setCreatedBy("user-3");
+
+        // Act
+        Recipe saved = recipeRepository.save(recipe);
+
+        // Assert
+        assertTrue(saved.getId() > 3, "id " + saved.getId());
+        assertTrue(jdbcTemplate.queryForObject("select nextval('request_history_seq')", Long.class) > 2);
+    }
+}
@@ -0,0 +1,130 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.entity.GenerationJob;
+import ch.ilv.m295.airezept.entity.JobStatus;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stores jobs in the database and checks that saving one never selects it first, and that
+ * only finished jobs older than the cutoff are cleaned up.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:generationjobs;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.show-sql=false",
+    "anthropic.jobs.store=jpa"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class JpaGenerationJobStoreTest {
+
+    @Autowired
+    private JpaGenerationJobStore generationJobStore;
+
+    @Autowired
+    private GenerationJobRepository generationJobRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        generationJobRepository.deleteAll();
+    }
+
+    @Test
+    void save_ShouldInsertNewJobsAndUpdateKnownOnesWithOneStatementEach() {
+        // Arrange
+        GenerationJob job = job(JobStatus.PENDING, LocalDateTime.now());
+        statistics.clear();
+
+        // Act
+        generationJobStore.save(job);
+        long insertStatements = statistics.getPrepareStatementCount();
+        job.setStatus(JobStatus.COMPLETED);
+        job.setRecipeId(42L);
+        job.setUpdatedAt(LocalDateTime.now());
+        generationJobStore.save(job);
+        long updateStatements = statistics.getPrepareStatementCount() - insertStatements;
+
+        // Assert
+        assertEquals(1, insertStatements);
+        assertEquals(1, updateStatements);
+        assertEquals(0, statistics.getEntityLoadCount());
+        GenerationJob stored = generationJobStore.findById(job.getId()).orElseThrow();
+        assertEquals(JobStatus.COMPLETED, stored.getStatus());
+        assertEquals(42L, stored.getRecipeId());
+        assertFalse(stored.isNew());
+    }
+
+    @Test
+    void save_AfterLoadingTheJob_ShouldUpdateIt() {
+        // Arrange
+        GenerationJob job = generationJobStore.save(job(JobStatus.RUNNING, LocalDateTime.now()));
+        GenerationJob loaded = generationJobStore.findById(job.getId()).orElseThrow();
+
+        // Act
+        loaded.setStatus(JobStatus.FAILED);
+        loaded.setError("boom");
+        generationJobStore.save(loaded);
+
+        // Assert
+        GenerationJob stored = generationJobStore.findById(job.getId()).orElseThrow();
+        assertEquals(JobStatus.FAILED, stored.getStatus());
+        assertEquals("boom", stored.getError());
+        assertEquals(1, generationJobRepository.count());
+    }
+
+    @Test
+    void deleteFinishedBefore_ShouldOnlyDeleteFinishedJobsOlderThanTheCutoff() {
+        // Arrange
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(1);
+        GenerationJob oldCompleted = generationJobStore.save(job(JobStatus.COMPLETED, cutoff.minusMinutes(5)));
+        GenerationJob oldFailed = generationJobStore.save(job(JobStatus.FAILED, cutoff.minusMinutes(5)));
+        GenerationJob oldRunning = generationJobStore.save(job(JobStatus.RUNNING, cutoff.minusMinutes(5)));
+        GenerationJob recentCompleted = generationJobStore.save(job(JobStatus.COMPLETED, cutoff.plusMinutes(5)));
+
+        // Act
+        int deleted = generationJobStore.deleteFinishedBefore(cutoff);
+
+        // Assert
+        assertEquals(2, deleted);
+        assertTrue(generationJobStore.findById(oldCompleted.getId()).isEmpty());
+        assertTrue(generationJobStore.findById(oldFailed.getId()).isEmpty());
+        assertEquals(List.of(oldRunning.getId(), recentCompleted.getId()).stream().sorted().toList(),
+            generationJobRepository.findAll().stream().map(GenerationJob::getId).sorted().toList());
+    }
+
+    private static GenerationJob job(JobStatus status, LocalDateTime updatedAt) {
+        GenerationJob job = new GenerationJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setUserId("test-user");
+        job.setUserInput("curry");
+        job.setStatus(status);
+        job.setCreatedAt(updatedAt);
+        job.setUpdatedAt(updatedAt);
+        return job;
+    }
+}
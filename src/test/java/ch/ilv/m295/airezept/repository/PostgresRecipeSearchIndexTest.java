@@ -0,0 +1,49 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.entity.Recipe;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * The SQL side of the index needs PostgreSQL and is not run here; these tests check what the
+ * index sends to the database.
+ */
+class PostgresRecipeSearchIndexTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PostgresRecipeSearchIndex index = new PostgresRecipeSearchIndex(jdbcTemplate);
+
+    @Test
+    void index_ShouldLeaveTheSearchVectorToTheDatabase() {
+        // Arrange
+        Recipe recipe = new Recipe();
+        recipe.setId(1L);
+        recipe.setTitle("Pancakes");
+
+        // Act
+        index.index(recipe);
+        index.remove(1L);
+
+        // Assert: no statement per saved recipe, so inserts stay batched
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void search_ShouldRankByTheGeneratedColumn() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("eggs"), eq(5))).thenReturn(List.of(3L, 1L));
+
+        // Act
+        List<Long> ids = index.search("eggs", 5);
+
+        // Assert
+        assertEquals(List.of(3L, 1L), ids);
+        verify(jdbcTemplate).queryForList(contains("ts_rank_cd(r.search_vector, query)"), eq(Long.class), eq("eggs"), eq(5));
+    }
+}
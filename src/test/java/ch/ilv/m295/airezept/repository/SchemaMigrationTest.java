@@ -0,0 +1,104 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.hibernate.SessionFactory;
+import org.hibernate.tool.schema.spi.SchemaManagementException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the schema comes from the Flyway migrations, with the named indexes and foreign
+ * keys, and that Hibernate only validates it.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:schemamigration;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class SchemaMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void migrations_ShouldAllBeApplied() {
+        // Act
+        MigrationInfo[] applied = flyway.info().applied();
+
+        // Assert
+        assertEquals(List.of("1", "2", "3", "4", "5", "6", "7", "8", "10", "11", "12", "13", "14"), Arrays.stream(applied).map(info -> info.getVersion().getVersion()).toList());
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    void schema_ShouldHaveTheIndexesOfTheQueryPatterns() {
+        // Act
+        List<String> indexes = jdbcTemplate.queryForList(
+            "select lower(index_name) from information_schema.indexes where table_schema = 'PUBLIC'", String.class);
+
+        // Assert
+        assertTrue(indexes.containsAll(List.of(
+            "idx_recipe_created_at_id",
+            "idx_recipe_title_id",
+            "idx_recipe_cooking_time_id",
+            "idx_recipe_created_by_created_at",
+            "idx_normalized_ingredient_name_recipe",
+            "idx_normalized_ingredient_recipe",
+            "idx_request_history_user_requested_at",
+            "idx_request_history_requested_at",
+            "idx_request_history_archive_requested_at")), indexes.toString());
+        // Lookups of request_history by recipe_id go through the index of the unique constraint
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "select count(*) from information_schema.table_constraints where lower(constraint_name) = 'uk_request_history_recipe'",
+            Integer.class));
+    }
+
+    @Test
+    void schema_ShouldHaveNamedForeignKeys() {
+        // Act
+        List<String> foreignKeys = jdbcTemplate.queryForList(
+            "select lower(constraint_name) from information_schema.table_constraints where constraint_type = 'FOREIGN KEY'",
+            String.class);
+
+        // Assert
+        assertEquals(List.of("fk_normalized_ingredient_recipe", "fk_request_history_recipe"),
+            foreignKeys.stream().sorted().toList());
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+            "insert into normalized_ingredient (recipe_id, position, name) values (-1, 0, 'salt')"));
+    }
+
+    @Test
+    void validation_ShouldRejectASchemaThatDriftedFromTheEntities() {
+        // Arrange
+        var schemaManager = entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager();
+        schemaManager.validateMappedObjects();
+        jdbcTemplate.execute("alter table recipe drop column servings");
+
+        try {
+            // Act & Assert
+            assertThrows(SchemaManagementException.class, schemaManager::validateMappedObjects);
+        } finally {
+            jdbcTemplate.execute("alter table recipe add column servings integer");
+        }
+    }
+}
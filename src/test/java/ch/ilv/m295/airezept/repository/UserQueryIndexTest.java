@@ -0,0 +1,155 @@
+package ch.ilv.m295.airezept.repository;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.dto.RequestHistoryDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.entity.RequestHistory;
+import ch.ilv.m295.airezept.service.RecipeService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seeds one power user and a few others and checks that the per-user queries read one bounded
+ * slice through their composite indexes instead of scanning and loading everything.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:userqueries;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class UserQueryIndexTest {
+
+    private static final String POWER_USER = "power-user";
+    private static final int POWER_USER_RECIPES = 250;
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RequestHistoryRepository requestHistoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < POWER_USER_RECIPES + 50; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle("Recipe " + i);
+            recipe.setIngredients(new ArrayList<>(List.of("Ingredient A" + i, "Ingredient B" + i)));
+            recipe.setCreatedBy(i < POWER_USER_RECIPES ? POWER_USER : "user-" + i % 5);
+            recipes.add(recipe);
+        }
+        recipeRepository.saveAll(recipes);
+
+        List<RequestHistory> histories = new ArrayList<>();
+        for (Recipe recipe : recipes) {
+            RequestHistory history = new RequestHistory();
+            history.setUserId(recipe.getCreatedBy());
+            history.setUserInput("Idea for " + recipe.getTitle());
+            history.setGeneratedRecipe(recipe);
+            histories.add(history);
+        }
+        requestHistoryRepository.saveAll(histories);
+
+        jdbcTemplate.execute("analyze");
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        requestHistoryRepository.deleteAll();
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void getRecipesByUser_ShouldLoadOneBoundedSliceNewestFirst() {
+        // Act
+        Slice<Recipe> first = recipeService.getRecipesByUser(POWER_USER, 0, PAGE_SIZE);
+        Slice<Recipe> last = recipeService.getRecipesByUser(POWER_USER, POWER_USER_RECIPES / PAGE_SIZE, PAGE_SIZE);
+
+        // Assert
+        assertEquals(PAGE_SIZE, first.getNumberOfElements());
+        assertTrue(first.hasNext());
+        assertEquals(POWER_USER_RECIPES % PAGE_SIZE, last.getNumberOfElements());
+        assertFalse(last.hasNext());
+        assertTrue(first.getContent().stream().allMatch(recipe -> recipe.getCreatedBy().equals(POWER_USER)));
+        assertTrue(first.getContent().stream().allMatch(recipe -> recipe.getIngredients().size() == 2));
+        assertEquals(first.getContent().stream().sorted(newestFirst()).toList(), first.getContent());
+
+        // Slice of ids and recipes with ingredients per call, no count query
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+    }
+
+    @Test
+    void getHistoryByUser_ShouldLoadOneBoundedSliceWithRecipesJoined() {
+        // Act
+        Slice<RequestHistoryDto> slice = recipeService.getHistoryByUser(POWER_USER, 0, PAGE_SIZE);
+
+        // Assert
+        assertEquals(PAGE_SIZE, slice.getNumberOfElements());
+        assertTrue(slice.hasNext());
+        assertTrue(slice.getContent().stream().allMatch(history -> history.getRecipe().getCreatedBy().equals(POWER_USER)));
+        assertEquals("Idea for " + slice.getContent().get(0).getRecipe().getTitle(), slice.getContent().get(0).getUserInput());
+        assertEquals(1, statistics.getPrepareStatementCount(), "Generated recipes must be joined, not loaded per row");
+    }
+
+    @Test
+    void userRecipeQuery_ShouldUseCreatedByIndex() {
+        // Act
+        String plan = explain("select r.id from recipe r where r.created_by = ? "
+            + "order by r.created_at desc, r.id desc offset 0 rows fetch first 21 rows only");
+
+        // Assert
+        assertTrue(plan.contains("IDX_RECIPE_CREATED_BY_CREATED_AT: CREATED_BY ="), plan);
+    }
+
+    @Test
+    void userHistoryQuery_ShouldUseUserIdIndex() {
+        // Act
+        String plan = explain("select h.id from request_history h where h.user_id = ? "
+            + "order by h.requested_at desc, h.id desc offset 0 rows fetch first 21 rows only");
+
+        // Assert
+        assertTrue(plan.contains("IDX_REQUEST_HISTORY_USER_REQUESTED_AT: USER_ID ="), plan);
+    }
+
+    // H2 seeks the index but still sorts the user's rows; PostgreSQL also reads them in index order
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class, POWER_USER);
+    }
+
+    private static Comparator<Recipe> newestFirst() {
+        return Comparator.comparing(Recipe::getCreatedAt).thenComparing(Recipe::getId).reversed();
+    }
+}
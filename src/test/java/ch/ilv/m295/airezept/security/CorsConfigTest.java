@@ -0,0 +1,50 @@
+package ch.ilv.m295.airezept.security;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The web client runs on another origin, so it can only revalidate a recipe if it may send
+ * If-None-Match and read the ETag of the response.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class CorsConfigTest {
+
+    private static final String ORIGIN = "http://localhost:4200";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void preflight_ShouldAllowIfNoneMatch() throws Exception {
+        mockMvc.perform(options("/api/recipes/1")
+                .header(HttpHeaders.ORIGIN, ORIGIN)
+                .header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "GET")
+                .header(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS, "if-none-match"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS, containsString("if-none-match")));
+    }
+
+    @Test
+    void get_ShouldExposeETag() throws Exception {
+        mockMvc.perform(get("/api/recipes").header(HttpHeaders.ORIGIN, ORIGIN))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, containsString("ETag")));
+    }
+}
@@ -0,0 +1,88 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.AnthropicClientConfig;
+import ch.ilv.m295.airezept.config.AnthropicProperties;
+import ch.ilv.m295.airezept.config.PooledAnthropicHttpClient;
+import ch.ilv.m295.airezept.config.StubAnthropicResponses;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AIRecipeServiceCacheTest {
+
+    private MockWebServer server;
+    private PooledAnthropicHttpClient httpClient;
+    private RecipeService recipeService;
+    private AIRecipeService aiRecipeService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+
+        AnthropicClientConfig config = new AnthropicClientConfig();
+        AnthropicProperties properties = StubAnthropicResponses.properties(server.url("/").toString());
+        properties.getCache().setEnabled(true);
+        httpClient = config.anthropicHttpClient(properties, new MockEnvironment());
+
+        recipeService = mock(RecipeService.class);
+        Recipe saved = new Recipe();
+        saved.setId(1L);
+        when(recipeService.saveGeneratedRecipe(any(RecipeDto.class), anyString(), anyString(), anyString())).thenReturn(saved);
+
+        aiRecipeService = new AIRecipeService(recipeService, config.anthropicClient(httpClient, properties),
+            new RecipeResponseCache(properties));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        server.shutdown();
+    }
+
+    @Test
+    void generateRecipe_WithEquivalentInput_ShouldCallModelOnce() {
+        // Arrange
+        server.enqueue(StubAnthropicResponses.message(StubAnthropicResponses.recipeJson("Cached Rice")));
+
+        // Act
+        RecipeDto first = aiRecipeService.generateRecipe("chicken, rice, broccoli", "user-1");
+        RecipeDto second = aiRecipeService.generateRecipe("Broccoli, Chicken, Rice", "user-2");
+
+        // Assert
+        assertEquals(1, server.getRequestCount());
+        assertEquals("Cached Rice", first.getTitle());
+        assertEquals("Cached Rice", second.getTitle());
+        verify(recipeService).saveGeneratedRecipe(any(RecipeDto.class), eq("user-2"), eq("Broccoli, Chicken, Rice"), anyString());
+        assertEquals(1, aiRecipeService.getCacheStats().getHits());
+    }
+
+    @Test
+    void generateRecipe_WithBypass_ShouldAlwaysCallModel() {
+        // Arrange
+        server.enqueue(StubAnthropicResponses.message(StubAnthropicResponses.recipeJson("First")));
+        server.enqueue(StubAnthropicResponses.message(StubAnthropicResponses.recipeJson("Second")));
+
+        // Act
+        aiRecipeService.generateRecipe("chicken, rice", "user-1");
+        RecipeDto bypassed = aiRecipeService.generateRecipe("chicken, rice", "user-1", false);
+        RecipeDto cached = aiRecipeService.generateRecipe("chicken, rice", "user-1");
+
+        // Assert
+        assertEquals(2, server.getRequestCount());
+        assertEquals("Second", bypassed.getTitle());
+        assertEquals("Second", cached.getTitle());
+    }
+}
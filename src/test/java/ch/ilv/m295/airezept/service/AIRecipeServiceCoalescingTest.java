@@ -0,0 +1,141 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.AnthropicClientConfig;
+import ch.ilv.m295.airezept.config.AnthropicProperties;
+import ch.ilv.m295.airezept.config.PooledAnthropicHttpClient;
+import ch.ilv.m295.airezept.config.StubAnthropicResponses;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AIRecipeServiceCoalescingTest {
+
+    private static final int PARALLEL_REQUESTS = 50;
+
+    private MockWebServer server;
+    private PooledAnthropicHttpClient httpClient;
+    private RecipeService recipeService;
+    private AIRecipeService aiRecipeService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+
+        AnthropicClientConfig config = new AnthropicClientConfig();
+        AnthropicProperties properties = StubAnthropicResponses.properties(server.url("/").toString());
+        httpClient = config.anthropicHttpClient(properties, new MockEnvironment());
+
+        recipeService = mock(RecipeService.class);
+        AtomicLong ids = new AtomicLong();
+        when(recipeService.saveGeneratedRecipe(any(RecipeDto.class), anyString(), anyString(), anyString()))
+            .thenAnswer(invocation -> {
+                Recipe saved = new Recipe();
+                saved.setId(ids.incrementAndGet());
+                return saved;
+            });
+
+        aiRecipeService = new AIRecipeService(recipeService, config.anthropicClient(httpClient, properties),
+            new RecipeResponseCache(properties));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        server.shutdown();
+    }
+
+    @Test
+    void parallelIdenticalRequests_ShouldShareOneModelCall() throws Exception {
+        // Arrange - the stub answers slowly so every request arrives while the first is in flight
+        server.enqueue(StubAnthropicResponses.message(StubAnthropicResponses.recipeJson("Shared"))
+            .setHeadersDelay(1, TimeUnit.SECONDS));
+
+        // Act
+        List<RecipeDto> results = runInParallel("chicken, rice");
+
+        // Assert
+        assertEquals(1, server.getRequestCount());
+        assertEquals(PARALLEL_REQUESTS, results.size());
+        Set<Long> ids = new HashSet<>();
+        for (RecipeDto result : results) {
+            assertEquals("Shared", result.getTitle());
+            ids.add(result.getId());
+        }
+        assertEquals(PARALLEL_REQUESTS, ids.size(), "Every caller should get its own saved recipe");
+        verify(recipeService, times(PARALLEL_REQUESTS))
+            .saveGeneratedRecipe(any(RecipeDto.class), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void failedModelCall_ShouldFailAllWaitersAndReleaseKey() throws Exception {
+        // Arrange
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("{}").setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        server.enqueue(StubAnthropicResponses.message(StubAnthropicResponses.recipeJson("Retry")));
+
+        // Act
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        List<Future<RecipeDto>> failures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 5; i++) {
+                failures.add(executor.submit(() -> aiRecipeService.generateRecipe("pasta", "test-user")));
+            }
+            for (Future<RecipeDto> failure : failures) {
+                assertThrows(Exception.class, () -> failure.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        RecipeDto retried = aiRecipeService.generateRecipe("pasta", "test-user");
+
+        // Assert
+        assertEquals(2, server.getRequestCount());
+        assertEquals("Retry", retried.getTitle());
+        verify(recipeService, times(1)).saveGeneratedRecipe(any(RecipeDto.class), anyString(), anyString(), anyString());
+    }
+
+    private List<RecipeDto> runInParallel(String input) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(PARALLEL_REQUESTS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<RecipeDto>> futures = new ArrayList<>();
+            for (int i = 0; i < PARALLEL_REQUESTS; i++) {
+                String userId = "user-" + i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return aiRecipeService.generateRecipe(input, userId);
+                }));
+            }
+            start.countDown();
+            List<RecipeDto> results = new ArrayList<>();
+            for (Future<RecipeDto> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.AnthropicClientConfig;
+import ch.ilv.m295.airezept.config.AnthropicProperties;
+import ch.ilv.m295.airezept.config.PooledAnthropicHttpClient;
+import ch.ilv.m295.airezept.config.StubAnthropicResponses;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AIRecipeServiceStreamingTest {
+
+    private MockWebServer server;
+    private PooledAnthropicHttpClient httpClient;
+    private RecipeService recipeService;
+    private AIRecipeService aiRecipeService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+
+        AnthropicClientConfig config = new AnthropicClientConfig();
+        AnthropicProperties properties = StubAnthropicResponses.properties(server.url("/").toString());
+        httpClient = config.anthropicHttpClient(properties, new MockEnvironment());
+
+        recipeService = mock(RecipeService.class);
+        Recipe saved = new Recipe();
+        saved.setId(42L);
+        when(recipeService.saveGeneratedRecipe(any(RecipeDto.class), anyString(), anyString(), anyString())).thenReturn(saved);
+
+        aiRecipeService = new AIRecipeService(recipeService, config.anthropicClient(httpClient, properties),
+            new RecipeResponseCache(properties));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        server.shutdown();
+    }
+
+    @Test
+    void generateRecipeStreaming_ShouldEmitFieldsBeforeStreamEndsAndPersist() {
+        // Arrange - deliver the body slowly so the stream takes a few seconds
+        String json = StubAnthropicResponses.recipeJson("Streamed Rice");
+        server.enqueue(StubAnthropicResponses.streamedMessage(json, 16)
+            .throttleBody(256, 200, TimeUnit.MILLISECONDS));
+        List<String> events = new ArrayList<>();
+        long[] firstEventAt = new long[1];
+
+        // Act
+        RecipeDto recipe = aiRecipeService.generateRecipeStreaming("rice", "test-user", true, (name, value) -> {
+            if (events.isEmpty()) {
+                firstEventAt[0] = System.nanoTime();
+            }
+            events.add(name);
+        });
+        long remainingAfterFirstEvent = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - firstEventAt[0]);
+
+        // Assert
+        assertEquals(42L, recipe.getId());
+        assertEquals("Streamed Rice", recipe.getTitle());
+        assertEquals("title", events.get(0));
+        assertEquals(3, events.stream().filter("ingredient"::equals).count());
+        assertEquals(5, events.stream().filter("instruction"::equals).count());
+        assertTrue(remainingAfterFirstEvent > 1000, "First field arrived only " + remainingAfterFirstEvent + " ms before the end");
+        verify(recipeService).saveGeneratedRecipe(any(RecipeDto.class), eq("test-user"), eq("rice"), anyString());
+    }
+}
@@ -0,0 +1,101 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.StubAnthropicResponses;
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs more concurrent generations than there are pooled database connections against a slow
+ * stub LLM. Read endpoints must stay fast because no connection is held during the model call.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.hikari.maximum-pool-size=2",
+    "spring.datasource.hikari.connection-timeout=1000",
+    "anthropic.cache.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class AIRecipeServiceTransactionTest {
+
+    private static final int CONCURRENT_GENERATIONS = 6;
+    private static final long LLM_LATENCY_MS = 1500;
+    private static final long MAX_READ_LATENCY_MS = 500;
+
+    private static final MockWebServer server = new MockWebServer();
+
+    @Autowired
+    private AIRecipeService aiRecipeService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void anthropicProperties(DynamicPropertyRegistry registry) throws IOException {
+        server.start();
+        registry.add("anthropic.api.base-url", () -> server.url("/").toString());
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void concurrentSlowGenerations_ShouldNotStarveReadEndpoints() throws Exception {
+        // Arrange
+        for (int i = 0; i < CONCURRENT_GENERATIONS; i++) {
+            server.enqueue(StubAnthropicResponses.message(StubAnthropicResponses.recipeJson("Slow " + i))
+                .setHeadersDelay(LLM_LATENCY_MS, TimeUnit.MILLISECONDS));
+        }
+        mockMvc.perform(get("/api/recipes")).andExpect(status().isOk()); // warm up
+
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENT_GENERATIONS);
+        try {
+            List<Future<RecipeDto>> generations = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_GENERATIONS; i++) {
+                generations.add(executor.submit(() -> aiRecipeService.generateRecipe("chicken, rice", "test-user")));
+            }
+            Thread.sleep(LLM_LATENCY_MS / 3);
+
+            // Act - read while every generation is waiting on the model
+            long slowest = 0;
+            for (int i = 0; i < 5; i++) {
+                long start = System.nanoTime();
+                mockMvc.perform(get("/api/recipes")).andExpect(status().isOk());
+                slowest = Math.max(slowest, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+
+            // Assert
+            assertTrue(slowest < MAX_READ_LATENCY_MS, "Read took " + slowest + " ms while generations were running");
+            for (Future<RecipeDto> generation : generations) {
+                assertNotNull(generation.get(10, TimeUnit.SECONDS).getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.AnthropicClientConfig;
+import ch.ilv.m295.airezept.config.AnthropicProperties;
+import ch.ilv.m295.airezept.config.AsyncConfig;
+import ch.ilv.m295.airezept.config.PooledAnthropicHttpClient;
+import ch.ilv.m295.airezept.config.StubAnthropicResponses;
+import ch.ilv.m295.airezept.dto.BatchGenerationDto;
+import ch.ilv.m295.airezept.dto.BatchItemDto;
+import ch.ilv.m295.airezept.entity.JobStatus;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.OfflineBatchRepository;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BatchGenerationServiceTest {
+
+    private static final int PARALLELISM = 3;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private MockWebServer server;
+    private PooledAnthropicHttpClient httpClient;
+    private ThreadPoolTaskExecutor executor;
+    private RecipeService recipeService;
+    private BatchGenerationService batchGenerationService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new StubModel());
+        server.start();
+
+        AnthropicProperties properties = StubAnthropicResponses.properties(server.url("/").toString());
+        properties.getBatch().setParallelism(PARALLELISM);
+        AnthropicClientConfig config = new AnthropicClientConfig();
+        httpClient = config.anthropicHttpClient(properties, new MockEnvironment());
+        AIRecipeService aiRecipeService = new AIRecipeService(mock(RecipeService.class),
+            config.anthropicClient(httpClient, properties), new RecipeResponseCache(properties));
+
+        executor = new AsyncConfig().aiJobExecutor(properties);
+        executor.initialize();
+
+        recipeService = mock(RecipeService.class);
+        AtomicLong ids = new AtomicLong();
+        when(recipeService.saveGeneratedRecipes(anyList(), eq("test-user"))).thenAnswer(invocation -> {
+            List<Recipe> saved = new ArrayList<>();
+            for (Object ignored : invocation.getArgument(0, List.class)) {
+                Recipe recipe = new Recipe();
+                recipe.setId(ids.incrementAndGet());
+                saved.add(recipe);
+            }
+            return saved;
+        });
+
+        // Offline batches are covered by OfflineBatchGenerationTest against the database
+        batchGenerationService = new BatchGenerationService(aiRecipeService, recipeService, executor, properties,
+            mock(OfflineBatchRepository.class), mock(TransactionTemplate.class));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        executor.shutdown();
+        httpClient.close();
+        server.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateBatch_ShouldCapParallelismAndReturnPartialResults() {
+        // Arrange
+        List<String> ideas = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ideas.add(i == 4 ? "broken idea" : "dinner " + i);
+        }
+
+        // Act
+        BatchGenerationDto result = batchGenerationService.generateBatch(ideas, "test-user", true);
+
+        // Assert
+        assertEquals(JobStatus.COMPLETED, result.getStatus());
+        assertEquals(9, result.getSucceeded());
+        assertEquals(1, result.getFailed());
+        BatchItemDto failed = result.getItems().get(4);
+        assertEquals("broken idea", failed.getIdea());
+        assertNull(failed.getRecipe());
+        assertNotNull(failed.getError());
+        assertEquals(1L, result.getItems().get(0).getRecipe().getId());
+        assertEquals(9L, result.getItems().get(9).getRecipe().getId());
+
+        assertEquals(10, server.getRequestCount());
+        assertTrue(peakInFlight.get() <= PARALLELISM, "Peak was " + peakInFlight.get());
+        assertTrue(peakInFlight.get() > 1, "Ideas should be generated in parallel");
+
+        // All successful recipes are saved in one call, i.e. one transaction
+        ArgumentCaptor<List<GeneratedRecipe>> saved = ArgumentCaptor.forClass(List.class);
+        verify(recipeService, times(1)).saveGeneratedRecipes(saved.capture(), eq("test-user"));
+        assertEquals(9, saved.getValue().size());
+        assertEquals("dinner 0", saved.getValue().get(0).userInput());
+    }
+
+    /** Answers Messages API calls like the real API would, slowly enough to overlap. */
+    private class StubModel extends Dispatcher {
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+                String body = request.getBody().readUtf8();
+                return body.contains("broken idea")
+                    ? StubAnthropicResponses.message("{\"title\": 42}")
+                    : StubAnthropicResponses.message(StubAnthropicResponses.recipeJson("Generated"));
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.AnthropicProperties;
+import ch.ilv.m295.airezept.dto.GenerationJobDto;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.JobStatus;
+import ch.ilv.m295.airezept.exception.GenerationQueueFullException;
+import ch.ilv.m295.airezept.repository.InMemoryGenerationJobStore;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GenerationJobServiceTest {
+
+    private AIRecipeService aiRecipeService;
+    private RecipeService recipeService;
+    private ThreadPoolTaskExecutor aiJobExecutor;
+    private GenerationJobService generationJobService;
+    private final List<Runnable> queued = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        aiRecipeService = mock(AIRecipeService.class);
+        recipeService = mock(RecipeService.class);
+        aiJobExecutor = mock(ThreadPoolTaskExecutor.class);
+        doAnswer(invocation -> queued.add(invocation.getArgument(0))).when(aiJobExecutor).execute(any(Runnable.class));
+
+        AnthropicProperties properties = new AnthropicProperties();
+        properties.getJobs().setRetryAfter(Duration.ofSeconds(7));
+        generationJobService = new GenerationJobService(aiRecipeService, recipeService,
+            new InMemoryGenerationJobStore(properties), aiJobExecutor, properties);
+    }
+
+    @Test
+    void submitJob_ShouldReturnPendingJobAndCompleteInBackground() {
+        // Arrange
+        RecipeDto generated = new RecipeDto();
+        generated.setId(5L);
+        generated.setTitle("Curry");
+        when(aiRecipeService.generateRecipe("curry", "test-user")).thenReturn(generated);
+        when(recipeService.getRecipeDtoById(5L)).thenReturn(generated);
+
+        // Act
+        GenerationJobDto submitted = generationJobService.submitJob("curry", "test-user");
+        queued.forEach(Runnable::run);
+        GenerationJobDto finished = generationJobService.getJob(submitted.getId(), "test-user");
+
+        // Assert
+        assertEquals(JobStatus.PENDING, submitted.getStatus());
+        assertNull(submitted.getRecipe());
+        assertEquals(JobStatus.COMPLETED, finished.getStatus());
+        assertEquals("Curry", finished.getRecipe().getTitle());
+    }
+
+    @Test
+    void submitJob_WhenTheWorkerFinishesFirst_ShouldStillReturnThePendingJob() {
+        // Arrange - the worker runs the job before submitJob returns
+        RecipeDto generated = new RecipeDto();
+        generated.setId(5L);
+        when(aiRecipeService.generateRecipe("curry", "test-user")).thenReturn(generated);
+        when(recipeService.getRecipeDtoById(5L)).thenReturn(generated);
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return null;
+        }).when(aiJobExecutor).execute(any(Runnable.class));
+
+        // Act
+        GenerationJobDto submitted = generationJobService.submitJob("curry", "test-user");
+
+        // Assert
+        assertEquals(JobStatus.PENDING, submitted.getStatus());
+        assertNull(submitted.getRecipe());
+        assertEquals(submitted.getCreatedAt(), submitted.getUpdatedAt());
+        assertEquals(JobStatus.COMPLETED, generationJobService.getJob(submitted.getId(), "test-user").getStatus());
+    }
+
+    @Test
+    void submitJob_WhenGenerationFails_ShouldMarkJobFailed() {
+        // Arrange
+        when(aiRecipeService.generateRecipe("curry", "test-user")).thenThrow(new RuntimeException("model unavailable"));
+
+        // Act
+        GenerationJobDto submitted = generationJobService.submitJob("curry", "test-user");
+        queued.forEach(Runnable::run);
+        GenerationJobDto failed = generationJobService.getJob(submitted.getId(), "test-user");
+
+        // Assert
+        assertEquals(JobStatus.FAILED, failed.getStatus());
+        assertEquals("model unavailable", failed.getError());
+    }
+
+    @Test
+    void submitJob_WhenQueueIsFull_ShouldThrowWithRetryAfterAndForgetJob() {
+        // Arrange
+        doThrow(new TaskRejectedException("full")).when(aiJobExecutor).execute(any(Runnable.class));
+
+        // Act
+        GenerationQueueFullException exception = assertThrows(GenerationQueueFullException.class,
+            () -> generationJobService.submitJob("curry", "test-user"));
+
+        // Assert
+        assertEquals(Duration.ofSeconds(7), exception.getRetryAfter());
+        verifyNoInteractions(aiRecipeService);
+    }
+
+    @Test
+    void getJob_OfAnotherUser_ShouldThrowEntityNotFoundException() {
+        // Arrange
+        GenerationJobDto submitted = generationJobService.submitJob("curry", "test-user");
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> generationJobService.getJob(submitted.getId(), "other-user"));
+    }
+}
@@ -0,0 +1,155 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.AnthropicClientConfig;
+import ch.ilv.m295.airezept.config.AnthropicProperties;
+import ch.ilv.m295.airezept.config.AsyncConfig;
+import ch.ilv.m295.airezept.config.PooledAnthropicHttpClient;
+import ch.ilv.m295.airezept.config.StubAnthropicResponses;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Load scenario for both execution modes: many generations are submitted to the job executor
+ * at once against a stub model that answers after a fixed latency, and the test reports how
+ * many of them were in flight at the same time.
+ */
+class GenerationLoadScenarioTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationLoadScenarioTest.class);
+
+    private static final int GENERATIONS = 160;
+    private static final int POOL_SIZE = 16;
+    private static final long MODEL_LATENCY_MILLIS = 250;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private MockWebServer server;
+    private AnthropicProperties properties;
+    private PooledAnthropicHttpClient httpClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(MODEL_LATENCY_MILLIS);
+                    return StubAnthropicResponses.message(StubAnthropicResponses.recipeJson("Load"));
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+        server.start();
+
+        properties = StubAnthropicResponses.properties(server.url("/").toString());
+        // Only the executor should limit concurrency in this scenario
+        properties.getClient().setMaxConcurrency(GENERATIONS);
+        properties.getClient().setMaxIdleConnections(GENERATIONS);
+        properties.getJobs().setPoolSize(POOL_SIZE);
+        properties.getJobs().setQueueCapacity(GENERATIONS);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (httpClient != null) {
+            httpClient.close();
+        }
+        server.shutdown();
+    }
+
+    @Test
+    void platformThreads_ShouldBeLimitedByPoolSize() throws Exception {
+        // Arrange
+        ThreadPoolTaskExecutor executor = new AsyncConfig().aiJobExecutor(properties);
+        executor.initialize();
+
+        // Act
+        long elapsed = runScenario(executor, new MockEnvironment());
+        executor.shutdown();
+
+        // Assert
+        report("platform", elapsed);
+        assertEquals(POOL_SIZE, peakInFlight.get());
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void virtualThreads_ShouldRunEveryGenerationAtOnce() throws Exception {
+        // Arrange
+        AsyncTaskExecutor executor = new AsyncConfig().aiJobVirtualExecutor(properties);
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+
+        // Act
+        long elapsed = runScenario(executor, environment);
+
+        // Assert
+        report("virtual", elapsed);
+        assertTrue(peakInFlight.get() > POOL_SIZE * 4,
+            "Expected far more than " + POOL_SIZE + " concurrent generations, got " + peakInFlight.get());
+    }
+
+    private long runScenario(AsyncTaskExecutor executor, MockEnvironment environment) throws InterruptedException {
+        AnthropicClientConfig config = new AnthropicClientConfig();
+        httpClient = config.anthropicHttpClient(properties, environment);
+
+        RecipeService recipeService = mock(RecipeService.class);
+        when(recipeService.saveGeneratedRecipe(any(RecipeDto.class), anyString(), anyString(), anyString()))
+            .thenReturn(new Recipe());
+        AIRecipeService aiRecipeService = new AIRecipeService(recipeService, config.anthropicClient(httpClient, properties),
+            new RecipeResponseCache(properties));
+
+        CountDownLatch done = new CountDownLatch(GENERATIONS);
+        AtomicInteger failures = new AtomicInteger();
+        long start = System.nanoTime();
+        for (int i = 0; i < GENERATIONS; i++) {
+            // Distinct inputs, so requests are not coalesced
+            String input = "ingredient " + i;
+            executor.execute(() -> {
+                try {
+                    aiRecipeService.generateRecipe(input, "load-user");
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        assertEquals(0, failures.get());
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private void report(String mode, long elapsedMillis) {
+        logger.info("Load scenario [{}]: {} generations, {} ms model latency, peak {} concurrent, {} ms total, {} generations/s",
+            mode, GENERATIONS, MODEL_LATENCY_MILLIS, peakInFlight.get(), elapsedMillis,
+            GENERATIONS * 1000L / Math.max(1, elapsedMillis));
+    }
+}
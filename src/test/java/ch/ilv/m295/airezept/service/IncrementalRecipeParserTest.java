@@ -0,0 +1,67 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.StubAnthropicResponses;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalRecipeParserTest {
+
+    @Test
+    void feed_WithSmallChunks_ShouldEmitEveryFieldInOrder() {
+        // Arrange
+        List<String> events = new ArrayList<>();
+        IncrementalRecipeParser parser = new IncrementalRecipeParser((name, value) -> events.add(name + "=" + value));
+        String json = "```json\n" + StubAnthropicResponses.recipeJson("Chicken Rice") + "```";
+
+        // Act
+        for (int i = 0; i < json.length(); i += 3) {
+            parser.feed(json.substring(i, Math.min(json.length(), i + 3)));
+        }
+
+        // Assert
+        assertTrue(parser.isFinished());
+        assertEquals(List.of(
+            "title=Chicken Rice",
+            "description=A quick weeknight dinner",
+            "ingredient=200 g chicken",
+            "ingredient=150 g rice",
+            "ingredient=1 broccoli",
+            "instruction=### Step 1: Prepare",
+            "instruction=1. Chop everything",
+            "instruction=",
+            "instruction=### Step 2: Cook",
+            "instruction=1. Cook it",
+            "preparationTime=10",
+            "cookingTime=25",
+            "servings=2"
+        ), events);
+        assertEquals(json, parser.getRaw());
+    }
+
+    @Test
+    void feed_ShouldEmitTitleBeforeTheRestHasArrived() {
+        // Arrange
+        List<String> events = new ArrayList<>();
+        IncrementalRecipeParser parser = new IncrementalRecipeParser((name, value) -> events.add(name));
+
+        // Act
+        parser.feed("{\"title\": \"Pasta\", \"descri");
+
+        // Assert
+        assertEquals(List.of("title"), events);
+        assertFalse(parser.isFinished());
+    }
+
+    @Test
+    void feed_WithMalformedJson_ShouldThrowIllegalArgumentException() {
+        // Arrange
+        IncrementalRecipeParser parser = new IncrementalRecipeParser((name, value) -> { });
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> parser.feed("{\"title\": ]"));
+    }
+}
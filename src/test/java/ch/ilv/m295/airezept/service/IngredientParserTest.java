@@ -0,0 +1,51 @@
+package ch.ilv.m295.airezept.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngredientParserTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', nullValues = "null", value = {
+        "200 g flour                          | 200.0 | g     | flour",
+        "200g Flour                           | 200.0 | g     | flour",
+        "2 eggs                               | 2.0   | null  | egg",
+        "1 1/2 cups of chopped tomatoes (ripe) | 1.5   | cup   | tomato",
+        "½ tsp salt                           | 0.5   | tsp   | salt",
+        "2-3 cloves garlic, minced            | 2.0   | clove | garlic",
+        "2 to 3 Tbsp. olive oil               | 2.0   | tbsp  | olive oil",
+        "0,5 l Milch                          | 0.5   | l     | milch",
+        "3 cloves                             | 3.0   | null  | clove",
+        "Salt to taste                        | null  | null  | salt",
+        "Fresh basil leaves for garnish       | null  | null  | basil leaf",
+        "1 can crème fraîche                  | 1.0   | can   | creme fraiche",
+        "4 large potatoes                     | 4.0   | null  | potato",
+        "1 cup blueberries                    | 1.0   | cup   | blueberry",
+        "2 tbsp molasses                      | 2.0   | tbsp  | molasses"
+    })
+    void parse_ShouldSplitQuantityUnitAndCanonicalName(String text, Double quantity, String unit, String name) {
+        // Act
+        IngredientParser.ParsedIngredient parsed = IngredientParser.parse(text);
+
+        // Assert
+        assertEquals(new IngredientParser.ParsedIngredient(quantity, unit, name), parsed);
+    }
+
+    @Test
+    void parse_WithoutName_ShouldReturnNull() {
+        // Act & Assert
+        assertNull(IngredientParser.parse("200 g"));
+        assertNull(IngredientParser.parse("  "));
+        assertNull(IngredientParser.parse(null));
+    }
+
+    @Test
+    void canonicalName_ShouldMatchTheNameParsedFromARecipe() {
+        // Act & Assert
+        assertEquals(IngredientParser.parse("3 Eggs").name(), IngredientParser.canonicalName("eggs"));
+        assertEquals(IngredientParser.parse("2 tomatoes").name(), IngredientParser.canonicalName("Tomato"));
+    }
+}
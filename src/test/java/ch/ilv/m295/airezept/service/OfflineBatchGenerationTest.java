@@ -0,0 +1,239 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.StubAnthropicResponses;
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.dto.BatchGenerationDto;
+import ch.ilv.m295.airezept.entity.JobStatus;
+import ch.ilv.m295.airezept.entity.OfflineBatch;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.OfflineBatchRepository;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import jakarta.persistence.EntityNotFoundException;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Submits offline batches against a stub Message Batches API and checks that the poller saves
+ * ended ones without anyone asking for them, also when they were submitted before a restart,
+ * and that batches which never return, or finished long ago, do not stay around.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:offlinebatches;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.show-sql=false",
+    "anthropic.cache.enabled=false"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class OfflineBatchGenerationTest {
+
+    // The stub returns one result per idea, the first one a recipe
+    private static final List<String> IDEAS = List.of("pasta", "soup", "curry");
+
+    private static final MockWebServer server = new MockWebServer();
+    private static final StubBatches batches = new StubBatches();
+
+    @Autowired
+    private BatchGenerationService batchGenerationService;
+
+    @Autowired
+    private OfflineBatchRepository offlineBatchRepository;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @DynamicPropertySource
+    static void anthropicProperties(DynamicPropertyRegistry registry) throws IOException {
+        server.setDispatcher(batches);
+        server.start();
+        registry.add("anthropic.api.base-url", () -> server.url("/").toString());
+    }
+
+    @AfterAll
+    static void shutdown() throws IOException {
+        server.shutdown();
+    }
+
+    @AfterEach
+    void tearDown() {
+        offlineBatchRepository.deleteAll();
+        recipeService.deleteRecipes(recipeRepository.findAll().stream().map(Recipe::getId).toList());
+        batches.ended.clear();
+    }
+
+    @Test
+    void pollOfflineBatches_ShouldSaveAnEndedBatchNobodyAskedFor() {
+        // Arrange
+        BatchGenerationDto submitted = batchGenerationService.submitOfflineBatch(IDEAS, "test-user");
+        batchGenerationService.pollOfflineBatches();
+        assertEquals(JobStatus.RUNNING, offlineBatchRepository.findById(submitted.getId()).orElseThrow().getStatus());
+
+        // Act
+        batches.ended.add(submitted.getId());
+        batchGenerationService.pollOfflineBatches();
+        batchGenerationService.pollOfflineBatches();
+
+        // Assert
+        OfflineBatch stored = offlineBatchRepository.findById(submitted.getId()).orElseThrow();
+        assertEquals(JobStatus.COMPLETED, stored.getStatus());
+        assertNotNull(stored.getCompletedAt());
+        assertEquals(List.of("Batch pasta"), recipeRepository.findAll().stream().map(Recipe::getTitle).toList());
+        assertEquals(1, batches.resultDownloads.get(), "A completed batch must not be fetched again");
+
+        BatchGenerationDto completed = batchGenerationService.getOfflineBatch(submitted.getId(), "test-user");
+        assertEquals(JobStatus.COMPLETED, completed.getStatus());
+        assertEquals(1, completed.getSucceeded());
+        assertEquals(2, completed.getFailed());
+        assertEquals("Batch pasta", completed.getItems().get(0).getRecipe().getTitle());
+        assertEquals(recipeRepository.findAll().get(0).getId(), completed.getItems().get(0).getRecipe().getId());
+        assertEquals("The model request failed", completed.getItems().get(1).getError());
+        assertNotNull(completed.getItems().get(2).getError());
+        assertEquals(1, batches.resultDownloads.get());
+    }
+
+    @Test
+    void getOfflineBatch_WhenTheBatchHasEnded_ShouldSaveItOnce() {
+        // Arrange
+        BatchGenerationDto submitted = batchGenerationService.submitOfflineBatch(IDEAS, "test-user");
+        BatchGenerationDto running = batchGenerationService.getOfflineBatch(submitted.getId(), "test-user");
+        batches.ended.add(submitted.getId());
+
+        // Act
+        BatchGenerationDto completed = batchGenerationService.getOfflineBatch(submitted.getId(), "test-user");
+        batchGenerationService.pollOfflineBatches();
+        BatchGenerationDto again = batchGenerationService.getOfflineBatch(submitted.getId(), "test-user");
+
+        // Assert
+        assertEquals(JobStatus.RUNNING, running.getStatus());
+        assertEquals(JobStatus.COMPLETED, completed.getStatus());
+        assertEquals(completed, again);
+        assertEquals(1, recipeRepository.count());
+    }
+
+    @Test
+    void pollOfflineBatches_ShouldCollectABatchSubmittedBeforeARestart() {
+        // Arrange - only the row is left, as after a restart
+        String id = batches.nextId();
+        offlineBatchRepository.save(batch(id, JobStatus.RUNNING, LocalDateTime.now().minusHours(3)));
+        batches.ended.add(id);
+
+        // Act
+        batchGenerationService.pollOfflineBatches();
+
+        // Assert
+        assertEquals(JobStatus.COMPLETED, offlineBatchRepository.findById(id).orElseThrow().getStatus());
+        assertEquals(1, recipeRepository.count());
+    }
+
+    @Test
+    void pollOfflineBatches_ShouldFailBatchesPendingLongerThanTheExpiry() {
+        // Arrange - the provider no longer knows the batch
+        offlineBatchRepository.save(batch("msgbatch_lost", JobStatus.RUNNING, LocalDateTime.now().minusHours(26)));
+        String recent = batches.nextId();
+        offlineBatchRepository.save(batch(recent, JobStatus.RUNNING, LocalDateTime.now().minusHours(1)));
+
+        // Act
+        batchGenerationService.pollOfflineBatches();
+
+        // Assert
+        BatchGenerationDto lost = batchGenerationService.getOfflineBatch("msgbatch_lost", "test-user");
+        assertEquals(JobStatus.FAILED, lost.getStatus());
+        assertNotNull(lost.getError());
+        assertEquals(JobStatus.RUNNING, offlineBatchRepository.findById(recent).orElseThrow().getStatus());
+    }
+
+    @Test
+    void pollOfflineBatches_ShouldDeleteFinishedBatchesAfterTheRetention() {
+        // Arrange
+        OfflineBatch old = batch("msgbatch_old", JobStatus.COMPLETED, LocalDateTime.now().minusHours(3));
+        old.setCompletedAt(LocalDateTime.now().minusHours(2));
+        offlineBatchRepository.save(old);
+        OfflineBatch fresh = batch("msgbatch_fresh", JobStatus.FAILED, LocalDateTime.now().minusHours(3));
+        fresh.setCompletedAt(LocalDateTime.now().minusMinutes(5));
+        offlineBatchRepository.save(fresh);
+
+        // Act
+        batchGenerationService.pollOfflineBatches();
+
+        // Assert
+        assertEquals(List.of("msgbatch_fresh"), offlineBatchRepository.findAll().stream().map(OfflineBatch::getId).toList());
+    }
+
+    @Test
+    void getOfflineBatch_OfAnotherUser_ShouldThrow() {
+        BatchGenerationDto submitted = batchGenerationService.submitOfflineBatch(List.of("pasta"), "test-user");
+
+        assertThrows(EntityNotFoundException.class,
+            () -> batchGenerationService.getOfflineBatch(submitted.getId(), "other-user"));
+    }
+
+    private static OfflineBatch batch(String id, JobStatus status, LocalDateTime createdAt) {
+        OfflineBatch batch = new OfflineBatch();
+        batch.setId(id);
+        batch.setUserId("test-user");
+        batch.setIdeas(IDEAS);
+        batch.setStatus(status);
+        batch.setCreatedAt(createdAt);
+        return batch;
+    }
+
+    /** Message Batches API with a new id per batch; a batch ends once its id is added to {@link #ended}. */
+    private static class StubBatches extends Dispatcher {
+        private final Set<String> ended = ConcurrentHashMap.newKeySet();
+        private final Set<String> known = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger ids = new AtomicInteger();
+        private final AtomicInteger resultDownloads = new AtomicInteger();
+
+        String nextId() {
+            String id = "msgbatch_" + ids.incrementAndGet();
+            known.add(id);
+            return id;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            String path = request.getPath();
+            if (path.equals("/v1/messages/batches")) {
+                return StubAnthropicResponses.messageBatch(nextId(), "in_progress");
+            }
+            String id = path.substring("/v1/messages/batches/".length()).split("/")[0];
+            if (!known.contains(id)) {
+                return new MockResponse().setResponseCode(404)
+                    .setBody("{\"type\":\"error\",\"error\":{\"type\":\"not_found_error\",\"message\":\"Not found\"}}");
+            }
+            if (path.endsWith("/results")) {
+                resultDownloads.incrementAndGet();
+                Map<String, String> results = new LinkedHashMap<>();
+                results.put("item-0", StubAnthropicResponses.recipeJson("Batch pasta"));
+                results.put("item-1", null);
+                results.put("item-2", "Sorry, I cannot help with that.");
+                return StubAnthropicResponses.batchResults(results);
+            }
+            return StubAnthropicResponses.messageBatch(id, ended.contains(id) ? "ended" : "in_progress");
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.RequestHistoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the JDBC round trips of saving recipes. With sequence ids and JDBC batching, all rows
+ * of one table go out in one batch instead of one insert each.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:recipebatchinsert;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+@Import({TestConfig.class, RecipeBatchInsertTest.CountingDataSourceConfig.class})
+class RecipeBatchInsertTest {
+
+    private static final int INGREDIENTS = 15;
+
+    // The SQL of each round trip; batches as "batch of <rows>: <sql>"
+    private static final List<String> ROUND_TRIPS = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RequestHistoryRepository requestHistoryRepository;
+
+    /**
+     * Wraps the data source so that every executed statement and batch is recorded.
+     */
+    @TestConfiguration
+    static class CountingDataSourceConfig {
+        @Bean
+        static BeanPostProcessor countingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource
+                        ? proxy(DataSource.class, dataSource, (target, method, args) -> {
+                            Object result = invoke(target, method, args);
+                            return result instanceof Connection connection ? countingConnection(connection) : result;
+                        })
+                        : bean;
+                }
+            };
+        }
+
+        private static Connection countingConnection(Connection connection) {
+            return proxy(Connection.class, connection, (target, method, args) -> {
+                Object result = invoke(target, method, args);
+                return result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")
+                    ? countingStatement(statement, (String) args[0])
+                    : result;
+            });
+        }
+
+        private static PreparedStatement countingStatement(PreparedStatement statement, String sql) {
+            int[] rows = new int[1];
+            return proxy(PreparedStatement.class, statement, (target, method, args) -> {
+                switch (method.getName()) {
+                    case "addBatch" -> rows[0]++;
+                    case "executeBatch" -> {
+                        ROUND_TRIPS.add("batch of " + rows[0] + ": " + sql);
+                        rows[0] = 0;
+                    }
+                    case "execute", "executeQuery", "executeUpdate" -> ROUND_TRIPS.add(sql);
+                    default -> {
+                    }
+                }
+                return invoke(target, method, args);
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, TargetHandler handler) {
+            InvocationHandler invocationHandler = (proxy, method, args) -> handler.invoke(target, method, args);
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private interface TargetHandler {
+            Object invoke(Object target, Method method, Object[] args) throws Throwable;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        ROUND_TRIPS.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        requestHistoryRepository.deleteAll();
+    }
+
+    @Test
+    void createRecipe_WithFifteenIngredients_ShouldInsertEachTableInOneBatch() {
+        // Arrange
+        RecipeDto dto = recipeDto("Minestrone");
+
+        // Act
+        Recipe recipe = recipeService.createRecipe(dto, "test-user");
+
+        // Assert
+        assertNotNull(recipe.getId());
+        assertEquals(List.of(
+            "batch of 1: insert into recipe",
+            "batch of " + INGREDIENTS + ": insert into normalized_ingredient"), batches(), ROUND_TRIPS.toString());
+        // Plus at most one sequence call per table, for the next block of 50 ids
+        assertTrue(sequenceCalls() <= 2, ROUND_TRIPS.toString());
+        assertEquals(batches().size() + sequenceCalls(), ROUND_TRIPS.size(), ROUND_TRIPS.toString());
+    }
+
+    @Test
+    void saveGeneratedRecipes_ShouldBatchRecipesIngredientsAndHistories() {
+        // Arrange
+        List<GeneratedRecipe> generated = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            generated.add(new GeneratedRecipe("Idea " + i, "{}", recipeDto("Recipe " + i)));
+        }
+
+        // Act
+        List<Recipe> recipes = recipeService.saveGeneratedRecipes(generated, "test-user");
+
+        // Assert
+        assertEquals(10, recipes.size());
+        assertEquals(List.of(
+            "batch of 10: insert into recipe",
+            "batch of 50: insert into normalized_ingredient",
+            "batch of 50: insert into normalized_ingredient",
+            "batch of 50: insert into normalized_ingredient",
+            "batch of 10: insert into request_history"), batches(), ROUND_TRIPS.toString());
+        // 150 ingredient ids are three or four blocks, depending on what is left of the current one
+        assertTrue(sequenceCalls() <= 6, ROUND_TRIPS.toString());
+        assertEquals(batches().size() + sequenceCalls(), ROUND_TRIPS.size(), ROUND_TRIPS.toString());
+    }
+
+    private static RecipeDto recipeDto(String title) {
+        RecipeDto dto = new RecipeDto();
+        dto.setTitle(title);
+        List<String> ingredients = new ArrayList<>();
+        for (int i = 1; i <= INGREDIENTS; i++) {
+            ingredients.add(i + " g ingredient" + i);
+        }
+        dto.setIngredients(ingredients);
+        dto.setInstructions("Cook it");
+        return dto;
+    }
+
+    // The batches, with the SQL cut after the table name
+    private static List<String> batches() {
+        return ROUND_TRIPS.stream()
+            .filter(sql -> sql.startsWith("batch of "))
+            .map(sql -> sql.substring(0, sql.indexOf(" (")))
+            .toList();
+    }
+
+    private static long sequenceCalls() {
+        return ROUND_TRIPS.stream().filter(sql -> sql.contains("next value for") || sql.contains("nextval")).count();
+    }
+}
@@ -0,0 +1,134 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.dto.CursorPageDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.IngredientIndex;
+import ch.ilv.m295.airezept.repository.NormalizedIngredientRepository;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import ch.ilv.m295.airezept.repository.RecipeSearchIndex;
+import ch.ilv.m295.airezept.repository.RecipeSortField;
+import ch.ilv.m295.airezept.repository.RequestHistoryRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Deletes recipes between the query for the ids of a page and the load of its recipes, as a
+ * concurrent request can, and checks that every listing leaves them out instead of failing.
+ */
+class RecipeConcurrentDeleteTest {
+
+    private RecipeRepository recipeRepository;
+    private RecipeService recipeService;
+
+    @BeforeEach
+    void setUp() {
+        recipeRepository = mock(RecipeRepository.class);
+        recipeService = new RecipeService(recipeRepository, mock(RequestHistoryRepository.class),
+            mock(NormalizedIngredientRepository.class), mock(RequestHistoryWriter.class), mock(RecipeETagCache.class),
+            mock(EntityManagerFactory.class), mock(RecipeSearchIndex.class), mock(IngredientIndex.class));
+    }
+
+    @Test
+    void getRecipesAfter_WhenTheLastRecipeOfThePageWasDeleted_ShouldContinueAfterTheLastOneLeft() {
+        // Arrange - a page of 3 plus one row to detect the next page; recipe 3 is gone
+        when(recipeRepository.findIdsAfter(eq(RecipeSortField.CREATED_AT), eq(Sort.Direction.DESC), isNull(), isNull(), eq(4)))
+            .thenReturn(List.of(1L, 2L, 3L, 4L));
+        when(recipeRepository.findAllByIdIn(anyList())).thenAnswer(invocation -> existing(invocation.getArgument(0), 3L));
+
+        // Act
+        CursorPageDto<Recipe> page = recipeService.getRecipesAfter(null, "createdAt", "desc", 3);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), ids(page.getContent()));
+        assertTrue(page.isHasNext());
+        assertNotNull(page.getNextCursor());
+        when(recipeRepository.findIdsAfter(eq(RecipeSortField.CREATED_AT), eq(Sort.Direction.DESC), any(), eq(2L), eq(4)))
+            .thenReturn(List.of(4L));
+        assertEquals(List.of(4L), ids(recipeService.getRecipesAfter(page.getNextCursor(), "createdAt", "desc", 3).getContent()));
+    }
+
+    @Test
+    void getRecipesAfter_WhenEveryRecipeOfThePageWasDeleted_ShouldReadThePageAgain() {
+        // Arrange
+        when(recipeRepository.findIdsAfter(any(), any(), any(), any(), anyInt()))
+            .thenReturn(List.of(1L, 2L, 3L))
+            .thenReturn(List.of(3L));
+        when(recipeRepository.findAllByIdIn(anyList())).thenAnswer(invocation -> existing(invocation.getArgument(0), 1L, 2L));
+
+        // Act
+        CursorPageDto<Recipe> page = recipeService.getRecipesAfter(null, "createdAt", "desc", 2);
+
+        // Assert
+        assertEquals(List.of(3L), ids(page.getContent()));
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getAllRecipes_ShouldLeaveOutDeletedRecipes() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 3);
+        when(recipeRepository.findPageOfIds(pageable)).thenReturn(new PageImpl<>(List.of(1L, 2L, 3L), pageable, 5));
+        when(recipeRepository.findAllByIdIn(anyList())).thenAnswer(invocation -> existing(invocation.getArgument(0), 2L));
+
+        // Act
+        Page<Recipe> page = recipeService.getAllRecipes(pageable);
+
+        // Assert
+        assertEquals(List.of(1L, 3L), ids(page.getContent()));
+    }
+
+    @Test
+    void getRecipesByUser_ShouldLeaveOutDeletedRecipes() {
+        // Arrange
+        when(recipeRepository.findSliceOfIdsByCreatedBy(eq("test-user"), any()))
+            .thenReturn(new SliceImpl<>(List.of(1L, 2L), PageRequest.of(0, 2), true));
+        when(recipeRepository.findAllByIdIn(anyList())).thenAnswer(invocation -> existing(invocation.getArgument(0), 1L));
+
+        // Act
+        Slice<Recipe> slice = recipeService.getRecipesByUser("test-user", 0, 2);
+
+        // Assert
+        assertEquals(List.of(2L), ids(slice.getContent()));
+        assertTrue(slice.hasNext());
+    }
+
+    // The recipes of the ids that were not deleted, in any order like the database returns them
+    private static List<Recipe> existing(Collection<Long> ids, Long... deleted) {
+        List<Long> gone = List.of(deleted);
+        return ids.stream()
+            .filter(id -> !gone.contains(id))
+            .sorted((a, b) -> Long.compare(b, a))
+            .map(id -> {
+                Recipe recipe = new Recipe();
+                recipe.setId(id);
+                recipe.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0).minusMinutes(id));
+                return recipe;
+            })
+            .toList();
+    }
+
+    private static List<Long> ids(List<Recipe> recipes) {
+        return recipes.stream().map(Recipe::getId).toList();
+    }
+}
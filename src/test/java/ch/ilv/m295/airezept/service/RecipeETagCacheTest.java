@@ -0,0 +1,69 @@
+package ch.ilv.m295.airezept.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeETagCacheTest {
+
+    private final RecipeETagCache cache = new RecipeETagCache();
+
+    @Test
+    void get_ShouldLoadOnceAndThenAnswerFromTheCache() {
+        // Arrange
+        cache.get(1L, () -> "\"1-100\"");
+
+        // Act
+        String eTag = cache.get(1L, () -> fail("loaded again"));
+
+        // Assert
+        assertEquals("\"1-100\"", eTag);
+    }
+
+    @Test
+    void get_WhenEvictedDuringTheLoad_ShouldNotCacheTheOldTag() {
+        // Arrange: the recipe changes and is evicted while its old tag is being loaded
+        String loaded = cache.get(1L, () -> {
+            cache.evict(1L);
+            return "\"1-100\"";
+        });
+
+        // Act
+        String eTag = cache.get(1L, () -> "\"1-200\"");
+
+        // Assert
+        assertEquals("\"1-100\"", loaded);
+        assertEquals("\"1-200\"", eTag);
+    }
+
+    @Test
+    void get_WhenALaterLoadFinishesFirst_ShouldKeepItsTag() {
+        // Arrange: evicted during a slow load, then loaded again and cached before the slow one ends
+        cache.get(1L, () -> {
+            cache.evict(1L);
+            cache.get(1L, () -> "\"1-200\"");
+            return "\"1-100\"";
+        });
+
+        // Act
+        String eTag = cache.get(1L, () -> fail("loaded again"));
+
+        // Assert
+        assertEquals("\"1-200\"", eTag);
+    }
+
+    @Test
+    void get_WhenTheLoaderFails_ShouldLoadAgainNextTime() {
+        // Arrange
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        // Act
+        String eTag = cache.get(1L, () -> "\"1-100\"");
+
+        // Assert
+        assertEquals("\"1-100\"", eTag);
+        assertEquals("\"1-100\"", cache.get(1L, () -> fail("loaded again")));
+    }
+}
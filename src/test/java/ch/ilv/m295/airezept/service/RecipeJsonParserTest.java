@@ -0,0 +1,81 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.StubAnthropicResponses;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeJsonParserTest {
+
+    @Test
+    void parse_WithCodeFence_ShouldReadEveryField() throws Exception {
+        // Arrange
+        String response = "```json\n" + StubAnthropicResponses.recipeJson("Chicken Rice") + "\n```\n";
+
+        // Act
+        RecipeDto recipe = RecipeJsonParser.parse(response);
+
+        // Assert
+        assertEquals("Chicken Rice", recipe.getTitle());
+        assertEquals("A quick weeknight dinner", recipe.getDescription());
+        assertEquals(List.of("200 g chicken", "150 g rice", "1 broccoli"), recipe.getIngredients());
+        assertEquals("### Step 1: Prepare\n1. Chop everything\n\n### Step 2: Cook\n1. Cook it", recipe.getInstructions());
+        assertEquals(10, recipe.getPreparationTime());
+        assertEquals(25, recipe.getCookingTime());
+        assertEquals(2, recipe.getServings());
+    }
+
+    @Test
+    void parse_WithUnknownFields_ShouldSkipThem() throws Exception {
+        // Arrange
+        String response = """
+            {"title": "Soup", "tags": ["quick", {"nested": true}], "description": "Warm",
+             "ingredients": ["water"], "instructions": ["Boil"], "notes": null,
+             "preparation_time": 5, "cooking_time": 10.0, "servings": 1}
+            """;
+
+        // Act
+        RecipeDto recipe = RecipeJsonParser.parse(response);
+
+        // Assert
+        assertEquals("Soup", recipe.getTitle());
+        assertEquals(10, recipe.getCookingTime());
+    }
+
+    @Test
+    void parse_WithMissingField_ShouldReject() {
+        // Arrange
+        String response = "{\"title\": \"Soup\", \"ingredients\": [], \"instructions\": []}";
+
+        // Act & Assert
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> RecipeJsonParser.parse(response));
+        assertEquals("Missing required field: description", error.getMessage());
+    }
+
+    @Test
+    void parse_WithWrongTypes_ShouldReject() {
+        assertEquals("Invalid type for field: servings", assertThrows(IllegalArgumentException.class,
+            () -> RecipeJsonParser.parse(StubAnthropicResponses.recipeJson("Soup").replace("\"servings\": 2", "\"servings\": \"two\""))).getMessage());
+        assertEquals("Ingredients must be strings", assertThrows(IllegalArgumentException.class,
+            () -> RecipeJsonParser.parse("{\"title\": \"Soup\", \"ingredients\": [1]}")).getMessage());
+        assertEquals("Servings must be positive", assertThrows(IllegalArgumentException.class,
+            () -> RecipeJsonParser.parse(StubAnthropicResponses.recipeJson("Soup").replace("\"servings\": 2", "\"servings\": 0"))).getMessage());
+    }
+
+    @Test
+    void parse_WithTruncatedJson_ShouldReportSyntaxError() {
+        String response = StubAnthropicResponses.recipeJson("Soup").substring(0, 40);
+
+        assertThrows(JsonProcessingException.class, () -> RecipeJsonParser.parse(response));
+    }
+
+    @Test
+    void extractJson_ShouldDropSurroundingText() {
+        assertEquals("{\"a\": {}}", RecipeJsonParser.extractJson("```json\n{\"a\": {}}\n```"));
+        assertEquals("not json", RecipeJsonParser.extractJson("  not json "));
+    }
+}
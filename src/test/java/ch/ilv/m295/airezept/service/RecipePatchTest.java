@@ -0,0 +1,190 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.dto.RecipePatchDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the SQL of {@link RecipeService#patchRecipe}: a single-field change must update only
+ * that column (plus the timestamp and version), and unchanged ingredients must not be written.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:recipepatch;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ch.ilv.m295.airezept.service.RecipePatchTest$RecordingStatementInspector",
+    "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class RecipePatchTest {
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Recipe recipe;
+
+    /**
+     * Records every statement Hibernate prepares, to look at the generated SQL.
+     */
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        RecipeDto dto = new RecipeDto();
+        dto.setTitle("Bread");
+        dto.setDescription("Simple bread");
+        dto.setIngredients(new ArrayList<>(List.of("500 g flour", "300 ml water", "1 tsp salt")));
+        dto.setInstructions("Knead and bake");
+        dto.setPreparationTime(20);
+        dto.setCookingTime(40);
+        dto.setServings(4);
+        recipe = recipeService.createRecipe(dto, "test-user");
+
+        // Start every test from a cold cache, so the recipe is always read with one select
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        RecordingStatementInspector.STATEMENTS.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recipeRepository.findAll().forEach(stored -> recipeService.deleteRecipe(stored.getId(), "test-user"));
+    }
+
+    @Test
+    void patchRecipe_WithOnlyTitle_ShouldUpdateOnlyTheTitleColumn() {
+        // Arrange
+        RecipePatchDto patch = new RecipePatchDto();
+        patch.setTitle("Sourdough bread");
+
+        // Act
+        Recipe patched = recipeService.patchRecipe(recipe.getId(), patch, "test-user");
+
+        // Assert
+        assertEquals(2, statistics.getPrepareStatementCount(), "Select the recipe, update it");
+        List<String> updates = statementsStartingWith("update");
+        assertEquals(1, updates.size());
+        String update = updates.get(0);
+        assertTrue(update.startsWith("update recipe set "), update);
+        assertTrue(update.contains("title=?"), update);
+        assertTrue(update.contains("version=?"), update);
+        for (String column : List.of("description", "ingredients", "instructions", "servings", "created_by")) {
+            assertFalse(update.contains(column), column + " must not be written: " + update);
+        }
+        assertEquals("Sourdough bread", patched.getTitle());
+        assertEquals(recipe.getVersion() + 1, patched.getVersion());
+        assertEquals("Knead and bake", recipeRepository.findById(recipe.getId()).orElseThrow().getInstructions());
+    }
+
+    @Test
+    void patchRecipe_WithOneChangedIngredient_ShouldRewriteOnlyThatIngredient() {
+        // Arrange
+        RecipePatchDto patch = new RecipePatchDto();
+        patch.setIngredients(new ArrayList<>(List.of("500 g flour", "320 ml water", "1 tsp salt")));
+
+        // Act
+        recipeService.patchRecipe(recipe.getId(), patch, "test-user");
+
+        // Assert
+        assertEquals(1, statementsStartingWith("update recipe").size());
+        List<String> ingredientUpdates = statementsStartingWith("update normalized_ingredient");
+        assertEquals(1, ingredientUpdates.size());
+        assertTrue(ingredientUpdates.get(0).startsWith("update normalized_ingredient set quantity=? where"),
+            ingredientUpdates.get(0));
+        assertEquals(0, statementsStartingWith("insert").size());
+        assertEquals(0, statementsStartingWith("delete").size());
+    }
+
+    @Test
+    void patchRecipe_WithUnchangedValues_ShouldNotWriteAnything() {
+        // Arrange
+        RecipePatchDto patch = new RecipePatchDto();
+        patch.setTitle("Bread");
+        patch.setIngredients(new ArrayList<>(List.of("500 g flour", "300 ml water", "1 tsp salt")));
+        patch.setServings(4);
+
+        // Act
+        Recipe patched = recipeService.patchRecipe(recipe.getId(), patch, "test-user");
+
+        // Assert
+        assertEquals(1, statistics.getPrepareStatementCount(), "Only the select of the recipe");
+        assertEquals(recipe.getVersion(), patched.getVersion());
+    }
+
+    @Test
+    void patchRecipe_WithStaleVersion_ShouldBeRejected() {
+        // Arrange
+        RecipePatchDto first = new RecipePatchDto();
+        first.setTitle("Rye bread");
+        first.setVersion(recipe.getVersion());
+        recipeService.patchRecipe(recipe.getId(), first, "test-user");
+
+        RecipePatchDto stale = new RecipePatchDto();
+        stale.setTitle("Spelt bread");
+        stale.setVersion(recipe.getVersion());
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+            () -> recipeService.patchRecipe(recipe.getId(), stale, "test-user"));
+        assertEquals("Rye bread", recipeRepository.findById(recipe.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void save_OfStaleCopy_ShouldFailOnTheVersionColumn() {
+        // Arrange
+        Recipe staleCopy = recipeRepository.findById(recipe.getId()).orElseThrow();
+        RecipePatchDto patch = new RecipePatchDto();
+        patch.setServings(6);
+        recipeService.patchRecipe(recipe.getId(), patch, "test-user");
+
+        // Act
+        staleCopy.setServings(8);
+
+        // Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> recipeRepository.save(staleCopy));
+        assertEquals(6, recipeRepository.findById(recipe.getId()).orElseThrow().getServings());
+    }
+
+    private static List<String> statementsStartingWith(String prefix) {
+        return RecordingStatementInspector.STATEMENTS.stream()
+            .filter(sql -> sql.startsWith(prefix))
+            .toList();
+    }
+}
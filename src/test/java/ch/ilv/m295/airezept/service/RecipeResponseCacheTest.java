@@ -0,0 +1,180 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.AnthropicProperties;
+import ch.ilv.m295.airezept.dto.CacheStatsDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeResponseCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private RecipeResponseCache cache(int maxEntries, Duration ttl, Path diskDirectory) {
+        return cache(maxEntries, ttl, diskDirectory, 10_000);
+    }
+
+    private RecipeResponseCache cache(int maxEntries, Duration ttl, Path diskDirectory, int maxDiskEntries) {
+        AnthropicProperties properties = new AnthropicProperties();
+        properties.getCache().setMaxDiskEntries(maxDiskEntries);
+        properties.getCache().setMaxEntries(maxEntries);
+        properties.getCache().setTtl(ttl);
+        properties.getCache().setDiskDirectory(diskDirectory == null ? null : diskDirectory.toString());
+        return new RecipeResponseCache(properties);
+    }
+
+    @Test
+    void normalize_ShouldIgnoreCaseOrderAndWhitespace() {
+        assertEquals("broccoli,chicken,rice", RecipeResponseCache.normalize("chicken, rice, broccoli"));
+        assertEquals("broccoli,chicken,rice", RecipeResponseCache.normalize("  Broccoli,Chicken ,  RICE\n"));
+        assertEquals("spicy pasta for two", RecipeResponseCache.normalize("Spicy   pasta for two"));
+    }
+
+    @Test
+    void get_AfterPut_ShouldHitAndCountStats() {
+        // Arrange
+        RecipeResponseCache cache = cache(10, Duration.ofHours(1), null);
+        cache.put("chicken,rice", "{\"title\":\"A\"}");
+
+        // Act
+        Optional<String> hit = cache.get("chicken,rice");
+        Optional<String> miss = cache.get("pasta");
+
+        // Assert
+        assertEquals(Optional.of("{\"title\":\"A\"}"), hit);
+        assertTrue(miss.isEmpty());
+        CacheStatsDto stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getHeapEntries());
+    }
+
+    @Test
+    void put_BeyondMaxEntries_ShouldEvictLeastRecentlyUsed() {
+        // Arrange
+        RecipeResponseCache cache = cache(2, Duration.ofHours(1), null);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get("a"); // a is now more recently used than b
+
+        // Act
+        cache.put("c", "C");
+
+        // Assert
+        assertTrue(cache.get("a").isPresent());
+        assertTrue(cache.get("b").isEmpty());
+        assertTrue(cache.get("c").isPresent());
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    void get_AfterTtl_ShouldMissAndCountEviction() {
+        // Arrange
+        RecipeResponseCache cache = cache(10, Duration.ZERO, null);
+        cache.put("a", "A");
+
+        // Act & Assert
+        assertTrue(cache.get("a").isEmpty());
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    void diskTier_ShouldSurviveNewCacheInstance() {
+        // Arrange
+        cache(10, Duration.ofHours(1), cacheDir).put("chicken,rice", "{\"title\":\"Persisted\"}");
+
+        // Act
+        RecipeResponseCache restarted = cache(10, Duration.ofHours(1), cacheDir);
+
+        // Assert
+        assertEquals(Optional.of("{\"title\":\"Persisted\"}"), restarted.get("chicken,rice"));
+        assertEquals(1, restarted.getStats().getHits());
+    }
+
+    @Test
+    void diskTier_BeyondMaxDiskEntries_ShouldDeleteTheOldestFiles() throws Exception {
+        // Arrange: ten files, written a minute apart
+        RecipeResponseCache cache = cache(100, Duration.ofHours(1), cacheDir, 10);
+        Instant start = Instant.now().minus(Duration.ofMinutes(30));
+        for (int i = 0; i < 10; i++) {
+            putWithAge(cache, "key" + i, start.plus(Duration.ofMinutes(i)));
+        }
+
+        // Act
+        cache.put("key10", "10");
+
+        // Assert: trimmed to nine files, the two oldest are gone
+        assertEquals(9, files("*.json").size());
+        assertEquals(9, cache.getStats().getDiskEntries());
+        RecipeResponseCache restarted = cache(100, Duration.ofHours(1), cacheDir, 10);
+        assertTrue(restarted.get("key0").isEmpty());
+        assertTrue(restarted.get("key1").isEmpty());
+        assertEquals(Optional.of("key2"), restarted.get("key2"));
+        assertEquals(Optional.of("10"), restarted.get("key10"));
+    }
+
+    @Test
+    void sweepDisk_ShouldDeleteExpiredFilesOnly() throws Exception {
+        // Arrange
+        RecipeResponseCache cache = cache(100, Duration.ofHours(1), cacheDir);
+        putWithAge(cache, "old", Instant.now().minus(Duration.ofHours(2)));
+        putWithAge(cache, "new", Instant.now());
+        Path abandonedWrite = Files.createTempFile(cacheDir, "recipe", ".tmp");
+        Files.setLastModifiedTime(abandonedWrite, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        // Act
+        cache.sweepDisk();
+
+        // Assert
+        assertEquals(1, files("*.json").size());
+        assertTrue(files("*.tmp").isEmpty());
+        assertEquals(1, cache.getStats().getDiskEntries());
+        // The expired entry and the abandoned write
+        assertEquals(2, cache.getStats().getEvictions());
+        assertTrue(cache(100, Duration.ofHours(1), cacheDir).get("new").isPresent());
+    }
+
+    @Test
+    void disabledCache_ShouldNeverHit() {
+        // Arrange
+        AnthropicProperties properties = new AnthropicProperties();
+        properties.getCache().setEnabled(false);
+        RecipeResponseCache cache = new RecipeResponseCache(properties);
+        cache.put("a", "A");
+
+        // Act & Assert
+        assertTrue(cache.get("a").isEmpty());
+    }
+
+    /** Puts an entry and backdates the file it wrote. */
+    private void putWithAge(RecipeResponseCache cache, String key, Instant modified) throws Exception {
+        Set<Path> before = files("*.json");
+        cache.put(key, key);
+        Set<Path> written = files("*.json");
+        written.removeAll(before);
+        for (Path file : written) {
+            Files.setLastModifiedTime(file, FileTime.from(modified));
+        }
+    }
+
+    private Set<Path> files(String glob) throws Exception {
+        Set<Path> files = new HashSet<>();
+        try (Stream<Path> paths = Files.list(cacheDir)) {
+            paths.filter(path -> cacheDir.getFileSystem().getPathMatcher("glob:" + glob).matches(path.getFileName()))
+                .forEach(files::add);
+        }
+        return files;
+    }
+}
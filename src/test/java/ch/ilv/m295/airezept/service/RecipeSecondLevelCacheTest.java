@@ -0,0 +1,177 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.dto.CacheRegionStatsDto;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads recipes through the Hibernate second-level cache on H2: repeated reads must not run
+ * any SQL, and updates and deletes done through {@link RecipeService} must never serve stale
+ * recipes or ingredients.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:secondlevelcache;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class RecipeSecondLevelCacheTest {
+
+    private static final String RECIPE_REGION = "recipe";
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+    private Long id;
+
+    @BeforeEach
+    void setUp() {
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Original recipe");
+        recipe.setIngredients(new ArrayList<>(List.of("Flour", "Water")));
+        recipe.setCreatedBy("test-user");
+        id = recipeRepository.save(recipe).getId();
+
+        entityManagerFactory.getCache().evictAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recipeRepository.deleteAll();
+    }
+
+    @Test
+    void repeatedReads_ShouldNotRunAnySql() {
+        // Arrange
+        readInNewSession();
+        long coldStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+
+        // Act
+        Optional<Recipe> first = readInNewSession();
+        Optional<Recipe> second = readInNewSession();
+
+        // Assert
+        assertEquals(1, coldStatements, "The first read loads the recipe row, ingredients included");
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals("Original recipe", second.orElseThrow().getTitle());
+        assertEquals(List.of("Flour", "Water"), first.orElseThrow().getIngredients());
+        assertEquals(2, statistics.getDomainDataRegionStatistics(RECIPE_REGION).getHitCount());
+    }
+
+    @Test
+    void readAfterUpdate_ShouldReturnFreshRecipeAndIngredients() {
+        // Arrange
+        readInNewSession();
+
+        // Act
+        recipeService.updateRecipe(id, recipeDto("Updated recipe", List.of("Rye flour", "Water", "Salt")), "test-user");
+        Recipe recipe = readInNewSession().orElseThrow();
+
+        // Assert
+        assertEquals("Updated recipe", recipe.getTitle());
+        assertEquals(List.of("Rye flour", "Water", "Salt"), recipe.getIngredients());
+    }
+
+    @Test
+    void readAfterDelete_ShouldFindNothing() {
+        // Arrange
+        readInNewSession();
+
+        // Act
+        recipeService.deleteRecipe(id, "test-user");
+
+        // Assert
+        assertTrue(readInNewSession().isEmpty());
+    }
+
+    @Test
+    void getCacheRegionStats_ShouldReportRecipeRegions() {
+        // Arrange
+        readInNewSession();
+        readInNewSession();
+
+        // Act
+        List<CacheRegionStatsDto> stats = recipeService.getCacheRegionStats();
+
+        // Assert
+        CacheRegionStatsDto recipeStats = stats.stream()
+            .filter(region -> region.getRegion().equals(RECIPE_REGION))
+            .findFirst()
+            .orElseThrow();
+        assertEquals(1, recipeStats.getHits());
+        assertEquals(1, recipeStats.getMisses());
+    }
+
+    @Test
+    void recipeRegion_ShouldBeBoundedAndExpire() throws Exception {
+        // Arrange
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+            .getCacheManager(getClass().getClassLoader().getResource("hibernate-cache.conf").toURI(), getClass().getClassLoader());
+
+        // Act
+        @SuppressWarnings("unchecked")
+        CaffeineConfiguration<Object, Object> configuration =
+            cacheManager.getCache(RECIPE_REGION).getConfiguration(CaffeineConfiguration.class);
+
+        // Assert
+        assertEquals(10_000L, configuration.getMaximumSize().orElseThrow());
+        assertEquals(TimeUnit.HOURS.toNanos(1), configuration.getExpireAfterWrite().orElseThrow());
+    }
+
+    // Every call uses a new persistence context, so only the second-level cache can avoid SQL
+    private Optional<Recipe> readInNewSession() {
+        return transactionTemplate.execute(status -> {
+            Optional<Recipe> recipe = recipeRepository.findById(id);
+            recipe.ifPresent(found -> found.getIngredients().size());
+            return recipe;
+        });
+    }
+
+    private static RecipeDto recipeDto(String title, List<String> ingredients) {
+        RecipeDto dto = new RecipeDto();
+        dto.setTitle(title);
+        dto.setIngredients(new ArrayList<>(ingredients));
+        dto.setInstructions("Knead and bake");
+        dto.setPreparationTime(20);
+        dto.setCookingTime(40);
+        dto.setServings(4);
+        return dto;
+    }
+}
@@ -0,0 +1,199 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.RecipeProperties;
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.entity.CompressedTextConverter;
+import ch.ilv.m295.airezept.entity.RequestHistory;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import ch.ilv.m295.airezept.repository.RequestHistoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stores AI responses compressed and moves old requests to the archive, with a batch size of two
+ * so that a run takes several batches.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:requesthistoryretention;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.show-sql=false",
+    "recipes.history.retention-batch-size=2"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class RequestHistoryRetentionTest {
+
+    @Autowired
+    private RequestHistoryRetention retention;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RequestHistoryRepository requestHistoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RecipeProperties recipeProperties;
+
+    @AfterEach
+    void tearDown() {
+        requestHistoryRepository.deleteAll();
+        jdbcTemplate.update("delete from request_history_archive");
+        recipeRepository.findAll().forEach(recipe -> recipeService.deleteRecipe(recipe.getId(), "test-user"));
+    }
+
+    @Test
+    void aiResponse_ShouldBeStoredGzippedAndReadBackAsText() {
+        // Arrange
+        String aiResponse = "{\"title\":\"Soup\",\"instructions\":\"" + "Stir the soup. ".repeat(100) + "\"}";
+
+        // Act
+        Long id = generate(List.of(aiResponse)).get(0);
+
+        // Assert
+        byte[] stored = jdbcTemplate.queryForObject("select ai_response from request_history where id = ?", byte[].class, id);
+        assertEquals((byte) 0x1f, stored[0]);
+        assertEquals((byte) 0x8b, stored[1]);
+        assertTrue(stored.length < aiResponse.length() / 10, stored.length + " bytes");
+        assertEquals(aiResponse, requestHistoryRepository.findById(id).map(RequestHistory::getAiResponse).orElseThrow());
+    }
+
+    @Test
+    void archiveRequestedBefore_ShouldMoveOnlyOldRequestsInBatches() {
+        // Arrange
+        List<Long> ids = generate(List.of("{\"n\":1}", "{\"n\":2}", "{\"n\":3}", "{\"n\":4}", "{\"n\":5}", "{\"n\":6}"));
+        List<Long> old = ids.subList(0, 5);
+        old.forEach(id -> backdate(id, 100));
+
+        // Act
+        int archived = retention.archiveRequestedBefore(LocalDateTime.now().minusDays(90));
+
+        // Assert
+        assertEquals(5, archived);
+        assertEquals(List.of(ids.get(5)), requestHistoryRepository.findAll().stream().map(RequestHistory::getId).toList());
+        assertEquals(old, jdbcTemplate.queryForList("select id from request_history_archive order by id", Long.class));
+        // The archived response is the compressed one, unchanged
+        byte[] archivedResponse = jdbcTemplate.queryForObject(
+            "select ai_response from request_history_archive where id = ?", byte[].class, old.get(0));
+        assertEquals("{\"n\":1}", CompressedTextConverter.decompress(archivedResponse));
+    }
+
+    @Test
+    void applyRetention_ShouldDeleteArchivedRequestsPastTheDeleteAge() {
+        // Arrange
+        List<Long> ids = generate(List.of("{\"n\":1}", "{\"n\":2}", "{\"n\":3}"));
+        backdate(ids.get(0), 1000);
+        backdate(ids.get(1), 1000);
+        backdate(ids.get(2), 100);
+
+        // Act
+        retention.applyRetention();
+
+        // Assert
+        assertEquals(0, requestHistoryRepository.count());
+        assertEquals(List.of(ids.get(2)), jdbcTemplate.queryForList("select id from request_history_archive", Long.class));
+        // Recipes of archived requests can still be deleted
+        recipeRepository.findAll().forEach(recipe -> recipeService.deleteRecipe(recipe.getId(), "test-user"));
+        assertEquals(0, recipeRepository.count());
+    }
+
+    @Test
+    void archiveRequestedBefore_WhenTwoInstancesRunAtOnce_ShouldArchiveEachRequestOnce() throws Exception {
+        // Arrange - the other instance stops in its first batch, before it commits
+        List<Long> ids = generate(List.of("{\"n\":1}", "{\"n\":2}", "{\"n\":3}", "{\"n\":4}", "{\"n\":5}"));
+        ids.forEach(id -> backdate(id, 100));
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(90);
+        CountDownLatch inFirstBatch = new CountDownLatch(1);
+        CountDownLatch finishFirstBatch = new CountDownLatch(1);
+        RequestHistoryRetention otherInstance = new RequestHistoryRetention(jdbcTemplate, namedJdbcTemplate,
+            new TransactionTemplate(transactionManager) {
+                @Override
+                public <T> T execute(TransactionCallback<T> action) {
+                    return super.execute(status -> {
+                        T result = action.doInTransaction(status);
+                        if (inFirstBatch.getCount() > 0) {
+                            inFirstBatch.countDown();
+                            await(finishFirstBatch);
+                        }
+                        return result;
+                    });
+                }
+            }, recipeProperties);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<Integer> otherRun = executor.submit(() -> otherInstance.archiveRequestedBefore(cutoff));
+            assertTrue(inFirstBatch.await(10, TimeUnit.SECONDS));
+
+            // Act
+            int archived = executor.submit(() -> retention.archiveRequestedBefore(cutoff)).get(30, TimeUnit.SECONDS);
+            finishFirstBatch.countDown();
+            int archivedByOther = otherRun.get(30, TimeUnit.SECONDS);
+
+            // Assert - PostgreSQL skips to the next rows, H2 limits before skipping and leaves them to the other run
+            assertEquals(ids.size(), archived + archivedByOther);
+        } finally {
+            finishFirstBatch.countDown();
+            executor.shutdownNow();
+        }
+        assertEquals(0, requestHistoryRepository.count());
+        assertEquals(ids, jdbcTemplate.queryForList("select id from request_history_archive order by id", Long.class));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<Long> generate(List<String> aiResponses) {
+        List<GeneratedRecipe> generated = new ArrayList<>();
+        for (String aiResponse : aiResponses) {
+            RecipeDto dto = new RecipeDto();
+            dto.setTitle("Soup");
+            dto.setIngredients(new ArrayList<>(List.of("1 l water")));
+            dto.setInstructions("Cook");
+            generated.add(new GeneratedRecipe("soup", aiResponse, dto));
+        }
+        recipeService.saveGeneratedRecipes(generated, "test-user");
+        return jdbcTemplate.queryForList("select id from request_history order by id", Long.class);
+    }
+
+    private void backdate(Long id, int days) {
+        jdbcTemplate.update("update request_history set requested_at = ? where id = ?", LocalDateTime.now().minusDays(days), id);
+    }
+}
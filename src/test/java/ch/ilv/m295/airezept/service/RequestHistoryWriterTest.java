@@ -0,0 +1,180 @@
+package ch.ilv.m295.airezept.service;
+
+import ch.ilv.m295.airezept.config.TestConfig;
+import ch.ilv.m295.airezept.dto.RecipeDto;
+import ch.ilv.m295.airezept.dto.RequestHistoryWriterStatsDto;
+import ch.ilv.m295.airezept.entity.Recipe;
+import ch.ilv.m295.airezept.entity.RequestHistory;
+import ch.ilv.m295.airezept.repository.RecipeRepository;
+import ch.ilv.m295.airezept.repository.RequestHistoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes request histories behind the request, in batches of three.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:requesthistorywriter;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.show-sql=false",
+    "recipes.history.flush-batch-size=3",
+    "recipes.history.flush-interval=100ms"
+})
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+class RequestHistoryWriterTest {
+
+    @Autowired
+    private RequestHistoryWriter requestHistoryWriter;
+
+    @Autowired
+    private RequestHistoryRepository requestHistoryRepository;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        if (!requestHistoryWriter.isRunning()) {
+            requestHistoryWriter.start();
+        }
+        requestHistoryRepository.deleteAll();
+        recipeRepository.findAll().forEach(recipe -> recipeService.deleteRecipe(recipe.getId(), "test-user"));
+    }
+
+    @Test
+    void saveGeneratedRecipe_ShouldWriteTheHistoryBehindInBatches() throws Exception {
+        // Arrange
+        RequestHistoryWriterStatsDto before = requestHistoryWriter.getStats();
+        LocalDateTime start = LocalDateTime.now();
+
+        // Act
+        List<Long> recipeIds = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            recipeIds.add(recipeService.saveGeneratedRecipe(recipeDto("Soup " + i), "test-user", "soup " + i, "{}").getId());
+        }
+
+        // Assert
+        awaitHistories(7);
+        List<RequestHistory> histories = requestHistoryRepository.findAll();
+        assertEquals(recipeIds, histories.stream().map(history -> history.getGeneratedRecipe().getId()).sorted().toList());
+        assertTrue(histories.stream().allMatch(history -> !history.getRequestedAt().isBefore(start)));
+        RequestHistoryWriterStatsDto stats = requestHistoryWriter.getStats();
+        assertEquals(7, stats.getWritten() - before.getWritten());
+        // At least three flushes, as no batch holds more than three histories
+        assertTrue(stats.getFlushes() - before.getFlushes() >= 3, stats.toString());
+        assertEquals(0, stats.getQueueDepth());
+        assertEquals(10000, stats.getQueueCapacity());
+    }
+
+    @Test
+    void write_ShouldSkipTheHistoryOfARolledBackRecipe() throws Exception {
+        // Act
+        transactionTemplate.executeWithoutResult(status -> {
+            Recipe recipe = recipeService.saveGeneratedRecipe(recipeDto("Soup"), "test-user", "soup", "{}");
+            assertNotNull(recipe.getId());
+            status.setRollbackOnly();
+        });
+        recipeService.saveGeneratedRecipe(recipeDto("Stew"), "test-user", "stew", "{}");
+
+        // Assert
+        awaitHistories(1);
+        assertEquals(List.of("stew"), requestHistoryRepository.findAll().stream().map(RequestHistory::getUserInput).toList());
+    }
+
+    @Test
+    void write_ForADeletedRecipe_ShouldSkipOnlyThatHistory() throws Exception {
+        // Arrange
+        Long deleted = recipeService.createRecipe(recipeDto("Soup"), "test-user").getId();
+        Long kept = recipeService.createRecipe(recipeDto("Stew"), "test-user").getId();
+        recipeService.deleteRecipe(deleted, "test-user");
+        RequestHistoryWriterStatsDto before = requestHistoryWriter.getStats();
+
+        // Act - both land in the same batch, the deleted recipe is left out of it
+        requestHistoryWriter.write("test-user", "soup", "{}", deleted);
+        requestHistoryWriter.write("test-user", "stew", "{}", kept);
+
+        // Assert
+        awaitHistories(1);
+        assertEquals(List.of(kept), requestHistoryRepository.findAll().stream()
+            .map(history -> history.getGeneratedRecipe().getId()).toList());
+        RequestHistoryWriterStatsDto stats = requestHistoryWriter.getStats();
+        assertEquals(before.getSkipped() + 1, stats.getSkipped());
+        assertEquals(before.getDropped(), stats.getDropped());
+        assertEquals(before.getWritten() + 1, stats.getWritten());
+    }
+
+    @Test
+    void deleteRecipes_ShouldDiscardTheQueuedHistoriesOfTheDeletedRecipes() throws Exception {
+        // Arrange
+        RequestHistoryWriterStatsDto before = requestHistoryWriter.getStats();
+        List<Long> deleted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            deleted.add(recipeService.saveGeneratedRecipe(recipeDto("Soup " + i), "test-user", "soup " + i, "{}").getId());
+        }
+        Long kept = recipeService.saveGeneratedRecipe(recipeDto("Stew"), "test-user", "stew", "{}").getId();
+
+        // Act - whether still queued or already written, no history fails on a missing recipe
+        recipeService.deleteRecipes(deleted);
+
+        // Assert
+        awaitHistories(1);
+        assertEquals(List.of(kept), requestHistoryRepository.findAll().stream()
+            .map(history -> history.getGeneratedRecipe().getId()).toList());
+        RequestHistoryWriterStatsDto stats = requestHistoryWriter.getStats();
+        assertEquals(before.getDropped(), stats.getDropped());
+        assertEquals(6, stats.getWritten() - before.getWritten() + stats.getSkipped() - before.getSkipped());
+    }
+
+    @Test
+    void stop_ShouldDrainTheQueueAndLaterWritesGoDirectly() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            recipeService.saveGeneratedRecipe(recipeDto("Soup " + i), "test-user", "soup " + i, "{}");
+        }
+
+        // Act
+        requestHistoryWriter.stop();
+
+        // Assert
+        assertEquals(5, requestHistoryRepository.count());
+        long byCallerBefore = requestHistoryWriter.getStats().getWrittenByCaller();
+        recipeService.saveGeneratedRecipe(recipeDto("Stew"), "test-user", "stew", "{}");
+        assertEquals(6, requestHistoryRepository.count());
+        assertEquals(byCallerBefore + 1, requestHistoryWriter.getStats().getWrittenByCaller());
+    }
+
+    private void awaitHistories(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (requestHistoryRepository.count() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        // No more than expected either, once the flusher is idle
+        Thread.sleep(200);
+        assertEquals(expected, requestHistoryRepository.count());
+    }
+
+    private static RecipeDto recipeDto(String title) {
+        RecipeDto dto = new RecipeDto();
+        dto.setTitle(title);
+        dto.setIngredients(new ArrayList<>(List.of("1 l water")));
+        dto.setInstructions("Cook");
+        return dto;
+    }
+}
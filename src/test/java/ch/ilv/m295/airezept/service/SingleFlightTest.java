@@ -0,0 +1,100 @@
+package ch.ilv.m295.airezept.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void execute_ConcurrentCalls_ShouldShareOneExecution() throws Exception {
+        // Arrange
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> {
+            running.countDown();
+            await(release);
+            return "result";
+        }));
+        running.await(5, TimeUnit.SECONDS);
+
+        // Act
+        AtomicReference<String> second = new AtomicReference<>();
+        Thread waiter = waitingCaller(() -> second.set(singleFlight.execute("key", () -> "own execution")));
+        release.countDown();
+        waiter.join(5000);
+
+        // Assert
+        assertEquals("result", first.get(5, TimeUnit.SECONDS));
+        assertEquals("result", second.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void execute_WhenTheSupplierThrowsAnError_ShouldReleaseTheWaitingCallers() throws Exception {
+        // Arrange
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StackOverflowError error = new StackOverflowError("deep");
+        AtomicReference<Throwable> firstThrown = new AtomicReference<>();
+        Thread first = new Thread(() -> {
+            try {
+                singleFlight.execute("key", () -> {
+                    running.countDown();
+                    await(release);
+                    throw error;
+                });
+            } catch (Throwable t) {
+                firstThrown.set(t);
+            }
+        });
+        first.start();
+        running.await(5, TimeUnit.SECONDS);
+
+        // Act
+        AtomicReference<Throwable> secondThrown = new AtomicReference<>();
+        Thread waiter = waitingCaller(() -> {
+            try {
+                singleFlight.execute("key", () -> "own execution");
+            } catch (Throwable t) {
+                secondThrown.set(t);
+            }
+        });
+        release.countDown();
+        first.join(5000);
+        waiter.join(5000);
+
+        // Assert
+        assertFalse(waiter.isAlive(), "the waiting caller is still blocked");
+        assertSame(error, firstThrown.get());
+        assertSame(error, secondThrown.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    /** Starts a caller and returns once it is blocked on the execution in flight. */
+    private static Thread waitingCaller(Runnable call) throws InterruptedException {
+        Thread thread = new Thread(call);
+        thread.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+        return thread;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
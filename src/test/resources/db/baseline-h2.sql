@@ -0,0 +1,59 @@
+-- The schema the last release without migrations created on H2 with ddl-auto: update (the DDL
+-- Hibernate logged for it), with a few rows in it as that release wrote them.
+
+create table recipe (
+    cooking_time integer,
+    preparation_time integer,
+    servings integer,
+    created_at timestamp(6) not null,
+    id bigint generated by default as identity,
+    updated_at timestamp(6) not null,
+    created_by varchar(255) not null,
+    description TEXT,
+    instructions TEXT,
+    title varchar(255) not null,
+    primary key (id)
+);
+
+create table recipe_ingredients (
+    recipe_id bigint not null,
+    ingredient varchar(255)
+);
+
+create table request_history (
+    id bigint generated by default as identity,
+    recipe_id bigint unique,
+    requested_at timestamp(6) not null,
+    ai_response TEXT,
+    user_id varchar(255) not null,
+    user_input TEXT,
+    primary key (id)
+);
+
+alter table if exists recipe_ingredients
+   add constraint FKhnsmvxdlwxqq6x2wbgnoef5gr
+   foreign key (recipe_id)
+   references recipe;
+
+alter table if exists request_history
+   add constraint FKe4pg3h1ljqgi4olrtnjtfkwe
+   foreign key (recipe_id)
+   references recipe;
+insert into recipe (title, description, instructions, preparation_time, cooking_time, servings, created_by, created_at, updated_at)
+values ('Pancakes', 'Fluffy', 'Mix and fry', 10, 15, 4, 'user-1', timestamp '2024-01-01 08:00:00', timestamp '2024-01-01 08:00:00');
+insert into recipe (title, description, instructions, preparation_time, cooking_time, servings, created_by, created_at, updated_at)
+values ('Water', null, 'Pour', 1, 0, 1, 'user-2', timestamp '2024-01-02 08:00:00', timestamp '2024-01-02 08:00:00');
+insert into recipe (title, description, instructions, preparation_time, cooking_time, servings, created_by, created_at, updated_at)
+values ('Omelette', 'Quick', 'Whisk and fry', 5, 5, 1, 'user-1', timestamp '2024-01-03 08:00:00', timestamp '2024-01-03 08:00:00');
+
+-- Not in alphabetical order, and interleaved between recipes
+insert into recipe_ingredients (recipe_id, ingredient) values (1, '200 g flour');
+insert into recipe_ingredients (recipe_id, ingredient) values (3, '3 eggs');
+insert into recipe_ingredients (recipe_id, ingredient) values (1, '2 eggs');
+insert into recipe_ingredients (recipe_id, ingredient) values (3, 'salt');
+insert into recipe_ingredients (recipe_id, ingredient) values (1, '300 ml milk');
+
+insert into request_history (user_id, user_input, ai_response, recipe_id, requested_at)
+values ('user-1', 'flour, eggs, milk', '{"title": "Pancakes"}', 1, timestamp '2024-01-01 08:00:00');
+insert into request_history (user_id, user_input, ai_response, recipe_id, requested_at)
+values ('user-1', 'eggs', null, null, timestamp '2024-01-03 07:59:00');